@@ -0,0 +1,26 @@
+package com.restaurant.cart.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.restaurant.events.config.DelayQueueConfiguration;
+import com.restaurant.events.delay.DelayedTaskStore;
+import com.restaurant.events.delay.MongoDelayedTaskStore;
+
+/**
+ * Durable delay queue for cart expiry, stored in MongoDB alongside the carts.
+ * Replaces scanning the whole cart collection for expired carts.
+ */
+@Configuration
+@ConditionalOnProperty(name = "restaurant.events.delay-queue.enabled", havingValue = "true")
+@Import(DelayQueueConfiguration.class)
+public class DelayQueueConfig {
+
+    @Bean
+    public DelayedTaskStore delayedTaskStore(MongoTemplate mongoTemplate) {
+        return new MongoDelayedTaskStore(mongoTemplate);
+    }
+}
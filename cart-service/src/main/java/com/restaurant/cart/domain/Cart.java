@@ -137,7 +137,7 @@ public class Cart {
     }
 
     public boolean isExpired() {
-        return LocalDateTime.now().isAfter(expiresAt);
+        return !LocalDateTime.now().isBefore(expiresAt);
     }
 
     public void markAsExpired() {
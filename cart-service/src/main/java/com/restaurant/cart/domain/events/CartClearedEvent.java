@@ -1,10 +1,12 @@
 package com.restaurant.cart.domain.events;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 
 /**
  * Domain event published when a cart is cleared.
  */
+@EventType("CartCleared")
 public class CartClearedEvent extends DomainEvent {
     
     private final String cartId;
@@ -16,11 +18,6 @@ public class CartClearedEvent extends DomainEvent {
         this.customerId = customerId;
     }
 
-    @Override
-    public String getEventType() {
-        return "CartCleared";
-    }
-
     // Getters
     public String getCartId() { return cartId; }
     public String getCustomerId() { return customerId; }
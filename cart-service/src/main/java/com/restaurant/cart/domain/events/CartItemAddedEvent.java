@@ -3,10 +3,12 @@ package com.restaurant.cart.domain.events;
 import java.math.BigDecimal;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 
 /**
  * Domain event published when an item is added to a cart.
  */
+@EventType("CartItemAdded")
 public class CartItemAddedEvent extends DomainEvent {
     
     private final String cartId;
@@ -32,11 +34,6 @@ public class CartItemAddedEvent extends DomainEvent {
         this.totalAmount = totalAmount;
     }
 
-    @Override
-    public String getEventType() {
-        return "CartItemAdded";
-    }
-
     // Getters
     public String getCartId() { return cartId; }
     public String getCustomerId() { return customerId; }
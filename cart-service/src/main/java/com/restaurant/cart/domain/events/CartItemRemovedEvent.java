@@ -3,10 +3,12 @@ package com.restaurant.cart.domain.events;
 import java.math.BigDecimal;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 
 /**
  * Domain event published when an item is removed from a cart.
  */
+@EventType("CartItemRemoved")
 public class CartItemRemovedEvent extends DomainEvent {
     
     private final String cartId;
@@ -23,11 +25,6 @@ public class CartItemRemovedEvent extends DomainEvent {
         this.totalAmount = totalAmount;
     }
 
-    @Override
-    public String getEventType() {
-        return "CartItemRemoved";
-    }
-
     // Getters
     public String getCartId() { return cartId; }
     public String getCustomerId() { return customerId; }
@@ -7,13 +7,16 @@ import com.restaurant.cart.domain.events.CartClearedEvent;
 import com.restaurant.cart.domain.events.CartItemAddedEvent;
 import com.restaurant.cart.domain.events.CartItemRemovedEvent;
 import com.restaurant.cart.repository.CartRepository;
+import com.restaurant.events.delay.DurableDelayQueue;
 import com.restaurant.events.publisher.EventPublisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,13 +29,21 @@ public class CartService {
 
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
 
+    static final String CART_EXPIRY_TASK = "cart-expiry";
+
     private final CartRepository cartRepository;
     private final EventPublisher eventPublisher;
+    private final DurableDelayQueue delayQueue;
 
     @Autowired
-    public CartService(CartRepository cartRepository, EventPublisher eventPublisher) {
+    public CartService(CartRepository cartRepository, EventPublisher eventPublisher,
+                       ObjectProvider<DurableDelayQueue> delayQueue) {
         this.cartRepository = cartRepository;
         this.eventPublisher = eventPublisher;
+        this.delayQueue = delayQueue.getIfAvailable();
+        if (this.delayQueue != null) {
+            this.delayQueue.registerHandler(CART_EXPIRY_TASK, task -> expireCart(task.getPayload()));
+        }
     }
 
     public Cart getOrCreateCart(String customerId) {
@@ -162,6 +173,28 @@ public class CartService {
         }
     }
 
+    /**
+     * Expires a single cart when its expiry timer fires. Does nothing if the cart was checked out meanwhile.
+     */
+    public void expireCart(String cartId) {
+        Optional<Cart> cartOpt = cartRepository.findById(cartId);
+        
+        if (cartOpt.isEmpty() || cartOpt.get().getStatus() != CartStatus.ACTIVE) {
+            return;
+        }
+        
+        Cart cart = cartOpt.get();
+        if (!cart.isExpired()) {
+            // Expiry was pushed back since the timer was scheduled
+            scheduleExpiry(cart);
+            return;
+        }
+        
+        cart.markAsExpired();
+        cartRepository.save(cart);
+        logger.info("Marked cart {} as expired", cartId);
+    }
+
     public void cleanupExpiredCarts() {
         List<Cart> expiredCarts = cartRepository.findExpiredCarts(LocalDateTime.now());
         
@@ -177,8 +210,16 @@ public class CartService {
         String cartId = UUID.randomUUID().toString();
         Cart cart = new Cart(cartId, customerId);
         Cart savedCart = cartRepository.save(cart);
+        scheduleExpiry(savedCart);
         
         logger.info("Created new cart {} for customer {}", cartId, customerId);
         return savedCart;
     }
+
+    private void scheduleExpiry(Cart cart) {
+        if (delayQueue != null) {
+            delayQueue.schedule(CART_EXPIRY_TASK, cart.getCartId(),
+                cart.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.restaurant.events.registry.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * Generates the domain event type registry of a module at compile time.
+ * <p>
+ * Every concrete {@code DomainEvent} subclass compiled in the module must be annotated with
+ * {@code @EventType}; a missing annotation or two events sharing a type name fail the build. The events
+ * found are written into a {@code GeneratedEventTypeProvider} holding their names, versions and topics and
+ * resolving a type name with a string switch, and the provider is registered as a service so the runtime
+ * registry loads it without scanning the classpath.
+ * <p>
+ * Annotations are referenced by name, so the processor has no dependency on the event library. The
+ * {@code restaurant.events.registry.shared} option marks the provider of the shared event library, whose
+ * types may be shadowed by a service's own event classes.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(EventTypeProcessor.SHARED_OPTION)
+public class EventTypeProcessor extends AbstractProcessor {
+
+    static final String SHARED_OPTION = "restaurant.events.registry.shared";
+
+    private static final String DOMAIN_EVENT = "com.restaurant.events.DomainEvent";
+    private static final String EVENT_TYPE = "com.restaurant.events.registry.EventType";
+    private static final String EVENT_VERSION = "com.restaurant.events.versioning.EventVersion";
+    private static final String PROVIDER_INTERFACE = "com.restaurant.events.registry.EventTypeProvider";
+    private static final String DESCRIPTOR = "com.restaurant.events.registry.EventTypeDescriptor";
+    private static final String PROVIDER_NAME = "GeneratedEventTypeProvider";
+
+    private final List<EventEntry> entries = new ArrayList<>();
+    private final Map<String, EventEntry> entriesByName = new HashMap<>();
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement domainEvent = processingEnv.getElementUtils().getTypeElement(DOMAIN_EVENT);
+        if (domainEvent == null || roundEnv.processingOver()) {
+            return false;
+        }
+        TypeMirror domainEventType = processingEnv.getTypeUtils().erasure(domainEvent.asType());
+        for (Element element : roundEnv.getRootElements()) {
+            collect(element, domainEventType);
+        }
+        if (!generated && !entries.isEmpty() && !roundEnv.errorRaised()) {
+            generate();
+            generated = true;
+        }
+        // Other processors (e.g. Lombok) must still see every annotation
+        return false;
+    }
+
+    private void collect(Element element, TypeMirror domainEventType) {
+        if (!(element instanceof TypeElement)) {
+            return;
+        }
+        TypeElement type = (TypeElement) element;
+        for (Element enclosed : type.getEnclosedElements()) {
+            collect(enclosed, domainEventType);
+        }
+        if (type.getKind() != ElementKind.CLASS
+                || type.getModifiers().contains(Modifier.ABSTRACT)
+                || !processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), domainEventType)) {
+            return;
+        }
+
+        AnnotationMirror eventType = findAnnotation(type, EVENT_TYPE);
+        if (eventType == null) {
+            error(type, "Domain event " + type.getQualifiedName() + " must be annotated with @EventType");
+            return;
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            error(type, "Domain event " + type.getQualifiedName() + " must be public to be registered");
+            return;
+        }
+        String name = stringValue(eventType, "value");
+        if (name == null || name.isBlank()) {
+            error(type, "@EventType of " + type.getQualifiedName() + " must name the event type");
+            return;
+        }
+        String topic = stringValue(eventType, "topic");
+        AnnotationMirror eventVersion = findAnnotation(type, EVENT_VERSION);
+        Object version = eventVersion != null ? value(eventVersion, "value") : null;
+
+        EventEntry entry = new EventEntry(name, type.getQualifiedName().toString(),
+            version instanceof Integer ? (Integer) version : 1,
+            topic == null || topic.isBlank() ? null : topic,
+            packageOf(type));
+        EventEntry existing = entriesByName.putIfAbsent(name, entry);
+        if (existing != null) {
+            error(type, "Event type " + name + " is already registered by " + existing.className);
+            return;
+        }
+        entries.add(entry);
+    }
+
+    private void generate() {
+        entries.sort(Comparator.comparing(entry -> entry.name));
+        String packageName = entries.stream().map(entry -> entry.packageName).min(Comparator.naturalOrder()).get();
+        String providerClass = packageName + "." + PROVIDER_NAME;
+        boolean shared = Boolean.parseBoolean(processingEnv.getOptions().get(SHARED_OPTION));
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n");
+        source.append("import java.util.List;\n\n");
+        source.append("import javax.annotation.processing.Generated;\n\n");
+        source.append("import ").append(DESCRIPTOR).append(";\n");
+        source.append("import ").append(PROVIDER_INTERFACE).append(";\n\n");
+        source.append("/**\n * Event types of this module, generated from their {@code @EventType} annotations.\n */\n");
+        source.append("@Generated(\"").append(EventTypeProcessor.class.getName()).append("\")\n");
+        source.append("public final class ").append(PROVIDER_NAME).append(" implements EventTypeProvider {\n\n");
+        source.append("    private static final List<EventTypeDescriptor> EVENT_TYPES = List.of(\n");
+        for (int i = 0; i < entries.size(); i++) {
+            EventEntry entry = entries.get(i);
+            source.append("        new EventTypeDescriptor(").append(literal(entry.name)).append(", ")
+                .append(entry.className).append(".class, ")
+                .append(entry.version).append(", ")
+                .append(entry.topic != null ? literal(entry.topic) : "null").append(")")
+                .append(i < entries.size() - 1 ? ",\n" : ");\n\n");
+        }
+        source.append("    @Override\n    public List<EventTypeDescriptor> getEventTypes() {\n        return EVENT_TYPES;\n    }\n\n");
+        source.append("    @Override\n    public int indexOf(String eventType) {\n        switch (eventType) {\n");
+        for (int i = 0; i < entries.size(); i++) {
+            source.append("            case ").append(literal(entries.get(i).name)).append(":\n                return ").append(i).append(";\n");
+        }
+        source.append("            default:\n                return -1;\n        }\n    }\n");
+        if (shared) {
+            source.append("\n    @Override\n    public boolean isShared() {\n        return true;\n    }\n");
+        }
+        source.append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(providerClass);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            FileObject services = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                "META-INF/services/" + PROVIDER_INTERFACE);
+            try (Writer writer = services.openWriter()) {
+                writer.write(providerClass + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                "Failed to generate " + providerClass + ": " + e.getMessage());
+        }
+    }
+
+    private AnnotationMirror findAnnotation(TypeElement type, String annotationName) {
+        for (AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : processingEnv.getElementUtils().getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String stringValue(AnnotationMirror mirror, String attribute) {
+        Object value = value(mirror, attribute);
+        return value instanceof String ? (String) value : null;
+    }
+
+    private String packageOf(TypeElement type) {
+        return processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static final class EventEntry {
+        final String name;
+        final String className;
+        final int version;
+        final String topic;
+        final String packageName;
+
+        EventEntry(String name, String className, int version, String topic, String packageName) {
+            this.name = name;
+            this.className = className;
+            this.version = version;
+            this.topic = topic;
+            this.packageName = packageName;
+        }
+    }
+}
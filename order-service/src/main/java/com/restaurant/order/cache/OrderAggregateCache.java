@@ -0,0 +1,121 @@
+package com.restaurant.order.cache;
+
+import com.restaurant.order.eventstore.OrderSnapshotState;
+import com.restaurant.order.model.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded write-through cache of order aggregates for the command side, keyed by order ID.
+ * Entries are put after a command commits and hold the state with its version; the next command
+ * writes against that version, so a stale entry fails the optimistic check instead of overwriting
+ * a newer order; the command handler then retries from the database. Entries are dropped on a
+ * failed command and all of them on a consumer rebalance, when another instance may start writing
+ * the same orders.
+ */
+@Component
+@Slf4j
+public class OrderAggregateCache implements ConsumerRebalanceListener {
+
+    private final boolean enabled;
+    private final Map<String, OrderSnapshotState> entries;
+
+    public OrderAggregateCache(@Value("${order.aggregate-cache.enabled:true}") boolean enabled,
+                               @Value("${order.aggregate-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderSnapshotState> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets a private copy of the cached order, if present.
+     */
+    public Optional<Order> get(String orderId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        OrderSnapshotState state;
+        synchronized (entries) {
+            state = entries.get(orderId);
+        }
+        if (state == null) {
+            return Optional.empty();
+        }
+        log.debug("Order {} served from aggregate cache at version {}", orderId, state.getVersion());
+        return Optional.of(state.toOrder());
+    }
+
+    /**
+     * Caches committed order state unless a newer version is already cached.
+     */
+    public void put(OrderSnapshotState state) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (entries) {
+            entries.merge(state.getId(), state,
+                (cached, updated) -> updated.getVersion() >= cached.getVersion() ? updated : cached);
+        }
+    }
+
+    public boolean contains(String orderId) {
+        if (!enabled) {
+            return false;
+        }
+        synchronized (entries) {
+            return entries.containsKey(orderId);
+        }
+    }
+
+    public void invalidate(String orderId) {
+        synchronized (entries) {
+            entries.remove(orderId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            log.info("Partitions {} revoked, clearing order aggregate cache", partitions);
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        // Orders of newly assigned partitions may have been written elsewhere since they were cached
+        if (!partitions.isEmpty()) {
+            log.info("Partitions {} assigned, clearing order aggregate cache", partitions);
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        onPartitionsRevoked(partitions);
+    }
+}
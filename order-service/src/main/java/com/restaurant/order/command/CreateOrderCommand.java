@@ -1,11 +1,13 @@
 package com.restaurant.order.command;
 
+import com.restaurant.order.dto.CreateOrderRequest;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Data
 @NoArgsConstructor
@@ -16,6 +18,22 @@ public class CreateOrderCommand {
     private BigDecimal totalAmount;
     private List<OrderItemCommand> items;
     
+    public static CreateOrderCommand from(CreateOrderRequest request) {
+        return new CreateOrderCommand(
+            request.getCustomerId(),
+            request.getRestaurantId(),
+            request.getTotalAmount(),
+            request.getItems().stream()
+                .map(item -> new OrderItemCommand(
+                    item.getMenuItemId(),
+                    item.getName(),
+                    item.getPrice(),
+                    item.getQuantity()
+                ))
+                .collect(Collectors.toList())
+        );
+    }
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
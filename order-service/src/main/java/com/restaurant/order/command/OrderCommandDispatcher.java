@@ -0,0 +1,119 @@
+package com.restaurant.order.command;
+
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Routes order commands to single-writer lanes chosen by order ID hash.
+ * Each lane is one thread, so commands for the same order run one after another and never race
+ * on the order's version, while different orders run in parallel across lanes. Creating an order
+ * cannot conflict with anything and goes to the {@link OrderCreationBatcher} instead.
+ */
+@Component
+@Slf4j
+public class OrderCommandDispatcher {
+
+    private final OrderCommandHandler commandHandler;
+    private final OrderCreationBatcher creationBatcher;
+    private final OrderShardRouter shardRouter;
+    private final ExecutorService[] lanes;
+    private final Thread[] laneThreads;
+
+    public OrderCommandDispatcher(OrderCommandHandler commandHandler,
+                                  OrderCreationBatcher creationBatcher,
+                                  OrderShardRouter shardRouter,
+                                  @Value("${order.command-lanes:16}") int laneCount) {
+        this.commandHandler = commandHandler;
+        this.creationBatcher = creationBatcher;
+        this.shardRouter = shardRouter;
+        this.lanes = new ExecutorService[Math.max(1, laneCount)];
+        this.laneThreads = new Thread[lanes.length];
+        for (int i = 0; i < lanes.length; i++) {
+            int lane = i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-lane-" + lane);
+                thread.setDaemon(true);
+                laneThreads[lane] = thread;
+                return thread;
+            });
+        }
+        log.info("Order commands dispatched over {} lanes", lanes.length);
+    }
+
+    public String dispatch(CreateOrderCommand command) {
+        return join(creationBatcher.submit(command));
+    }
+
+    public void dispatch(ConfirmOrderCommand command) {
+        execute(command.getOrderId(), () -> {
+            commandHandler.handle(command);
+            return null;
+        });
+    }
+
+    public void dispatch(CancelOrderCommand command) {
+        execute(command.getOrderId(), () -> {
+            commandHandler.handle(command);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a command on the lane of its order, against the order's shard, and waits for the result.
+     * Exceptions of the command are rethrown unchanged.
+     */
+    public <T> T execute(String orderId, Supplier<T> command) {
+        int lane = laneOf(orderId);
+        Supplier<T> routed = onShard(orderId, command);
+        if (Thread.currentThread() == laneThreads[lane]) {
+            // Already serialized on this order's lane
+            return routed.get();
+        }
+        return join(CompletableFuture.supplyAsync(routed, lanes[lane]));
+    }
+
+    /**
+     * Runs a command on the lane of its order without waiting.
+     */
+    public <T> CompletableFuture<T> submit(String orderId, Supplier<T> command) {
+        return CompletableFuture.supplyAsync(onShard(orderId, command), lanes[laneOf(orderId)]);
+    }
+
+    private <T> Supplier<T> onShard(String orderId, Supplier<T> command) {
+        String shard = shardRouter.shardForOrder(orderId);
+        return () -> ShardContext.callOn(shard, command);
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private int laneOf(String orderId) {
+        int hash = orderId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    @PreDestroy
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+    }
+}
@@ -1,24 +1,54 @@
 package com.restaurant.order.command;
 
+import com.restaurant.events.DomainEvent;
 import com.restaurant.events.publisher.EventPublisher;
+import com.restaurant.order.cache.OrderAggregateCache;
 import com.restaurant.order.event.*;
 import com.restaurant.order.event.OrderCreatedEvent.OrderItemData;
 import com.restaurant.order.eventstore.EventStore;
+import com.restaurant.order.eventstore.OrderAggregateStore;
+import com.restaurant.order.eventstore.OrderSnapshotState;
+import com.restaurant.order.expiry.PendingOrderTimeouts;
 import com.restaurant.order.model.Order;
 import com.restaurant.order.model.OrderStatus;
+import com.restaurant.order.projection.AsyncOrderProjector;
 import com.restaurant.order.projection.OrderProjectionService;
 import com.restaurant.order.repository.OrderRepository;
+import com.restaurant.order.saga.OrderSagaOrchestrator;
+import com.restaurant.order.sharding.OrderShardRouter;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
  * Command Handler for Order write operations with Event Sourcing.
  * Stores events in event store, publishes to Kafka, and rebuilds state from events.
+ * With {@code order.event-sourcing.enabled} the event store is the only synchronous write:
+ * orders are loaded from snapshots plus tail events, and the snapshot, the orders table
+ * and the read model are written asynchronously after commit.
+ * Confirm and cancel usually find the order in the {@link OrderAggregateCache}; the write is then
+ * checked against the cached version, so a stale entry fails the command instead of losing an update.
+ * Such a command is retried once from the database, the failed attempt having dropped the entry.
+ * Events are published to Kafka only once their command has committed, and retried with backoff
+ * until Kafka accepts them.
  */
 @Component
 @RequiredArgsConstructor
@@ -26,17 +56,115 @@ import java.util.stream.Collectors;
 public class OrderCommandHandler {
     
     private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
     private final OrderProjectionService projectionService;
     private final EventStore eventStore;
     private final EventPublisher eventPublisher;
+    private final OrderAggregateStore aggregateStore;
+    private final AsyncOrderProjector asyncProjector;
+    private final OrderAggregateCache orderCache;
+    private final OrderShardRouter shardRouter;
+    private final PendingOrderTimeouts pendingTimeouts;
+    private final PlatformTransactionManager transactionManager;
+    // Looked up lazily, the orchestrator itself sends commands here
+    private final ObjectProvider<OrderSagaOrchestrator> sagaOrchestrator;
     
+    @Value("${order.event-sourcing.enabled:false}")
+    private boolean eventSourced;
+    
+    @Value("${order.events.publish-retry-backoff:1s}")
+    private Duration publishRetryBackoff;
+    
+    @Value("${order.events.publish-max-retry-backoff:1m}")
+    private Duration publishMaxRetryBackoff;
+    
+    /**
+     * Creates an order under an ID the caller reserved with {@link OrderShardRouter#newOrderId},
+     * so a retry after a failed attempt creates the same order rather than a second one.
+     */
     @Transactional
-    public String handle(CreateOrderCommand command) {
+    public String handle(String orderId, CreateOrderCommand command) {
         log.info("Handling CreateOrderCommand for customer: {}", command.getCustomerId());
         
-        // Create order ID
-        String orderId = java.util.UUID.randomUUID().toString();
+        OrderCreatedEvent event = create(orderId, command);
+        
+        // Save event to event store
+        eventStore.saveEvent(event);
+        
+        // Publish event to Kafka once the order has committed
+        publishAfterCommit(List.of(event));
+        
+        return event.getOrderId();
+    }
+    
+    /**
+     * Creates several orders in one transaction, so they share a single commit.
+     * Everything is flushed before commit; if any order fails, none is created and nothing is published.
+     */
+    @Transactional
+    public List<String> handleAll(List<String> orderIds, List<CreateOrderCommand> commands) {
+        log.info("Handling {} CreateOrderCommands in one transaction", commands.size());
+        
+        List<OrderCreatedEvent> events = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            events.add(create(orderIds.get(i), commands.get(i)));
+        }
+        
+        // One multi-row INSERT for the whole batch
+        eventStore.saveEvents(events);
+        
+        // Surface constraint violations before commit
+        orderRepository.flush();
         
+        publishAfterCommit(events);
+        
+        return events.stream().map(OrderCreatedEvent::getOrderId).collect(Collectors.toList());
+    }
+    
+    /**
+     * Publishes events only once their orders have committed, so a rolled-back change never reaches Kafka.
+     * The change stands if publishing fails; the events are then retried in the background, backing off up
+     * to {@code order.events.publish-max-retry-backoff}, until Kafka accepts them. A retry publishes all of
+     * the events again, so consumers may see some twice. Retries are kept in memory only: events not yet
+     * sent when the instance stops are lost, while their orders stay in the event store.
+     */
+    private void publishAfterCommit(List<? extends OrderEvent> events) {
+        List<DomainEvent> toPublish = new ArrayList<>(events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    eventPublisher.publishAllAsync(toPublish).join();
+                    log.info("Published {} events to Kafka", toPublish.size());
+                } catch (Exception e) {
+                    log.warn("Failed to publish events of committed orders {}, retrying", orderIds(toPublish), e);
+                    retryPublish(toPublish, 1);
+                }
+            }
+        });
+    }
+    
+    private void retryPublish(List<DomainEvent> events, int attempt) {
+        long backoff = Math.min(publishMaxRetryBackoff.toMillis(),
+            Math.max(1, publishRetryBackoff.toMillis()) << Math.min(attempt - 1, 16));
+        CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+            .thenCompose(waited -> eventPublisher.publishAllAsync(events))
+            .whenComplete((sent, failure) -> {
+                if (failure == null) {
+                    log.info("Published {} events of orders {} on attempt {}", events.size(), orderIds(events), attempt + 1);
+                } else {
+                    log.warn("Failed to publish events of committed orders {} on attempt {}, retrying",
+                        orderIds(events), attempt + 1, failure);
+                    retryPublish(events, attempt + 1);
+                }
+            });
+    }
+    
+    private static List<String> orderIds(List<DomainEvent> events) {
+        return events.stream().map(DomainEvent::getAggregateId).collect(Collectors.toList());
+    }
+    
+    private OrderCreatedEvent create(String orderId, CreateOrderCommand command) {
         // Create event
         List<OrderItemData> itemsData = command.getItems().stream()
             .map(item -> new OrderItemData(
@@ -56,32 +184,41 @@ public class OrderCommandHandler {
             1
         );
         
-        // Save event to event store
-        eventStore.saveEvent(event);
-        
         // Rebuild order from events
         Order order = Order.fromEvents(List.of(event));
         
-        // Save current state (snapshot)
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order created with ID: {}", savedOrder.getId());
+        if (eventSourced) {
+            afterCommit(order);
+            log.info("Order created with ID: {}", orderId);
+            return event;
+        }
         
-        // Project to read model
-        projectionService.projectOrder(savedOrder);
+        // Save current state (snapshot). The ID is already assigned, so persist rather than merge:
+        // a merge of an order with no row yet would insert a copy instead of this order
+        entityManager.persist(order);
+        if (!orderId.equals(order.getId())) {
+            throw new IllegalStateException("Order " + orderId + " was saved as " + order.getId());
+        }
+        log.info("Order created with ID: {}", order.getId());
         
-        // Publish event to Kafka
-        eventPublisher.publish(event);
-        log.info("Published OrderCreatedEvent to Kafka for order: {}", savedOrder.getId());
+        // Project to read model
+        projectionService.projectOrder(order);
+        afterCommit(order);
         
-        return savedOrder.getId();
+        return event;
     }
     
-    @Transactional
     public void handle(ConfirmOrderCommand command) {
+        retryIfCachedStale(command.getOrderId(), () -> {
+            confirm(command);
+            return null;
+        });
+    }
+    
+    private void confirm(ConfirmOrderCommand command) {
         log.info("Handling ConfirmOrderCommand for order: {}", command.getOrderId());
         
-        Order order = orderRepository.findById(command.getOrderId())
-            .orElseThrow(() -> new IllegalArgumentException("Order not found: " + command.getOrderId()));
+        Order order = loadOrder(command.getOrderId());
         
         if (order.getStatus() != OrderStatus.PENDING) {
             throw new IllegalStateException("Order cannot be confirmed in status: " + order.getStatus());
@@ -100,29 +237,70 @@ public class OrderCommandHandler {
         // Apply event to order
         order.applyEvent(event, false);
         
-        // Save current state (snapshot)
-        Order savedOrder = orderRepository.save(order);
+        if (!eventSourced) {
+            // Save current state (snapshot)
+            saveState(order);
+            
+            // Project to read model
+            projectionService.projectOrder(order);
+        }
+        afterCommit(order);
         log.info("Order confirmed: {}", command.getOrderId());
         
-        // Project to read model
-        projectionService.projectOrder(savedOrder);
-        
-        // Publish event to Kafka
-        eventPublisher.publish(event);
-        log.info("Published OrderConfirmedEvent to Kafka for order: {}", command.getOrderId());
+        // Publish event to Kafka once the confirmation has committed
+        publishAfterCommit(List.of(event));
     }
     
-    @Transactional
     public void handle(CancelOrderCommand command) {
-        log.info("Handling CancelOrderCommand for order: {}", command.getOrderId());
-        
-        Order order = orderRepository.findById(command.getOrderId())
-            .orElseThrow(() -> new IllegalArgumentException("Order not found: " + command.getOrderId()));
-        
-        if (order.getStatus() == OrderStatus.CONFIRMED) {
-            throw new IllegalStateException("Cannot cancel confirmed order: " + command.getOrderId());
+        retryIfCachedStale(command.getOrderId(), () -> {
+            log.info("Handling CancelOrderCommand for order: {}", command.getOrderId());
+            
+            Order order = loadOrder(command.getOrderId());
+            
+            if (order.getStatus() == OrderStatus.CONFIRMED) {
+                throw new IllegalStateException("Cannot cancel confirmed order: " + command.getOrderId());
+            }
+            cancel(order, command);
+            return null;
+        });
+    }
+    
+    /**
+     * Cancels an order only if it is still pending, e.g. because it timed out waiting for its saga.
+     *
+     * @return false if the order was confirmed or cancelled in the meantime
+     */
+    public boolean cancelIfPending(CancelOrderCommand command) {
+        return retryIfCachedStale(command.getOrderId(), () -> {
+            Order order = loadOrder(command.getOrderId());
+            if (order.getStatus() != OrderStatus.PENDING) {
+                return false;
+            }
+            cancel(order, command);
+            return true;
+        });
+    }
+    
+    /**
+     * Runs a command on a cached order in its own transaction. If the cached order turns out to be stale,
+     * the rollback has dropped it from the cache and the command is run once more from the database.
+     * Within a caller's transaction the conflict is rethrown, since the transaction cannot be retried.
+     */
+    private <T> T retryIfCachedStale(String orderId, Supplier<T> command) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        boolean cached = orderCache.contains(orderId);
+        if (!cached || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return transactionTemplate.execute(status -> command.get());
         }
-        
+        try {
+            return transactionTemplate.execute(status -> command.get());
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Cached order {} was stale, retrying the command from the database", orderId);
+            return transactionTemplate.execute(status -> command.get());
+        }
+    }
+    
+    private void cancel(Order order, CancelOrderCommand command) {
         // Create event
         OrderCancelledEvent event = new OrderCancelledEvent(
             order.getId(),
@@ -136,16 +314,69 @@ public class OrderCommandHandler {
         // Apply event to order
         order.applyEvent(event, false);
         
-        // Save current state (snapshot)
-        Order savedOrder = orderRepository.save(order);
+        if (!eventSourced) {
+            // Save current state (snapshot)
+            saveState(order);
+            
+            // Project to read model
+            projectionService.projectOrder(order);
+        }
+        afterCommit(order);
         log.info("Order cancelled: {}", command.getOrderId());
         
-        // Project to read model
-        projectionService.projectOrder(savedOrder);
-        
-        // Publish event to Kafka
-        eventPublisher.publish(event);
-        log.info("Published OrderCancelledEvent to Kafka for order: {}", command.getOrderId());
+        // Publish event to Kafka once the cancellation has committed
+        publishAfterCommit(List.of(event));
+    }
+    
+    /**
+     * Loads a detached order, from the aggregate cache if possible.
+     */
+    private Order loadOrder(String orderId) {
+        // A command that fails may have started from a stale cached order
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    orderCache.invalidate(orderId);
+                }
+            }
+        });
+        return orderCache.get(orderId)
+            .or(() -> eventSourced
+                ? aggregateStore.load(orderId)
+                : orderRepository.findById(orderId).map(order -> OrderSnapshotState.from(order).toOrder()))
+            .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+    }
+    
+    /**
+     * Writes a status change to the orders table, checked against the version the order was loaded at.
+     */
+    private void saveState(Order order) {
+        int updated = orderRepository.updateState(order.getId(), order.getStatus(), order.getPaymentId(),
+            order.getUpdatedAt(), order.getVersion(), order.getVersion() - 1);
+        if (updated == 0) {
+            throw new ObjectOptimisticLockingFailureException(Order.class, order.getId());
+        }
+    }
+    
+    /**
+     * Caches the committed state, starts or ends the order's pending timeout and saga and,
+     * when event-sourced, hands it to the snapshot writer and the projections.
+     */
+    private void afterCommit(Order order) {
+        OrderSnapshotState state = OrderSnapshotState.from(order);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                orderCache.put(state);
+                pendingTimeouts.track(state);
+                sagaOrchestrator.ifAvailable(saga -> saga.track(state));
+                if (eventSourced) {
+                    aggregateStore.snapshotAsync(state);
+                    asyncProjector.project(state);
+                }
+            }
+        });
     }
     
     /**
@@ -0,0 +1,169 @@
+package com.restaurant.order.command;
+
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for order creation.
+ * Commands arriving within {@code order.group-commit.window-micros} of each other, up to
+ * {@code order.group-commit.max-batch}, are written in one transaction by
+ * {@link OrderCommandHandler#handleAll}, so a burst costs one commit instead of one per order.
+ * If the batch fails, its commands are retried one transaction each, so only the failing
+ * command's caller sees the error. Each command keeps the order ID reserved when it was
+ * submitted, so a retry creates the same order, and events are only published after commit.
+ */
+@Component
+@Slf4j
+public class OrderCreationBatcher {
+
+    private final OrderCommandHandler commandHandler;
+    private final OrderShardRouter shardRouter;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingCommand> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean running = true;
+
+    public OrderCreationBatcher(OrderCommandHandler commandHandler,
+                                OrderShardRouter shardRouter,
+                                @Value("${order.group-commit.enabled:true}") boolean enabled,
+                                @Value("${order.group-commit.window-micros:2000}") long windowMicros,
+                                @Value("${order.group-commit.max-batch:64}") int maxBatch,
+                                @Value("${order.group-commit.writers:2}") int writerCount) {
+        this.commandHandler = commandHandler;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = Math.max(1, maxBatch);
+        if (enabled) {
+            for (int i = 0; i < Math.max(1, writerCount); i++) {
+                Thread writer = new Thread(this::run, "order-group-commit-" + i);
+                writer.setDaemon(true);
+                writer.start();
+                writers.add(writer);
+            }
+        }
+    }
+
+    /**
+     * Queues an order for the next group commit.
+     *
+     * @return a future completed with the new order's ID once its batch has committed
+     */
+    public CompletableFuture<String> submit(CreateOrderCommand command) {
+        String orderId = shardRouter.newOrderId(command.getRestaurantId());
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(handle(orderId, command));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        PendingCommand pending = new PendingCommand(orderId, command);
+        queue.add(pending);
+        return pending.result;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<PendingCommand> batch = new ArrayList<>(maxBatch);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCommand next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void commit(List<PendingCommand> batch) {
+        if (shardRouter.isEnabled()) {
+            // A transaction spans one shard only
+            Map<String, List<PendingCommand>> byShard = new LinkedHashMap<>();
+            for (PendingCommand pending : batch) {
+                byShard.computeIfAbsent(shardRouter.shardForRestaurant(pending.command.getRestaurantId()),
+                    shard -> new ArrayList<>()).add(pending);
+            }
+            byShard.forEach((shard, shardBatch) -> ShardContext.runOn(shard, () -> commitShard(shardBatch)));
+        } else {
+            commitShard(batch);
+        }
+    }
+
+    private void commitShard(List<PendingCommand> batch) {
+        if (batch.size() > 1) {
+            List<String> orderIds = new ArrayList<>(batch.size());
+            List<CreateOrderCommand> commands = new ArrayList<>(batch.size());
+            batch.forEach(pending -> {
+                orderIds.add(pending.orderId);
+                commands.add(pending.command);
+            });
+            try {
+                commandHandler.handleAll(orderIds, commands);
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).result.complete(orderIds.get(i));
+                }
+                return;
+            } catch (Exception e) {
+                log.warn("Group commit of {} orders failed, retrying them one by one", batch.size(), e);
+            }
+        }
+        for (PendingCommand pending : batch) {
+            try {
+                pending.result.complete(handle(pending.orderId, pending.command));
+            } catch (Exception e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private String handle(String orderId, CreateOrderCommand command) {
+        return ShardContext.callOn(shardRouter.shardForRestaurant(command.getRestaurantId()),
+            () -> commandHandler.handle(orderId, command));
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+        PendingCommand pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Order service is shutting down"));
+        }
+    }
+
+    private static class PendingCommand {
+        final String orderId;
+        final CreateOrderCommand command;
+        final CompletableFuture<String> result = new CompletableFuture<>();
+
+        PendingCommand(String orderId, CreateOrderCommand command) {
+            this.orderId = orderId;
+            this.command = command;
+        }
+    }
+}
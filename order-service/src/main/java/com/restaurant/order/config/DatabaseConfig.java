@@ -1,25 +1,42 @@
 package com.restaurant.order.config;
 
+import com.restaurant.events.datasource.ReadWriteRoutingDataSource;
+import com.restaurant.events.datasource.ReplicaLagMonitor;
+import com.restaurant.order.sharding.ShardRoutingDataSource;
+import com.restaurant.order.sharding.ShardingProperties;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * Database configuration for CQRS with polyglot persistence.
  * MySQL for write operations (commands), MongoDB for read operations (queries).
+ * With {@code order.sharding.enabled} the MySQL side is split over several shards by restaurant.
+ * A shard with a replica configured sends read-only transactions to it while the replica keeps up
+ * within {@code order.datasource.replica.max-lag}.
  */
 @Configuration
 @EnableTransactionManagement
@@ -27,12 +44,15 @@ import java.util.Map;
     basePackages = {
         "com.restaurant.order.repository",
         "com.restaurant.order.eventstore",
-        "com.restaurant.order.dlq"
+        "com.restaurant.order.dlq",
+        "com.restaurant.order.idempotency",
+        "com.restaurant.order.saga"
     },
     entityManagerFactoryRef = "entityManagerFactory",
     transactionManagerRef = "transactionManager"
 )
 @EnableMongoRepositories(basePackages = "com.restaurant.order.readmodel")
+@EnableConfigurationProperties(ShardingProperties.class)
 public class DatabaseConfig {
 
     @Value("${spring.datasource.write.jdbc-url}")
@@ -46,15 +66,144 @@ public class DatabaseConfig {
     
     @Value("${spring.datasource.write.driver-class-name}")
     private String driverClassName;
+    
+    @Value("${spring.datasource.read.jdbc-url:}")
+    private String replicaJdbcUrl;
+    
+    @Value("${spring.datasource.read.username:${spring.datasource.write.username}}")
+    private String replicaUsername;
+    
+    @Value("${spring.datasource.read.password:${spring.datasource.write.password}}")
+    private String replicaPassword;
+    
+    @Value("${order.datasource.replica.max-lag:5s}")
+    private Duration replicaMaxLag;
+    
+    @Value("${order.datasource.replica.check-interval:5s}")
+    private Duration replicaCheckInterval;
+    
+    @Value("${order.datasource.replica.allow-single-node:false}")
+    private boolean replicaAllowSingleNode;
+    
+    @Value("${order.event-store.key-pool-size:2}")
+    private int keyPoolSize;
+    
+    private final List<ReplicaLagMonitor> lagMonitors = new ArrayList<>();
 
     @Bean
     @Primary
-    public DataSource dataSource() {
+    public DataSource dataSource(ShardingProperties sharding, ObjectProvider<MeterRegistry> meterRegistry) {
+        DataSource primary = withReplica(sharding.getDefaultShard(),
+            createPool(sharding.getDefaultShard(), jdbcUrl, username, password, 0, meterRegistry),
+            replicaJdbcUrl, replicaUsername, replicaPassword, 0, meterRegistry);
+        if (!sharding.isEnabled()) {
+            return lazyIfReplicated(primary);
+        }
+        
+        // Each shard gets its own pool; commands pick one through the ShardContext
+        Map<Object, Object> shards = new HashMap<>();
+        shards.put(sharding.getDefaultShard(), primary);
+        sharding.getShards().forEach((name, shard) -> {
+            if (name.indexOf('_') >= 0) {
+                throw new IllegalStateException("Shard names must not contain '_': " + name);
+            }
+            if (!name.equals(sharding.getDefaultShard())) {
+                shards.put(name, withReplica(name,
+                    createPool(name, shard.getJdbcUrl(), shard.getUsername(), shard.getPassword(),
+                        shard.getMaximumPoolSize(), meterRegistry),
+                    shard.getReplicaJdbcUrl(), shard.getUsername(), shard.getPassword(),
+                    shard.getMaximumPoolSize(), meterRegistry));
+            }
+        });
+        sharding.getRestaurants().forEach((restaurantId, shard) -> {
+            if (!shards.containsKey(shard)) {
+                throw new IllegalStateException("Restaurant " + restaurantId + " is mapped to unknown shard " + shard);
+            }
+        });
+        
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(primary);
+        dataSource.afterPropertiesSet();
+        return lazyIfReplicated(dataSource);
+    }
+    
+    /**
+     * Small autocommit pools, one per shard, that only reserve event store key blocks.
+     * A reservation never waits for a connection of the pool whose transaction needs the keys.
+     */
+    @Bean
+    public DataSource eventStoreKeyDataSource(ShardingProperties sharding, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = createPool(sharding.getDefaultShard() + "-keys", jdbcUrl, username, password,
+            keyPoolSize, meterRegistry);
+        if (!sharding.isEnabled()) {
+            return primary;
+        }
+        Map<Object, Object> shards = new HashMap<>();
+        shards.put(sharding.getDefaultShard(), primary);
+        sharding.getShards().forEach((name, shard) -> {
+            if (!name.equals(sharding.getDefaultShard())) {
+                shards.put(name, createPool(name + "-keys", shard.getJdbcUrl(), shard.getUsername(),
+                    shard.getPassword(), keyPoolSize, meterRegistry));
+            }
+        });
+        ShardRoutingDataSource dataSource = new ShardRoutingDataSource();
+        dataSource.setTargetDataSources(shards);
+        dataSource.setDefaultTargetDataSource(primary);
+        dataSource.afterPropertiesSet();
+        return dataSource;
+    }
+    
+    /**
+     * Puts a replica next to a shard's primary pool, if the shard has one.
+     */
+    private DataSource withReplica(String shard, HikariDataSource primary, String replicaUrl, String user, String pass,
+                                   int maximumPoolSize, ObjectProvider<MeterRegistry> meterRegistry) {
+        if (replicaUrl == null || replicaUrl.isBlank()) {
+            return primary;
+        }
+        HikariDataSource replica = createPool(shard + "-replica", replicaUrl, user, pass, maximumPoolSize, meterRegistry);
+        replica.setReadOnly(true);
+        ReplicaLagMonitor lagMonitor = new ReplicaLagMonitor(replica.getPoolName(), replica, replicaMaxLag,
+            replicaCheckInterval, replicaAllowSingleNode);
+        lagMonitors.add(lagMonitor);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("order.datasource.replica.lag", lagMonitor, ReplicaLagMonitor::getLagSeconds)
+                .description("Replication lag in seconds, -1 if the replica is not replicating")
+                .baseUnit("seconds")
+                .tag("pool", replica.getPoolName())
+                .register(registry);
+            Gauge.builder("order.datasource.replica.usable", lagMonitor, monitor -> monitor.isUsable() ? 1 : 0)
+                .description("Whether read-only transactions are currently routed to the replica")
+                .tag("pool", replica.getPoolName())
+                .register(registry);
+        });
+        return new ReadWriteRoutingDataSource(primary, replica, lagMonitor);
+    }
+    
+    private DataSource lazyIfReplicated(DataSource dataSource) {
+        // The read-only flag is only set once the transaction has begun, so fetch connections on first use
+        return lagMonitors.isEmpty() ? dataSource : new LazyConnectionDataSourceProxy(dataSource);
+    }
+    
+    @PreDestroy
+    public void closeLagMonitors() {
+        lagMonitors.forEach(ReplicaLagMonitor::close);
+    }
+    
+    private HikariDataSource createPool(String shard, String url, String user, String pass, int maximumPoolSize,
+                                        ObjectProvider<MeterRegistry> meterRegistry) {
         HikariDataSource dataSource = new HikariDataSource();
-        dataSource.setJdbcUrl(jdbcUrl);
-        dataSource.setUsername(username);
-        dataSource.setPassword(password);
+        dataSource.setPoolName("order-shard-" + shard);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(user);
+        dataSource.setPassword(pass);
         dataSource.setDriverClassName(driverClassName);
+        if (maximumPoolSize > 0) {
+            dataSource.setMaximumPoolSize(maximumPoolSize);
+        }
+        // hikaricp_* metrics tagged with the pool, i.e. the shard and whether it is its replica
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
         return dataSource;
     }
 
@@ -67,13 +216,18 @@ public class DatabaseConfig {
         Map<String, String> properties = new HashMap<>();
         properties.put("hibernate.hbm2ddl.auto", "update");
         properties.put("hibernate.dialect", "org.hibernate.dialect.MySQLDialect");
+        // Group-committed orders are flushed as JDBC batches
+        properties.put("hibernate.jdbc.batch_size", "64");
+        properties.put("hibernate.order_inserts", "true");
         
         return builder
                 .dataSource(dataSource)
                 .packages(
                     "com.restaurant.order.model",
                     "com.restaurant.order.eventstore",
-                    "com.restaurant.order.dlq"
+                    "com.restaurant.order.dlq",
+                    "com.restaurant.order.idempotency",
+                    "com.restaurant.order.saga"
                 )
                 .persistenceUnit("write")
                 .properties(properties)
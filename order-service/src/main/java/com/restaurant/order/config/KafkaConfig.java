@@ -4,15 +4,19 @@ import com.restaurant.events.publisher.EventPublisher;
 import com.restaurant.events.publisher.KafkaEventPublisher;
 import com.restaurant.events.publisher.TopicResolver;
 import com.restaurant.events.serialization.EventSerializer;
+import com.restaurant.order.cache.OrderAggregateCache;
+import com.restaurant.order.saga.OrderSagaOrchestrator;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -62,10 +66,32 @@ public class KafkaConfig {
     }
     
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory(
+            OrderAggregateCache orderAggregateCache) {
         ConcurrentKafkaListenerContainerFactory<String, String> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        // Another instance may take over orders on a rebalance
+        factory.getContainerProperties().setConsumerRebalanceListener(orderAggregateCache);
+        return factory;
+    }
+    
+    /**
+     * Container for saga replies. Records are acknowledged out of order once their saga step is done,
+     * and offsets are committed up to the first record still in progress.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> sagaListenerContainerFactory(
+            ObjectProvider<OrderSagaOrchestrator> sagaOrchestrator,
+            @Value("${order.saga.listener-concurrency:3}") int concurrency) {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = 
+            new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        sagaOrchestrator.ifAvailable(orchestrator ->
+            factory.getContainerProperties().setConsumerRebalanceListener(orchestrator));
         return factory;
     }
     
@@ -3,24 +3,28 @@ package com.restaurant.order.controller;
 import com.restaurant.order.command.CancelOrderCommand;
 import com.restaurant.order.command.ConfirmOrderCommand;
 import com.restaurant.order.command.CreateOrderCommand;
-import com.restaurant.order.command.OrderCommandHandler;
+import com.restaurant.order.command.OrderCommandDispatcher;
 import com.restaurant.order.dto.CreateOrderRequest;
 import com.restaurant.order.dto.OrderResponse;
+import com.restaurant.order.idempotency.IdempotencyService;
 import com.restaurant.order.query.CustomerOrdersQuery;
 import com.restaurant.order.query.OrderQuery;
 import com.restaurant.order.query.OrderQueryHandler;
+import com.restaurant.order.service.BulkOrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * REST Controller for Order operations using CQRS pattern.
- * Commands go to OrderCommandHandler, Queries go to OrderQueryHandler.
+ * Commands go through OrderCommandDispatcher to OrderCommandHandler, Queries go to OrderQueryHandler.
  */
 @RestController
 @RequestMapping("/api/orders")
@@ -28,29 +32,41 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderController {
     
-    private final OrderCommandHandler commandHandler;
+    private static final String NDJSON = "application/x-ndjson";
+    
+    private final OrderCommandDispatcher commandDispatcher;
     private final OrderQueryHandler queryHandler;
+    private final BulkOrderService bulkOrderService;
+    private final IdempotencyService idempotencyService;
     
+    /**
+     * Creates an order. Retries carrying the same {@code Idempotency-Key} get the first order's ID back.
+     */
     @PostMapping
-    public ResponseEntity<String> createOrder(@RequestBody CreateOrderRequest request) {
+    public ResponseEntity<String> createOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreateOrderRequest request) {
         log.info("Received create order request for customer: {}", request.getCustomerId());
         
-        CreateOrderCommand command = new CreateOrderCommand(
-            request.getCustomerId(),
-            request.getRestaurantId(),
-            request.getTotalAmount(),
-            request.getItems().stream()
-                .map(item -> new CreateOrderCommand.OrderItemCommand(
-                    item.getMenuItemId(),
-                    item.getName(),
-                    item.getPrice(),
-                    item.getQuantity()
-                ))
-                .collect(Collectors.toList())
-        );
+        CreateOrderCommand command = CreateOrderCommand.from(request);
         
-        String orderId = commandHandler.handle(command);
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderId);
+        return idempotencyService.execute(idempotencyKey, "create", command, () -> {
+            String orderId = commandDispatcher.dispatch(command);
+            return ResponseEntity.status(HttpStatus.CREATED).body(orderId);
+        });
+    }
+    
+    /**
+     * Creates a batch of orders sent as NDJSON or a JSON array.
+     * One result line per order is streamed back as the orders complete, in completion order.
+     */
+    @PostMapping(path = "/bulk",
+                 consumes = {NDJSON, MediaType.APPLICATION_JSON_VALUE},
+                 produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> createOrders(InputStream body) {
+        log.info("Received bulk order submission");
+        StreamingResponseBody results = output -> bulkOrderService.createOrders(body, output);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(results);
     }
     
     @GetMapping("/{orderId}")
@@ -68,20 +84,26 @@ public class OrderController {
     }
     
     @PutMapping("/{orderId}/confirm")
-    public ResponseEntity<Void> confirmOrder(
+    public ResponseEntity<String> confirmOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @PathVariable("orderId") String orderId,
             @RequestParam("paymentId") String paymentId) {
         ConfirmOrderCommand command = new ConfirmOrderCommand(orderId, paymentId);
-        commandHandler.handle(command);
-        return ResponseEntity.ok().build();
+        return idempotencyService.execute(idempotencyKey, "confirm", command, () -> {
+            commandDispatcher.dispatch(command);
+            return ResponseEntity.ok().build();
+        });
     }
     
     @PutMapping("/{orderId}/cancel")
-    public ResponseEntity<Void> cancelOrder(
+    public ResponseEntity<String> cancelOrder(
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @PathVariable("orderId") String orderId,
             @RequestParam(value = "reason", required = false) String reason) {
         CancelOrderCommand command = new CancelOrderCommand(orderId, reason);
-        commandHandler.handle(command);
-        return ResponseEntity.ok().build();
+        return idempotencyService.execute(idempotencyKey, "cancel", command, () -> {
+            commandDispatcher.dispatch(command);
+            return ResponseEntity.ok().build();
+        });
     }
 }
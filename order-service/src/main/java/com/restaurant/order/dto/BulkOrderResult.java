@@ -0,0 +1,28 @@
+package com.restaurant.order.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one order of a bulk submission, streamed back as one NDJSON line.
+ * {@code index} is the position of the order in the submitted stream.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderResult {
+    
+    public enum Status {
+        CREATED,
+        REJECTED,
+        FAILED
+    }
+    
+    private long index;
+    private Status status;
+    private String orderId;
+    private String error;
+}
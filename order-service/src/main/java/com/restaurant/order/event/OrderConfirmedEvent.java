@@ -2,11 +2,13 @@ package com.restaurant.order.event;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.events.registry.EventType;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 import java.time.LocalDateTime;
 
+@EventType(value = "OrderConfirmed", topic = "order-confirmed")
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class OrderConfirmedEvent extends OrderEvent {
@@ -29,9 +31,4 @@ public class OrderConfirmedEvent extends OrderEvent {
         super(eventId, orderId, occurredOn, version);
         this.paymentId = paymentId;
     }
-    
-    @Override
-    public String getEventType() {
-        return "OrderConfirmed";
-    }
 }
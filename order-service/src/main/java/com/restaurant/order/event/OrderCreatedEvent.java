@@ -2,6 +2,7 @@ package com.restaurant.order.event;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.events.registry.EventType;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -9,6 +10,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+@EventType(value = "OrderCreated", topic = "order-saga-started")
 @Data
 @EqualsAndHashCode(callSuper = true)
 public class OrderCreatedEvent extends OrderEvent {
@@ -45,11 +47,6 @@ public class OrderCreatedEvent extends OrderEvent {
         this.items = items;
     }
     
-    @Override
-    public String getEventType() {
-        return "OrderCreated";
-    }
-    
     @Data
     public static class OrderItemData {
         private String menuItemId;
@@ -20,39 +20,59 @@ import java.util.List;
 public class EventStore {
     
     private final EventStoreRepository repository;
+    private final JdbcEventStoreAppender appender;
     private final ObjectMapper objectMapper;
     
     @Transactional
     public void saveEvent(OrderEvent event) {
+        saveEvents(List.of(event));
+    }
+    
+    /**
+     * Serializes the events and appends them with a single INSERT.
+     */
+    @Transactional
+    public void saveEvents(List<? extends OrderEvent> events) {
+        List<EventStoreEntry> entries = new ArrayList<>(events.size());
+        for (OrderEvent event : events) {
+            entries.add(toEntry(event));
+        }
+        appender.append(entries);
+        if (log.isDebugEnabled()) {
+            events.forEach(event -> log.debug("Saved event: {} for order: {}", event.getEventType(), event.getOrderId()));
+        }
+    }
+    
+    private EventStoreEntry toEntry(OrderEvent event) {
         try {
-            String eventData = objectMapper.writeValueAsString(event);
-            
-            EventStoreEntry entry = new EventStoreEntry(
+            return new EventStoreEntry(
                 event.getEventId(),
                 event.getOrderId(),
                 event.getEventType(),
-                eventData,
+                objectMapper.writeValueAsString(event),
                 event.getVersion(),
                 event.getOccurredOn()
             );
-            
-            repository.save(entry);
-            log.debug("Saved event: {} for order: {}", event.getEventType(), event.getOrderId());
-            
         } catch (Exception e) {
             log.error("Failed to save event: {}", event.getEventType(), e);
             throw new RuntimeException("Failed to save event", e);
         }
     }
     
-    @Transactional
-    public void saveEvents(List<OrderEvent> events) {
-        events.forEach(this::saveEvent);
+    @Transactional(readOnly = true)
+    public List<OrderEvent> getEvents(String orderId) {
+        return deserializeEvents(repository.findByAggregateIdOrderByVersionAsc(orderId));
     }
     
+    /**
+     * Gets the events of an order newer than the given version, e.g. the tail after a snapshot.
+     */
     @Transactional(readOnly = true)
-    public List<OrderEvent> getEvents(String orderId) {
-        List<EventStoreEntry> entries = repository.findByAggregateIdOrderByVersionAsc(orderId);
+    public List<OrderEvent> getEventsAfter(String orderId, int version) {
+        return deserializeEvents(repository.findByAggregateIdAndVersionGreaterThanOrderByVersionAsc(orderId, version));
+    }
+    
+    private List<OrderEvent> deserializeEvents(List<EventStoreEntry> entries) {
         List<OrderEvent> events = new ArrayList<>();
         
         for (EventStoreEntry entry : entries) {
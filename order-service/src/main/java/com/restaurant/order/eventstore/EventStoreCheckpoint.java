@@ -0,0 +1,38 @@
+package com.restaurant.order.eventstore;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position up to which a consumer of the event store has processed events, one row per consumer and shard.
+ * Events are ordered by occurredOn and then by key.
+ */
+@Entity
+@Table(name = "event_store_checkpoints")
+@Data
+@NoArgsConstructor
+public class EventStoreCheckpoint {
+    
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+    
+    @Column(name = "occurred_on", nullable = false)
+    private LocalDateTime occurredOn;
+    
+    @Column(name = "event_key", nullable = false)
+    private long eventKey;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    public EventStoreCheckpoint(String name, LocalDateTime occurredOn, long eventKey) {
+        this.name = name;
+        this.occurredOn = occurredOn;
+        this.eventKey = eventKey;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,8 @@
+package com.restaurant.order.eventstore;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EventStoreCheckpointRepository extends JpaRepository<EventStoreCheckpoint, String> {
+}
@@ -9,9 +9,14 @@ import java.time.LocalDateTime;
 /**
  * Event Store entry for persisting domain events.
  * Stores events as JSON in MySQL for complete audit trail.
+ * Rows are written by {@link JdbcEventStoreAppender}; the entity is used for reads.
+ * Appends rely on the {@code (aggregateId, version)} unique key, which
+ * {@code db/migration/V3__event_store_versions_and_key_blocks.sql} adds to existing databases.
  */
 @Entity
-@Table(name = "event_store", indexes = {
+@Table(name = "event_store", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_event_store_aggregate_version", columnNames = {"aggregateId", "version"})
+}, indexes = {
     @Index(name = "idx_aggregate_id", columnList = "aggregateId"),
     @Index(name = "idx_event_type", columnList = "eventType"),
     @Index(name = "idx_occurred_on", columnList = "occurredOn")
@@ -21,8 +26,7 @@ import java.time.LocalDateTime;
 public class EventStoreEntry {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Long id;
+    private Long id; // assigned by EventStoreKeyAllocator
     
     @Column(nullable = false)
     private String eventId;
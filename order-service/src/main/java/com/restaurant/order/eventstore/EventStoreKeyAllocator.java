@@ -0,0 +1,125 @@
+package com.restaurant.order.eventstore;
+
+import com.restaurant.order.sharding.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands out event store primary keys from blocks reserved in {@code event_store_key_blocks}.
+ * A block is reserved with a single autocommit statement on the small {@code eventStoreKeyDataSource}
+ * pool, so a reservation never waits for a connection held by the transaction that needs the keys,
+ * and the database is only asked once every {@code order.event-store.key-block-size} events.
+ * No lock is held during the round trip; when two appenders reserve at once, the spare block is dropped.
+ * Keys of a block that is not used up are skipped, never reused.
+ * <p>
+ * Instances that still let the database assign keys with AUTO_INCREMENT take keys from the reserved
+ * blocks, so switching to key blocks needs a full-stop deploy.
+ */
+@Component
+@Slf4j
+public class EventStoreKeyAllocator {
+    
+    private static final String BLOCK_NAME = "event_store";
+    
+    private static final String SEED_BLOCK_SQL =
+        "INSERT IGNORE INTO event_store_key_blocks (name, next_id) SELECT ?, COALESCE(MAX(id), 0) + 1 FROM event_store";
+    
+    // LAST_INSERT_ID(expr) hands the new high-water mark back on the same connection, without a lock
+    private static final String ADVANCE_BLOCK_SQL =
+        "UPDATE event_store_key_blocks SET next_id = LAST_INSERT_ID(next_id + ?) WHERE name = ?";
+    
+    private static final String READ_BLOCK_END_SQL = "SELECT LAST_INSERT_ID()";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+    private final Map<String, KeyBlock> blocks = new ConcurrentHashMap<>();
+    
+    public EventStoreKeyAllocator(@Qualifier("eventStoreKeyDataSource") DataSource dataSource,
+                                  @Value("${order.event-store.key-block-size:1000}") int blockSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.blockSize = Math.max(1, blockSize);
+    }
+    
+    /**
+     * Gets the given number of unused keys, in ascending order.
+     */
+    public long[] nextKeys(int count) {
+        // Keys are unique per shard, each shard has its own block
+        KeyBlock block = blocks.computeIfAbsent(String.valueOf(ShardContext.current()), shard -> new KeyBlock());
+        long[] keys = new long[count];
+        int taken;
+        synchronized (block) {
+            taken = block.take(keys, 0);
+        }
+        if (taken == count) {
+            return keys;
+        }
+    
+        int size = Math.max(blockSize, count - taken);
+        long next = reserveBlock(block, size);
+        long limit = next + size;
+        while (taken < count) {
+            keys[taken++] = next++;
+        }
+        synchronized (block) {
+            // Keep the rest unless another appender installed a fresh block meanwhile
+            if (block.next >= block.limit) {
+                block.next = next;
+                block.limit = limit;
+            }
+        }
+        return keys;
+    }
+    
+    private long reserveBlock(KeyBlock block, int size) {
+        if (!block.seeded) {
+            // Continues after keys assigned before blocks were used
+            jdbcTemplate.update(SEED_BLOCK_SQL, BLOCK_NAME);
+            block.seeded = true;
+        }
+        Long end = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try (PreparedStatement advance = connection.prepareStatement(ADVANCE_BLOCK_SQL)) {
+                advance.setInt(1, size);
+                advance.setString(2, BLOCK_NAME);
+                advance.executeUpdate();
+            }
+            try (PreparedStatement read = connection.prepareStatement(READ_BLOCK_END_SQL);
+                 ResultSet rs = read.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        });
+        long start = end - size;
+        log.debug("Reserved event store keys {} to {}", start, end - 1);
+        return start;
+    }
+    
+    private static class KeyBlock {
+        volatile boolean seeded;
+        long next;
+        long limit;
+    
+        /**
+         * Fills keys from this block, starting at the given index.
+         *
+         * @return the index after the last key filled
+         */
+        int take(long[] keys, int from) {
+            int i = from;
+            while (i < keys.length && next < limit) {
+                keys[i++] = next++;
+            }
+            return i;
+        }
+    }
+}
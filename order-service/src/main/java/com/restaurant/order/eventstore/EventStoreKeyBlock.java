@@ -0,0 +1,24 @@
+package com.restaurant.order.eventstore;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * High-water mark of the event store keys handed out in blocks.
+ * Only declared so the table is created with the schema; {@link EventStoreKeyAllocator} reads and
+ * advances it with plain JDBC.
+ */
+@Entity
+@Table(name = "event_store_key_blocks")
+@Data
+@NoArgsConstructor
+public class EventStoreKeyBlock {
+    
+    @Id
+    @Column(name = "name")
+    private String name;
+    
+    @Column(name = "next_id", nullable = false)
+    private long nextId;
+}
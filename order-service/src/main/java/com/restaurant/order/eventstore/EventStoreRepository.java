@@ -1,8 +1,12 @@
 package com.restaurant.order.eventstore;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -10,5 +14,36 @@ public interface EventStoreRepository extends JpaRepository<EventStoreEntry, Lon
     
     List<EventStoreEntry> findByAggregateIdOrderByVersionAsc(String aggregateId);
     
+    List<EventStoreEntry> findByAggregateIdAndVersionGreaterThanOrderByVersionAsc(String aggregateId, int version);
+    
     boolean existsByAggregateIdAndVersion(String aggregateId, int version);
+    
+    /**
+     * Lists events after a position in (occurredOn, id) order, up to {@code before}, without their payloads.
+     */
+    @Query("SELECT e.id AS id, e.aggregateId AS aggregateId, e.occurredOn AS occurredOn FROM EventStoreEntry e " +
+           "WHERE e.occurredOn < :before AND (e.occurredOn > :afterOccurredOn " +
+           "OR (e.occurredOn = :afterOccurredOn AND e.id > :afterId)) ORDER BY e.occurredOn, e.id")
+    List<EventPosition> findPositionsAfter(@Param("afterOccurredOn") LocalDateTime afterOccurredOn,
+                                           @Param("afterId") long afterId,
+                                           @Param("before") LocalDateTime before,
+                                           Pageable page);
+    
+    /**
+     * Lists orders created in the given period that have no event after OrderCreated, i.e. are still pending.
+     */
+    @Query("SELECT e.id AS id, e.aggregateId AS aggregateId, e.occurredOn AS occurredOn FROM EventStoreEntry e " +
+           "WHERE e.eventType = 'OrderCreated' AND e.occurredOn >= :from AND e.occurredOn < :before " +
+           "AND NOT EXISTS (SELECT 1 FROM EventStoreEntry later " +
+           "WHERE later.aggregateId = e.aggregateId AND later.version > e.version)")
+    List<EventPosition> findPendingOrderCreations(@Param("from") LocalDateTime from,
+                                                  @Param("before") LocalDateTime before);
+    
+    interface EventPosition {
+        Long getId();
+        
+        String getAggregateId();
+        
+        LocalDateTime getOccurredOn();
+    }
 }
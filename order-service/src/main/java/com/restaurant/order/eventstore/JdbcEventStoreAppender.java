@@ -0,0 +1,92 @@
+package com.restaurant.order.eventstore;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Appends serialized events to {@code event_store} with one multi-row INSERT per call.
+ * Keys come from the {@link EventStoreKeyAllocator}, so no generated key has to be read back.
+ * The statement joins the caller's transaction. A second event for the same order version is
+ * rejected by the {@code (aggregateId, version)} unique key and reported as an optimistic locking failure;
+ * a primary key collision is not a concurrent modification and is reported as it is.
+ */
+@Component
+@Slf4j
+public class JdbcEventStoreAppender {
+    
+    private static final int MAX_ROWS_PER_STATEMENT = 500;
+    
+    private static final String INSERT_SQL =
+        "INSERT INTO event_store (id, eventId, aggregateId, eventType, eventData, version, occurredOn, createdAt) VALUES ";
+    
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final EventStoreKeyAllocator keyAllocator;
+    
+    public JdbcEventStoreAppender(DataSource dataSource, EventStoreKeyAllocator keyAllocator) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.keyAllocator = keyAllocator;
+    }
+    
+    public void append(List<EventStoreEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long[] keys = keyAllocator.nextKeys(entries.size());
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        for (int from = 0; from < entries.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<EventStoreEntry> chunk = entries.subList(from, Math.min(entries.size(), from + MAX_ROWS_PER_STATEMENT));
+            List<Object> args = new ArrayList<>(chunk.size() * 8);
+            for (int i = 0; i < chunk.size(); i++) {
+                EventStoreEntry entry = chunk.get(i);
+                entry.setId(keys[from + i]);
+                entry.setCreatedAt(createdAt.toLocalDateTime());
+                args.add(entry.getId());
+                args.add(entry.getEventId());
+                args.add(entry.getAggregateId());
+                args.add(entry.getEventType());
+                args.add(entry.getEventData());
+                args.add(entry.getVersion());
+                args.add(Timestamp.valueOf(entry.getOccurredOn()));
+                args.add(createdAt);
+            }
+            String sql = INSERT_SQL + String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDERS));
+            try {
+                jdbcTemplate.update(sql, args.toArray());
+            } catch (DuplicateKeyException e) {
+                if (isPrimaryKeyCollision(e)) {
+                    // e.g. an instance still assigning keys with AUTO_INCREMENT during a rolling deploy
+                    throw new DuplicateKeyException("Event store key already taken, key blocks and AUTO_INCREMENT "
+                        + "must not be mixed: " + describe(chunk), e);
+                }
+                throw new OptimisticLockingFailureException(
+                    "Event version already stored, order was modified concurrently: " + describe(chunk), e);
+            }
+        }
+        log.debug("Appended {} events to the event store", entries.size());
+    }
+    
+    private static boolean isPrimaryKeyCollision(DuplicateKeyException e) {
+        // MySQL: Duplicate entry '...' for key 'event_store.PRIMARY'
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains("PRIMARY'");
+    }
+    
+    private static String describe(List<EventStoreEntry> entries) {
+        EventStoreEntry first = entries.get(0);
+        return entries.size() == 1
+            ? first.getAggregateId() + " v" + first.getVersion()
+            : first.getAggregateId() + " v" + first.getVersion() + " and " + (entries.size() - 1) + " more";
+    }
+}
@@ -0,0 +1,106 @@
+package com.restaurant.order.eventstore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.order.event.OrderEvent;
+import com.restaurant.order.model.Order;
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads order aggregates from the event store, starting from their latest snapshot.
+ * Snapshots are written asynchronously every {@code order.event-sourcing.snapshot-every} versions,
+ * so they never add latency to a command; a missing or stale snapshot only means a longer tail.
+ */
+@Component
+@Slf4j
+public class OrderAggregateStore {
+    
+    private final EventStore eventStore;
+    private final OrderSnapshotRepository snapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final OrderShardRouter shardRouter;
+    private final int snapshotEvery;
+    private final ExecutorService snapshotWriter;
+    
+    public OrderAggregateStore(EventStore eventStore,
+                               OrderSnapshotRepository snapshotRepository,
+                               ObjectMapper objectMapper,
+                               OrderShardRouter shardRouter,
+                               @Value("${order.event-sourcing.snapshot-every:2}") int snapshotEvery) {
+        this.eventStore = eventStore;
+        this.snapshotRepository = snapshotRepository;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.snapshotEvery = Math.max(1, snapshotEvery);
+        this.snapshotWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Rebuilds an order from its latest snapshot and the events after it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Order> load(String orderId) {
+        Order order = snapshotRepository.findById(orderId)
+            .map(this::restore)
+            .orElse(null);
+        List<OrderEvent> tail = eventStore.getEventsAfter(orderId, order != null ? order.getVersion() : 0);
+        if (order == null) {
+            if (tail.isEmpty()) {
+                return Optional.empty();
+            }
+            order = new Order();
+        }
+        for (OrderEvent event : tail) {
+            order.applyEvent(event, false);
+        }
+        log.debug("Loaded order {} at version {} with {} tail events", orderId, order.getVersion(), tail.size());
+        return Optional.of(order);
+    }
+    
+    /**
+     * Writes a snapshot in the background if the state's version is due for one.
+     */
+    public void snapshotAsync(OrderSnapshotState state) {
+        if (state.getVersion() % snapshotEvery != 0) {
+            return;
+        }
+        snapshotWriter.execute(() -> {
+            try {
+                String json = objectMapper.writeValueAsString(state);
+                ShardContext.runOn(shardRouter.shardForOrder(state.getId()),
+                    () -> snapshotRepository.saveIfNewer(state.getId(), state.getVersion(), json));
+                log.debug("Saved snapshot of order {} at version {}", state.getId(), state.getVersion());
+            } catch (Exception e) {
+                log.warn("Failed to save snapshot of order {} at version {}", state.getId(), state.getVersion(), e);
+            }
+        });
+    }
+    
+    private Order restore(OrderSnapshot snapshot) {
+        try {
+            return objectMapper.readValue(snapshot.getState(), OrderSnapshotState.class).toOrder();
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable snapshot of order {}, replaying all events", snapshot.getAggregateId(), e);
+            return null;
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        snapshotWriter.shutdown();
+    }
+}
@@ -0,0 +1,31 @@
+package com.restaurant.order.eventstore;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Latest snapshot of an order aggregate.
+ * Loading an order reads this row plus the events with a higher version.
+ */
+@Entity
+@Table(name = "order_snapshots")
+@Data
+@NoArgsConstructor
+public class OrderSnapshot {
+    
+    @Id
+    @Column(name = "aggregate_id")
+    private String aggregateId;
+    
+    @Column(name = "version", nullable = false)
+    private int version;
+    
+    @Column(name = "state", nullable = false, columnDefinition = "TEXT")
+    private String state; // JSON of OrderSnapshotState
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,28 @@
+package com.restaurant.order.eventstore;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface OrderSnapshotRepository extends JpaRepository<OrderSnapshot, String> {
+    
+    /**
+     * Writes a snapshot unless a newer one is already stored. State is assigned before version,
+     * so its condition still sees the old version.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO order_snapshots (aggregate_id, version, state, created_at) "
+        + "VALUES (:aggregateId, :version, :state, NOW()) "
+        + "ON DUPLICATE KEY UPDATE "
+        + "state = IF(VALUES(version) > version, VALUES(state), state), "
+        + "created_at = IF(VALUES(version) > version, VALUES(created_at), created_at), "
+        + "version = GREATEST(version, VALUES(version))", nativeQuery = true)
+    int saveIfNewer(@Param("aggregateId") String aggregateId,
+                    @Param("version") int version,
+                    @Param("state") String state);
+}
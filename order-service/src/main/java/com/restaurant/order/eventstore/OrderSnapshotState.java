@@ -0,0 +1,68 @@
+package com.restaurant.order.eventstore;
+
+import com.restaurant.order.event.OrderCreatedEvent.OrderItemData;
+import com.restaurant.order.model.Order;
+import com.restaurant.order.model.OrderItem;
+import com.restaurant.order.model.OrderStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Copy of an order's state, stored in snapshots and handed to asynchronous writers
+ * so they never share the command side's Order instance.
+ * The class is a mutable bean for JSON mapping; a copy must not be changed once it is handed over.
+ */
+@Data
+@NoArgsConstructor
+public class OrderSnapshotState {
+    
+    private String id;
+    private String customerId;
+    private String restaurantId;
+    private List<OrderItemData> items;
+    private BigDecimal totalAmount;
+    private OrderStatus status;
+    private String paymentId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private int version;
+    
+    public static OrderSnapshotState from(Order order) {
+        OrderSnapshotState state = new OrderSnapshotState();
+        state.setId(order.getId());
+        state.setCustomerId(order.getCustomerId());
+        state.setRestaurantId(order.getRestaurantId());
+        state.setItems(order.getItems().stream()
+            .map(item -> new OrderItemData(item.getMenuItemId(), item.getName(), item.getPrice(), item.getQuantity()))
+            .collect(Collectors.toList()));
+        state.setTotalAmount(order.getTotalAmount());
+        state.setStatus(order.getStatus());
+        state.setPaymentId(order.getPaymentId());
+        state.setCreatedAt(order.getCreatedAt());
+        state.setUpdatedAt(order.getUpdatedAt());
+        state.setVersion(order.getVersion());
+        return state;
+    }
+    
+    public Order toOrder() {
+        Order order = new Order();
+        order.setId(id);
+        order.setCustomerId(customerId);
+        order.setRestaurantId(restaurantId);
+        order.setItems(items.stream()
+            .map(item -> new OrderItem(item.getMenuItemId(), item.getName(), item.getPrice(), item.getQuantity()))
+            .collect(Collectors.toList()));
+        order.setTotalAmount(totalAmount);
+        order.setStatus(status);
+        order.setPaymentId(paymentId);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(updatedAt);
+        order.setVersion(version);
+        return order;
+    }
+}
@@ -0,0 +1,187 @@
+package com.restaurant.order.expiry;
+
+import com.restaurant.order.command.CancelOrderCommand;
+import com.restaurant.order.command.OrderCommandDispatcher;
+import com.restaurant.order.command.OrderCommandHandler;
+import com.restaurant.order.eventstore.EventStoreRepository;
+import com.restaurant.order.model.OrderStatus;
+import com.restaurant.order.repository.OrderRepository;
+import com.restaurant.order.repository.OrderRepository.OrderAge;
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels orders whose saga never completed.
+ * At startup the {@link PendingOrderTimeouts} are rebuilt from the pending orders of every shard; from
+ * then on they are kept up to date by the command handler. Pending orders are read from the orders table,
+ * or from the event store when orders are event-sourced, since the table may then lag or not be written.
+ * Every {@code order.expiry.sweep-interval} the orders still pending past their timeout are looked up
+ * again, so an order this instance never tracked, e.g. one created by an instance that died, times out too;
+ * in the event store the sweep only looks back {@code order.expiry.sweep-lookback}.
+ * On every tick the orders that timed out are cancelled in batches of {@code order.expiry.batch-size},
+ * each on its order's lane, and only if they are still pending. A failed cancellation is retried
+ * after {@code order.expiry.retry-delay}.
+ */
+@Component
+@Slf4j
+public class PendingOrderExpiryScheduler {
+
+    private static final String REASON = "Order timed out before payment completed";
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PendingOrderTimeouts timeouts;
+    private final OrderCommandDispatcher dispatcher;
+    private final OrderCommandHandler commandHandler;
+    private final OrderRepository orderRepository;
+    private final EventStoreRepository eventStoreRepository;
+    private final OrderShardRouter shardRouter;
+    private final boolean enabled;
+    private final boolean eventSourced;
+    private final Duration pendingTimeout;
+    private final Duration sweepInterval;
+    private final Duration sweepLookback;
+    private final long tickMillis;
+    private final int batchSize;
+    private final Duration retryDelay;
+    private final ScheduledExecutorService scheduler;
+
+    public PendingOrderExpiryScheduler(PendingOrderTimeouts timeouts,
+                                       OrderCommandDispatcher dispatcher,
+                                       OrderCommandHandler commandHandler,
+                                       OrderRepository orderRepository,
+                                       EventStoreRepository eventStoreRepository,
+                                       OrderShardRouter shardRouter,
+                                       @Value("${order.expiry.enabled:true}") boolean enabled,
+                                       @Value("${order.event-sourcing.enabled:false}") boolean eventSourced,
+                                       @Value("${order.expiry.pending-timeout:15m}") Duration pendingTimeout,
+                                       @Value("${order.expiry.sweep-interval:10m}") Duration sweepInterval,
+                                       @Value("${order.expiry.sweep-lookback:1d}") Duration sweepLookback,
+                                       @Value("${order.expiry.tick:1s}") Duration tick,
+                                       @Value("${order.expiry.batch-size:100}") int batchSize,
+                                       @Value("${order.expiry.retry-delay:30s}") Duration retryDelay) {
+        this.timeouts = timeouts;
+        this.dispatcher = dispatcher;
+        this.commandHandler = commandHandler;
+        this.orderRepository = orderRepository;
+        this.eventStoreRepository = eventStoreRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.eventSourced = eventSourced;
+        this.pendingTimeout = pendingTimeout;
+        this.sweepInterval = sweepInterval;
+        this.sweepLookback = sweepLookback;
+        this.tickMillis = tick.toMillis();
+        this.batchSize = Math.max(1, batchSize);
+        this.retryDelay = retryDelay;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler.execute(this::rebuild);
+        scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        long sweepMillis = sweepInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void rebuild() {
+        for (String shard : shardRouter.getShards()) {
+            try {
+                int tracked = ShardContext.callOn(shard, () -> trackPendingOrders(START, LocalDateTime.now()));
+                log.info("Tracking timeouts of {} pending orders on shard {}", tracked, shard);
+            } catch (Exception e) {
+                log.error("Failed to load pending orders of shard {}, the sweep will pick them up", shard, e);
+            }
+        }
+    }
+
+    /**
+     * Picks up the orders still pending past their timeout; those already tracked are left alone.
+     */
+    private void sweep() {
+        LocalDateTime timedOutBefore = LocalDateTime.now().minus(pendingTimeout);
+        for (String shard : shardRouter.getShards()) {
+            try {
+                int found = ShardContext.callOn(shard,
+                    () -> trackPendingOrders(timedOutBefore.minus(sweepLookback), timedOutBefore));
+                log.debug("Sweep found {} timed out pending orders on shard {}", found, shard);
+            } catch (Exception e) {
+                log.error("Failed to sweep pending orders of shard {}", shard, e);
+            }
+        }
+    }
+
+    private int trackPendingOrders(LocalDateTime from, LocalDateTime before) {
+        if (eventSourced) {
+            List<EventStoreRepository.EventPosition> pending =
+                eventStoreRepository.findPendingOrderCreations(from, before);
+            pending.forEach(order -> timeouts.start(order.getAggregateId(), order.getOccurredOn()));
+            return pending.size();
+        }
+        // The status index keeps this cheap; unlike the event store, the table needs no lower bound
+        List<OrderAge> pending = orderRepository.findAgesByStatusCreatedBefore(OrderStatus.PENDING, before);
+        pending.forEach(order -> timeouts.start(order.getId(), order.getCreatedAt()));
+        return pending.size();
+    }
+
+    private void tick() {
+        try {
+            List<String> expired = timeouts.advance(System.currentTimeMillis());
+            for (int from = 0; from < expired.size(); from += batchSize) {
+                cancel(expired.subList(from, Math.min(from + batchSize, expired.size())));
+            }
+        } catch (Exception e) {
+            log.error("Failed to expire pending orders", e);
+        }
+    }
+
+    private void cancel(List<String> orderIds) {
+        List<CompletableFuture<Boolean>> results = new ArrayList<>(orderIds.size());
+        for (String orderId : orderIds) {
+            results.add(dispatcher.submit(orderId,
+                () -> commandHandler.cancelIfPending(new CancelOrderCommand(orderId, REASON))));
+        }
+
+        int cancelled = 0;
+        int failed = 0;
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (results.get(i).join()) {
+                    cancelled++;
+                }
+            } catch (Exception e) {
+                failed++;
+                log.warn("Failed to expire order {}, retrying in {}", orderIds.get(i), retryDelay, e);
+                timeouts.retryAt(orderIds.get(i), System.currentTimeMillis() + retryDelay.toMillis());
+            }
+        }
+        log.info("Expired {} of {} timed out orders, {} failed", cancelled, orderIds.size(), failed);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,106 @@
+package com.restaurant.order.expiry;
+
+import com.restaurant.events.delay.HierarchicalTimingWheel;
+import com.restaurant.order.eventstore.OrderSnapshotState;
+import com.restaurant.order.model.OrderStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deadlines of the pending orders known to this instance, held in a hashed timing wheel.
+ * Starting a timeout is one wheel insert and stopping it one map removal; a stopped timeout stays in
+ * the wheel until its tick comes and is then skipped, so neither operation ever searches.
+ * An order times out {@code order.expiry.pending-timeout} after it was created.
+ */
+@Component
+public class PendingOrderTimeouts {
+
+    private final Duration timeout;
+    private final HierarchicalTimingWheel<String> wheel;
+    // Orders whose timeout is running; an order missing here when its tick comes was confirmed or cancelled
+    private final Map<String, Long> deadlines = new ConcurrentHashMap<>();
+    private final List<String> overdue = new ArrayList<>();
+
+    public PendingOrderTimeouts(@Value("${order.expiry.pending-timeout:15m}") Duration timeout,
+                                @Value("${order.expiry.tick:1s}") Duration tick,
+                                @Value("${order.expiry.wheel-size:512}") int wheelSize) {
+        this.timeout = timeout;
+        this.wheel = new HierarchicalTimingWheel<>(tick.toMillis(), wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Starts the timeout of a pending order, or stops it once the order has left PENDING.
+     */
+    public void track(OrderSnapshotState state) {
+        if (state.getStatus() == OrderStatus.PENDING) {
+            start(state.getId(), state.getCreatedAt());
+        } else {
+            stop(state.getId());
+        }
+    }
+
+    /**
+     * Starts the timeout of a pending order unless it is already running.
+     */
+    public void start(String orderId, LocalDateTime createdAt) {
+        long deadline = createdAt.atZone(ZoneId.systemDefault()).toInstant().plus(timeout).toEpochMilli();
+        schedule(orderId, deadline);
+    }
+
+    /**
+     * Gives an order another timeout at the given time, e.g. after a failed expiry.
+     */
+    public void retryAt(String orderId, long deadlineMillis) {
+        deadlines.remove(orderId);
+        schedule(orderId, deadlineMillis);
+    }
+
+    public void stop(String orderId) {
+        deadlines.remove(orderId);
+    }
+
+    /**
+     * Advances the wheel and removes the orders whose timeout has run out.
+     *
+     * @return IDs of the orders that timed out
+     */
+    public List<String> advance(long nowMillis) {
+        List<String> expired = new ArrayList<>();
+        synchronized (wheel) {
+            overdue.forEach(orderId -> collect(orderId, expired));
+            overdue.clear();
+            wheel.advance(nowMillis, orderId -> collect(orderId, expired));
+        }
+        return expired;
+    }
+
+    public int size() {
+        return deadlines.size();
+    }
+
+    private void schedule(String orderId, long deadline) {
+        if (deadlines.putIfAbsent(orderId, deadline) != null) {
+            return;
+        }
+        synchronized (wheel) {
+            if (!wheel.add(deadline, orderId)) {
+                // Already due, e.g. found at startup after the service was down past its deadline
+                overdue.add(orderId);
+            }
+        }
+    }
+
+    private void collect(String orderId, List<String> expired) {
+        if (deadlines.remove(orderId) != null) {
+            expired.add(orderId);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.restaurant.order.idempotency;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a request made with an {@code Idempotency-Key}, kept until it expires.
+ * A row without a response status is a claim by a request that is still executing, or that died
+ * before it finished; the latter is taken over by a retry once the claim is older than the in-progress timeout.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+public class IdempotencyRecord {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
+    
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "response_body", length = 1024)
+    private String responseBody;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+    
+    // Identifies the request holding the claim, so a request that was taken over cannot complete or release it
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+}
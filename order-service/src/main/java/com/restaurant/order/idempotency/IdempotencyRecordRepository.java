@@ -0,0 +1,68 @@
+package com.restaurant.order.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Claims a key for a request about to execute.
+     *
+     * @return 1 if the key was claimed, 0 if it is already taken
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO order_idempotency_keys "
+        + "(idempotency_key, request_hash, expires_at, claimed_at, claim_token) "
+        + "VALUES (:key, :requestHash, :expiresAt, :claimedAt, :token)", nativeQuery = true)
+    int claim(@Param("key") String key,
+              @Param("requestHash") String requestHash,
+              @Param("expiresAt") LocalDateTime expiresAt,
+              @Param("claimedAt") LocalDateTime claimedAt,
+              @Param("token") String token);
+    
+    /**
+     * Takes over the claim of a request for the same key and payload that has not finished
+     * since {@code staleBefore}, presumably because its process died.
+     *
+     * @return 1 if the claim was taken over, 0 if it is fresh, completed or for another request
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.claimedAt = :claimedAt, r.claimToken = :token, r.expiresAt = :expiresAt "
+        + "WHERE r.idempotencyKey = :key AND r.requestHash = :requestHash AND r.responseStatus IS NULL "
+        + "AND (r.claimedAt IS NULL OR r.claimedAt < :staleBefore)")
+    int takeOver(@Param("key") String key,
+                 @Param("requestHash") String requestHash,
+                 @Param("staleBefore") LocalDateTime staleBefore,
+                 @Param("expiresAt") LocalDateTime expiresAt,
+                 @Param("claimedAt") LocalDateTime claimedAt,
+                 @Param("token") String token);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body "
+        + "WHERE r.idempotencyKey = :key AND r.claimToken = :token")
+    int complete(@Param("key") String key,
+                 @Param("token") String token,
+                 @Param("status") int status,
+                 @Param("body") String body);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r "
+        + "WHERE r.idempotencyKey = :key AND r.claimToken = :token AND r.responseStatus IS NULL")
+    int release(@Param("key") String key, @Param("token") String token);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
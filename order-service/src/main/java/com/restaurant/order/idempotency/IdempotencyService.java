@@ -0,0 +1,214 @@
+package com.restaurant.order.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Executes order commands at most once per {@code Idempotency-Key}.
+ * The first request claims the key in {@code order_idempotency_keys} before it runs and stores its
+ * response afterwards; a retry with the same key and request gets that response back without
+ * running the command again. Recent responses are also kept in memory, so most retries never
+ * reach the database. A key reused for a different request is rejected, and a retry arriving while
+ * the first request still runs gets 409. Keys expire after {@code order.idempotency.ttl}.
+ * <p>
+ * A claim whose request has not finished within {@code order.idempotency.in-progress-timeout}
+ * is assumed to belong to a process that died, and the next retry takes it over and runs the command.
+ * The timeout must therefore exceed the longest a command can take. A process that dies after its
+ * command committed but before the response was stored still has its command run twice.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final Map<String, IdempotencyRecord> recentKeys;
+    private final ScheduledExecutorService purger;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              @Value("${order.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${order.idempotency.in-progress-timeout:1m}") Duration inProgressTimeout,
+                              @Value("${order.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${order.idempotency.purge-interval:1h}") Duration purgeInterval) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.recentKeys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IdempotencyRecord> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long purgeMillis = purgeInterval.toMillis();
+        this.purger.scheduleAtFixedRate(this::purgeExpired, purgeMillis, purgeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a command unless a request with the same key already did.
+     *
+     * @param key the client's idempotency key, or null to run the command unconditionally
+     * @param operation name of the command, so equal payloads of different commands differ
+     * @param request the request payload
+     * @param command runs the command; only 2xx responses are stored
+     * @return the command's response, or the stored response of the first request
+     */
+    public ResponseEntity<String> execute(String key, String operation, Object request,
+                                          Supplier<ResponseEntity<String>> command) {
+        if (key == null) {
+            return command.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(operation, request);
+
+        IdempotencyRecord stored = find(key);
+        if (stored != null) {
+            return replay(key, stored, requestHash);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl);
+        String token = UUID.randomUUID().toString();
+        if (repository.claim(key, requestHash, expiresAt, now, token) == 0
+                && repository.takeOver(key, requestHash, now.minus(inProgressTimeout), expiresAt, now, token) == 0) {
+            IdempotencyRecord claimed = repository.findById(key).orElse(null);
+            return claimed != null
+                ? replay(key, claimed, requestHash)
+                : ResponseEntity.status(HttpStatus.CONFLICT).body("Request with this " + HEADER + " is in progress");
+        }
+
+        ResponseEntity<String> response;
+        try {
+            response = command.get();
+        } catch (RuntimeException e) {
+            releaseQuietly(key, token);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            releaseQuietly(key, token);
+            return response;
+        }
+
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setIdempotencyKey(key);
+        record.setRequestHash(requestHash);
+        record.setResponseStatus(response.getStatusCode().value());
+        record.setResponseBody(response.getBody());
+        record.setExpiresAt(expiresAt);
+        try {
+            if (repository.complete(key, token, record.getResponseStatus(), record.getResponseBody()) == 0) {
+                log.warn("Claim on {} {} was taken over before its response was stored", HEADER, key);
+            }
+        } catch (RuntimeException e) {
+            // The command has committed, so its response stands; retries reaching this instance still get it
+            log.error("Failed to store response for {} {}", HEADER, key, e);
+        }
+        synchronized (recentKeys) {
+            recentKeys.put(key, record);
+        }
+        return response;
+    }
+
+    private void releaseQuietly(String key, String token) {
+        try {
+            repository.release(key, token);
+        } catch (RuntimeException e) {
+            // The claim goes stale and is taken over by the next retry
+            log.error("Failed to release claim on {} {}", HEADER, key, e);
+        }
+    }
+
+    private IdempotencyRecord find(String key) {
+        IdempotencyRecord record;
+        synchronized (recentKeys) {
+            record = recentKeys.get(key);
+        }
+        if (record == null) {
+            record = repository.findById(key).orElse(null);
+        }
+        if (record != null && record.getExpiresAt().isBefore(LocalDateTime.now())) {
+            synchronized (recentKeys) {
+                recentKeys.remove(key);
+            }
+            repository.deleteById(key);
+            return null;
+        }
+        return record;
+    }
+
+    private ResponseEntity<String> replay(String key, IdempotencyRecord record, String requestHash) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            return ResponseEntity.unprocessableEntity().body(HEADER + " was already used for a different request");
+        }
+        if (record.getResponseStatus() == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body("Request with this " + HEADER + " is in progress");
+        }
+        synchronized (recentKeys) {
+            recentKeys.put(key, record);
+        }
+        log.debug("Replaying response for {} {}", HEADER, key);
+        return ResponseEntity.status(record.getResponseStatus())
+            .header(REPLAYED_HEADER, "true")
+            .body(record.getResponseBody());
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to fingerprint request", e);
+        }
+    }
+
+    private void purgeExpired() {
+        try {
+            int deleted = repository.deleteExpired(LocalDateTime.now());
+            if (deleted > 0) {
+                log.info("Purged {} expired idempotency keys", deleted);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge expired idempotency keys", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        purger.shutdownNow();
+    }
+}
@@ -12,13 +12,13 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_created", columnList = "status, createdAt"))
 @Data
 @NoArgsConstructor
 public class Order {
     
+    // Assigned from the OrderCreated event; the ID also names the order's shard
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
     
     @Column(nullable = false)
@@ -27,8 +27,9 @@ public class Order {
     @Column(nullable = false)
     private String restaurantId;
     
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
-    @JoinColumn(name = "order_id")
+    // Line items live in one JSON column, so an order is read and written as a single row
+    @Convert(converter = OrderItemsConverter.class)
+    @Column(name = "items", columnDefinition = "JSON")
     private List<OrderItem> items = new ArrayList<>();
     
     @Column(nullable = false)
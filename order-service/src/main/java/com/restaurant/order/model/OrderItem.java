@@ -1,30 +1,22 @@
 package com.restaurant.order.model;
 
-import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 
-@Entity
-@Table(name = "order_items")
+/**
+ * Line item of an order, stored inline in the order row by {@link OrderItemsConverter}.
+ */
 @Data
 @NoArgsConstructor
 public class OrderItem {
     
-    @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
-    private String id;
-    
-    @Column(nullable = false)
     private String menuItemId;
     
-    @Column(nullable = false)
     private String name;
     
-    @Column(nullable = false)
     private BigDecimal price;
     
-    @Column(nullable = false)
     private Integer quantity;
     
     public OrderItem(String menuItemId, String name, BigDecimal price, Integer quantity) {
@@ -0,0 +1,96 @@
+package com.restaurant.order.model;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores the line items of an order in one JSON column of the order row.
+ * Items are written as positional arrays under a format version,
+ * e.g. {@code {"v":1,"items":[["menu-1","Margherita","12.90",2]]}}, so a change of the item
+ * layout can still read rows written in an older format. Prices are written as strings because MySQL
+ * parses fractional JSON numbers as doubles, which would turn 12.90 into 12.9 or worse; rows written
+ * with numeric prices are still read. Items must have all of their fields, as the former
+ * {@code order_items} columns required.
+ */
+@Converter
+public class OrderItemsConverter implements AttributeConverter<List<OrderItem>, String> {
+    
+    static final int FORMAT_VERSION = 1;
+    
+    // Numeric prices of older rows keep whatever scale MySQL left them
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+        .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+        .configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+    
+    @Override
+    public String convertToDatabaseColumn(List<OrderItem> items) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("v", FORMAT_VERSION);
+        ArrayNode rows = root.putArray("items");
+        if (items != null) {
+            for (OrderItem item : items) {
+                if (item.getMenuItemId() == null || item.getName() == null || item.getPrice() == null
+                        || item.getQuantity() == null) {
+                    throw new IllegalArgumentException("Order item is missing a menu item ID, name, price or quantity: "
+                        + item);
+                }
+                rows.addArray()
+                    .add(item.getMenuItemId())
+                    .add(item.getName())
+                    .add(item.getPrice().toPlainString())
+                    .add(item.getQuantity());
+            }
+        }
+        return root.toString();
+    }
+    
+    @Override
+    public List<OrderItem> convertToEntityAttribute(String json) {
+        List<OrderItem> items = new ArrayList<>();
+        if (json == null || json.isEmpty()) {
+            return items;
+        }
+        try {
+            JsonNode root = MAPPER.readTree(json);
+            int version = root.path("v").asInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported order items format version: " + version);
+            }
+            for (JsonNode row : root.path("items")) {
+                items.add(new OrderItem(
+                    text(row.get(0)),
+                    text(row.get(1)),
+                    decimal(row.get(2)),
+                    row.get(3).isNull() ? null : row.get(3).asInt()
+                ));
+            }
+            return items;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unreadable order items: " + json, e);
+        }
+    }
+    
+    // Rows written before nulls were rejected may hold JSON nulls
+    private static String text(JsonNode value) {
+        return value.isNull() ? null : value.asText();
+    }
+    
+    private static BigDecimal decimal(JsonNode value) {
+        if (value.isNull()) {
+            return null;
+        }
+        return value.isNumber() ? value.decimalValue() : new BigDecimal(value.asText());
+    }
+}
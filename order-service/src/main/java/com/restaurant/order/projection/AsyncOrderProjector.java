@@ -0,0 +1,191 @@
+package com.restaurant.order.projection;
+
+import com.restaurant.order.eventstore.EventStoreCheckpoint;
+import com.restaurant.order.eventstore.EventStoreCheckpointRepository;
+import com.restaurant.order.eventstore.EventStoreRepository;
+import com.restaurant.order.eventstore.EventStoreRepository.EventPosition;
+import com.restaurant.order.eventstore.OrderAggregateStore;
+import com.restaurant.order.eventstore.OrderSnapshotState;
+import com.restaurant.order.repository.OrderRepository;
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projects committed order state off the command path when orders are event-sourced.
+ * Each commit hands its state to a bounded queue for a low-latency update; a full queue drops it.
+ * What the queue drops or loses in a crash is picked up by a tail of the event store, which projects
+ * every order whose events are older than {@code order.event-sourcing.projection-settle} and checkpoints
+ * its position per shard. Events are tailed by occurredOn, so the settle time must exceed the longest
+ * a command's transaction can take. Every instance tails the whole store.
+ * <p>
+ * Both the {@code orders} state table and the MongoDB read model are only written if they hold an older
+ * version, so the queue and the tail may write in any order. The state table is optional.
+ */
+@Service
+@Slf4j
+public class AsyncOrderProjector {
+    
+    private static final String CHECKPOINT_NAME = "order-projection";
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
+    private final OrderProjectionService projectionService;
+    private final OrderRepository orderRepository;
+    private final EventStoreRepository eventStoreRepository;
+    private final EventStoreCheckpointRepository checkpointRepository;
+    private final OrderAggregateStore aggregateStore;
+    private final EntityManager entityManager;
+    private final OrderShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean stateTableEnabled;
+    private final Duration settle;
+    private final int batchSize;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService tail;
+    
+    public AsyncOrderProjector(OrderProjectionService projectionService,
+                               OrderRepository orderRepository,
+                               EventStoreRepository eventStoreRepository,
+                               EventStoreCheckpointRepository checkpointRepository,
+                               OrderAggregateStore aggregateStore,
+                               EntityManager entityManager,
+                               OrderShardRouter shardRouter,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${order.event-sourcing.enabled:false}") boolean eventSourced,
+                               @Value("${order.event-sourcing.state-table-projection:true}") boolean stateTableEnabled,
+                               @Value("${order.event-sourcing.projection-queue-size:10000}") int queueSize,
+                               @Value("${order.event-sourcing.projection-settle:1m}") Duration settle,
+                               @Value("${order.event-sourcing.projection-catch-up-interval:1s}") Duration catchUpInterval,
+                               @Value("${order.event-sourcing.projection-batch-size:500}") int batchSize) {
+        this.projectionService = projectionService;
+        this.orderRepository = orderRepository;
+        this.eventStoreRepository = eventStoreRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.aggregateStore = aggregateStore;
+        this.entityManager = entityManager;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stateTableEnabled = stateTableEnabled;
+        this.settle = settle;
+        this.batchSize = batchSize;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, "order-projector");
+                thread.setDaemon(true);
+                return thread;
+            },
+            // The event store tail projects the order once its events have settled
+            (task, pool) -> log.debug("Projection queue full, leaving the update to the event store tail"));
+        this.tail = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-projection-tail");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (eventSourced) {
+            long intervalMillis = catchUpInterval.toMillis();
+            this.tail.scheduleWithFixedDelay(this::catchUp, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    public void project(OrderSnapshotState state) {
+        executor.execute(() -> {
+            try {
+                projectNow(state);
+            } catch (Exception e) {
+                // The event store stays authoritative; the tail projects the order once its events have settled
+                log.error("Failed to project order {} at version {}", state.getId(), state.getVersion(), e);
+            }
+        });
+    }
+    
+    private void projectNow(OrderSnapshotState state) {
+        if (stateTableEnabled) {
+            ShardContext.runOn(shardRouter.shardForOrder(state.getId()), () -> projectStateTable(state));
+        }
+        projectionService.projectOrderIfNewer(state.toOrder());
+    }
+    
+    private void projectStateTable(OrderSnapshotState state) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (updateStateIfNewer(state) == 0 && !orderRepository.existsById(state.getId())) {
+                    // Inserted at the state's version, not at a version of its own
+                    entityManager.persist(state.toOrder());
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Inserted concurrently, possibly at an older version
+            transactionTemplate.executeWithoutResult(status -> updateStateIfNewer(state));
+        }
+    }
+    
+    private int updateStateIfNewer(OrderSnapshotState state) {
+        return orderRepository.updateStateIfNewer(state.getId(), state.getStatus(), state.getPaymentId(),
+            state.getUpdatedAt(), state.getVersion());
+    }
+    
+    private void catchUp() {
+        for (String shard : shardRouter.getShards()) {
+            try {
+                ShardContext.runOn(shard, this::catchUpShard);
+            } catch (Exception e) {
+                log.error("Failed to catch up order projections on shard {}", shard, e);
+            }
+        }
+    }
+    
+    /**
+     * Projects the orders of all settled events after the shard's checkpoint, moving the checkpoint
+     * past each batch once all its orders are projected.
+     */
+    private void catchUpShard() {
+        EventStoreCheckpoint checkpoint = checkpointRepository.findById(CHECKPOINT_NAME)
+            .orElseGet(() -> new EventStoreCheckpoint(CHECKPOINT_NAME, START, 0));
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settle);
+        List<EventPosition> batch;
+        do {
+            batch = eventStoreRepository.findPositionsAfter(checkpoint.getOccurredOn(), checkpoint.getEventKey(),
+                settledBefore, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            Set<String> orderIds = new LinkedHashSet<>();
+            batch.forEach(position -> orderIds.add(position.getAggregateId()));
+            for (String orderId : orderIds) {
+                aggregateStore.load(orderId)
+                    .map(OrderSnapshotState::from)
+                    .ifPresent(this::projectNow);
+            }
+            EventPosition last = batch.get(batch.size() - 1);
+            checkpoint = checkpointRepository.save(
+                new EventStoreCheckpoint(CHECKPOINT_NAME, last.getOccurredOn(), last.getId()));
+            log.debug("Projected {} orders up to event {}", orderIds.size(), last.getId());
+        } while (batch.size() == batchSize);
+    }
+    
+    @PreDestroy
+    public void close() {
+        tail.shutdownNow();
+        executor.shutdown();
+    }
+}
+    
\ No newline at end of file
@@ -5,6 +5,12 @@ import com.restaurant.order.readmodel.OrderReadModel;
 import com.restaurant.order.readmodel.OrderReadModelRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.util.stream.Collectors;
@@ -19,10 +25,37 @@ import java.util.stream.Collectors;
 public class OrderProjectionService {
     
     private final OrderReadModelRepository readModelRepository;
+    private final MongoTemplate mongoTemplate;
     
     public void projectOrder(Order order) {
         log.debug("Projecting order to MongoDB read model: {}", order.getId());
         
+        readModelRepository.save(toReadModel(order));
+        log.debug("Order projected to MongoDB read model: {}", order.getId());
+    }
+    
+    /**
+     * Projects an order unless the read model already holds this or a later version of it,
+     * so asynchronous writers may run in any order.
+     *
+     * @return false if the read model was not older
+     */
+    public boolean projectOrderIfNewer(Order order) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(toReadModel(order), document);
+        Query olderVersion = Query.query(Criteria.where("_id").is(order.getId())
+            .orOperator(Criteria.where("version").lt(order.getVersion()), Criteria.where("version").exists(false)));
+        try {
+            mongoTemplate.upsert(olderVersion, Update.fromDocument(document, "_id"), OrderReadModel.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The document exists at this or a later version, so the upsert tried to insert a second one
+            log.debug("Read model of order {} is already at version {} or later", order.getId(), order.getVersion());
+            return false;
+        }
+    }
+    
+    private OrderReadModel toReadModel(Order order) {
         OrderReadModel readModel = new OrderReadModel();
         readModel.setId(order.getId());
         readModel.setCustomerId(order.getCustomerId());
@@ -39,9 +72,8 @@ public class OrderProjectionService {
             .map(item -> String.format("%s x%d", item.getName(), item.getQuantity()))
             .collect(Collectors.joining(", "));
         readModel.setItemsSummary(itemsSummary);
-        
-        readModelRepository.save(readModel);
-        log.debug("Order projected to MongoDB read model: {}", order.getId());
+        readModel.setVersion(order.getVersion());
+        return readModel;
     }
     
     public void deleteOrder(String orderId) {
@@ -44,4 +44,7 @@ public class OrderReadModel {
     private Integer itemCount;
     
     private String itemsSummary; // JSON or comma-separated summary
+    
+    // Order version this document was projected from
+    private Integer version;
 }
@@ -0,0 +1,50 @@
+package com.restaurant.order.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Copies line items of orders created before items moved into the {@code orders.items} JSON column
+ * out of the old {@code order_items} table. Runs once at startup and does nothing on a fresh schema
+ * or once every order has been converted; the old table is left in place.
+ */
+@Component
+@Slf4j
+public class OrderItemsBackfill {
+    
+    private static final String LEGACY_TABLE_SQL =
+        "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = 'order_items'";
+    
+    private static final String BACKFILL_SQL =
+        "UPDATE orders o SET o.items = (" +
+        "SELECT JSON_OBJECT('v', 1, 'items', JSON_ARRAYAGG(JSON_ARRAY(i.menuItemId, i.name, i.price, i.quantity))) " +
+        "FROM order_items i WHERE i.order_id = o.id) " +
+        "WHERE o.items IS NULL AND EXISTS (SELECT 1 FROM order_items i WHERE i.order_id = o.id)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public OrderItemsBackfill(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            Integer legacyTables = jdbcTemplate.queryForObject(LEGACY_TABLE_SQL, Integer.class);
+            if (legacyTables == null || legacyTables == 0) {
+                return;
+            }
+            int updated = jdbcTemplate.update(BACKFILL_SQL);
+            if (updated > 0) {
+                log.info("Moved line items of {} orders into the orders.items column", updated);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to backfill order line items from order_items", e);
+        }
+    }
+}
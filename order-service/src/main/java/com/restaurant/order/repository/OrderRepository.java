@@ -3,8 +3,12 @@ package com.restaurant.order.repository;
 import com.restaurant.order.model.Order;
 import com.restaurant.order.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -17,4 +21,47 @@ public interface OrderRepository extends JpaRepository<Order, String> {
     List<Order> findByStatus(OrderStatus status);
     
     List<Order> findByCustomerIdAndStatus(String customerId, OrderStatus status);
+    
+    /**
+     * Lists ID and creation time of the orders in a status created before the given time, without loading the orders.
+     */
+    @Query("SELECT o.id AS id, o.createdAt AS createdAt FROM Order o WHERE o.status = :status AND o.createdAt < :before")
+    List<OrderAge> findAgesByStatusCreatedBefore(@Param("status") OrderStatus status,
+                                                 @Param("before") LocalDateTime before);
+    
+    interface OrderAge {
+        String getId();
+        
+        LocalDateTime getCreatedAt();
+    }
+    
+    /**
+     * Writes a status change without loading the order, provided the row is still at the expected version.
+     *
+     * @return the number of rows updated, 0 if the order was changed concurrently
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentId = :paymentId, o.updatedAt = :updatedAt, " +
+           "o.version = :version WHERE o.id = :id AND o.version = :expectedVersion")
+    int updateState(@Param("id") String id,
+                    @Param("status") OrderStatus status,
+                    @Param("paymentId") String paymentId,
+                    @Param("updatedAt") LocalDateTime updatedAt,
+                    @Param("version") int version,
+                    @Param("expectedVersion") int expectedVersion);
+    
+    /**
+     * Writes a projected status change unless the row already holds this or a later version.
+     * The version is copied from the event store rather than bumped.
+     *
+     * @return the number of rows updated, 0 if the row is missing or not older
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.paymentId = :paymentId, o.updatedAt = :updatedAt, " +
+           "o.version = :version WHERE o.id = :id AND o.version < :version")
+    int updateStateIfNewer(@Param("id") String id,
+                           @Param("status") OrderStatus status,
+                           @Param("paymentId") String paymentId,
+                           @Param("updatedAt") LocalDateTime updatedAt,
+                           @Param("version") int version);
 }
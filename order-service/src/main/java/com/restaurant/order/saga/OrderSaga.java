@@ -0,0 +1,67 @@
+package com.restaurant.order.saga;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Persistent state of one order saga, keyed by order ID.
+ * Rows are written by the {@link OrderSagaStateWriter}; JPA only reads them. Every step stores the saga
+ * at the next version, and a version is only stored on top of the one before it.
+ */
+@Entity
+@Table(name = "order_saga_state", indexes = {
+    @Index(name = "idx_saga_state", columnList = "saga_state"),
+    @Index(name = "idx_created_at", columnList = "created_at")
+})
+@Data
+@NoArgsConstructor
+public class OrderSaga {
+
+    @Id
+    @Column(name = "order_id")
+    private String orderId;
+
+    @Column(name = "customer_id", nullable = false)
+    private String customerId;
+
+    @Column(name = "restaurant_id", nullable = false)
+    private String restaurantId;
+
+    @Column(name = "items", columnDefinition = "JSON", nullable = false)
+    private String items;
+
+    @Column(name = "total_amount", precision = 10, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "saga_state", length = 50, nullable = false)
+    private SagaState sagaState;
+
+    // Null for sagas stored before parallel steps existed, which all ran sequentially
+    @Enumerated(EnumType.STRING)
+    @Column(name = "saga_mode", length = 20)
+    private SagaMode sagaMode;
+
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    @Column(name = "failure_reason", columnDefinition = "TEXT")
+    private String failureReason;
+
+    @Column(name = "retry_count")
+    private int retryCount;
+
+    // 0 for sagas stored before versions existed
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,102 @@
+package com.restaurant.order.saga;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Transition table of the order saga.
+ * The order is created, its cart validated, then its payment processed; it is confirmed once the
+ * payment completed and cancelled if either step fails. In the parallel variant cart validation and
+ * payment pre-authorization are requested together and the saga waits for both replies; the payment
+ * is captured on confirmation and voided if the order is cancelled after it was authorized, including
+ * when the authorization arrives only after the cancellation. A saga whose action failed voids any
+ * payment once its order is cancelled, or as soon as the payment completes. Triggers that have no entry
+ * for the current state, such as a duplicate or late reply, leave the saga unchanged.
+ */
+public final class OrderSagaDefinition {
+
+    private static final Map<SagaState, Map<SagaTrigger, Transition>> TRANSITIONS = new EnumMap<>(SagaState.class);
+
+    static {
+        on(SagaState.STARTED, SagaTrigger.ORDER_CREATED, SagaState.CART_VALIDATION_PENDING, SagaAction.REQUEST_CART_VALIDATION);
+
+        on(SagaState.CART_VALIDATION_PENDING, SagaTrigger.CART_VALIDATED, SagaState.PAYMENT_PENDING, SagaAction.REQUEST_PAYMENT);
+        on(SagaState.CART_VALIDATION_PENDING, SagaTrigger.CART_REJECTED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER);
+
+        on(SagaState.PAYMENT_PENDING, SagaTrigger.PAYMENT_COMPLETED, SagaState.COMPLETED, SagaAction.CONFIRM_ORDER);
+        on(SagaState.PAYMENT_PENDING, SagaTrigger.PAYMENT_FAILED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER);
+
+        on(SagaState.STARTED, SagaTrigger.ORDER_CREATED_PARALLEL, SagaState.CART_AND_AUTHORIZATION_PENDING,
+            SagaAction.REQUEST_CART_VALIDATION_AND_AUTHORIZATION);
+
+        on(SagaState.CART_AND_AUTHORIZATION_PENDING, SagaTrigger.CART_VALIDATED, SagaState.AUTHORIZATION_PENDING, SagaAction.NONE);
+        on(SagaState.CART_AND_AUTHORIZATION_PENDING, SagaTrigger.PAYMENT_COMPLETED, SagaState.CART_VALIDATION_PENDING_AUTHORIZED, SagaAction.NONE);
+        // The outstanding reply is ignored, or voids the payment if it is an authorization
+        on(SagaState.CART_AND_AUTHORIZATION_PENDING, SagaTrigger.CART_REJECTED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER);
+        on(SagaState.CART_AND_AUTHORIZATION_PENDING, SagaTrigger.PAYMENT_FAILED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER);
+
+        on(SagaState.AUTHORIZATION_PENDING, SagaTrigger.PAYMENT_COMPLETED, SagaState.COMPLETED, SagaAction.CONFIRM_ORDER_AND_CAPTURE);
+        on(SagaState.AUTHORIZATION_PENDING, SagaTrigger.PAYMENT_FAILED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER);
+
+        on(SagaState.CART_VALIDATION_PENDING_AUTHORIZED, SagaTrigger.CART_VALIDATED, SagaState.COMPLETED, SagaAction.CONFIRM_ORDER_AND_CAPTURE);
+        on(SagaState.CART_VALIDATION_PENDING_AUTHORIZED, SagaTrigger.CART_REJECTED, SagaState.CANCELLED, SagaAction.CANCEL_ORDER_AND_VOID);
+
+        // A payment that completes after the order was cancelled must not be kept
+        on(SagaState.CANCELLED, SagaTrigger.PAYMENT_COMPLETED, SagaState.CANCELLED, SagaAction.VOID_PAYMENT);
+
+        // A failed saga leaves its order pending until the expiry cancels it, so no payment may be kept:
+        // neither one that completes late nor one that completed before the action failed
+        on(SagaState.FAILED, SagaTrigger.PAYMENT_COMPLETED, SagaState.FAILED, SagaAction.VOID_PAYMENT);
+        on(SagaState.FAILED, SagaTrigger.ORDER_CANCELLED, SagaState.CANCELLED, SagaAction.VOID_PAYMENT);
+
+        for (SagaState state : SagaState.values()) {
+            if (!state.isTerminal()) {
+                on(state, SagaTrigger.ORDER_CONFIRMED, SagaState.COMPLETED, SagaAction.NONE);
+                on(state, SagaTrigger.ORDER_CANCELLED, SagaState.CANCELLED,
+                    state == SagaState.CART_VALIDATION_PENDING_AUTHORIZED ? SagaAction.VOID_PAYMENT : SagaAction.NONE);
+            }
+            if (state != SagaState.FAILED) {
+                // A failed action leaves the order pending; the pending-order expiry cancels it eventually.
+                // The saga will not confirm the order any more, so an authorization it holds is released now
+                on(state, SagaTrigger.ACTION_FAILED, SagaState.FAILED,
+                    state == SagaState.CART_VALIDATION_PENDING_AUTHORIZED ? SagaAction.VOID_PAYMENT : SagaAction.NONE);
+            }
+        }
+    }
+
+    private OrderSagaDefinition() {
+    }
+
+    /**
+     * Looks up the transition for a trigger.
+     *
+     * @return the transition, or null if the trigger does not apply in this state
+     */
+    public static Transition transition(SagaState state, SagaTrigger trigger) {
+        Map<SagaTrigger, Transition> transitions = TRANSITIONS.get(state);
+        return transitions != null ? transitions.get(trigger) : null;
+    }
+
+    private static void on(SagaState from, SagaTrigger trigger, SagaState to, SagaAction action) {
+        TRANSITIONS.computeIfAbsent(from, state -> new EnumMap<>(SagaTrigger.class))
+            .put(trigger, new Transition(to, action));
+    }
+
+    public static final class Transition {
+        private final SagaState target;
+        private final SagaAction action;
+
+        Transition(SagaState target, SagaAction action) {
+            this.target = target;
+            this.action = action;
+        }
+
+        public SagaState getTarget() {
+            return target;
+        }
+
+        public SagaAction getAction() {
+            return action;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.restaurant.order.saga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.restaurant.events.CartValidationCompletedEvent;
+import com.restaurant.events.PaymentProcessingCompletedEvent;
+import com.restaurant.events.serialization.EventSerializationException;
+import com.restaurant.events.serialization.EventSerializer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Feeds saga replies from Kafka into the {@link OrderSagaOrchestrator}.
+ * Listener threads only decode the record and hand it over; the record is acknowledged
+ * asynchronously once its saga step has been stored and acted upon. A step that fails is sent to the
+ * dead letter topic and acknowledged, so it does not hold back the offsets of the records after it.
+ */
+@Component
+@ConditionalOnProperty(name = "order.saga.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSagaListener {
+
+    private final OrderSagaOrchestrator orchestrator;
+    private final EventSerializer eventSerializer;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${kafka.topic.dead-letter:order-events-dlq}")
+    private String deadLetterTopic;
+
+    @KafkaListener(
+        topics = "${kafka.topic.cart-validation-completed:cart-validation-completed}",
+        containerFactory = "sagaListenerContainerFactory"
+    )
+    public void onCartValidationCompleted(String message, Acknowledgment acknowledgment) {
+        CartValidationCompletedEvent event;
+        try {
+            event = eventSerializer.deserialize(message, CartValidationCompletedEvent.class);
+        } catch (EventSerializationException e) {
+            log.error("Skipping malformed cart validation result: {}", message, e);
+            acknowledgment.acknowledge();
+            return;
+        }
+        acknowledgeWhenDone(orchestrator.onCartValidationCompleted(event), event.getOrderId(), message, acknowledgment);
+    }
+
+    @KafkaListener(
+        topics = "${kafka.topic.payment-processing-completed:payment-processing-completed}",
+        containerFactory = "sagaListenerContainerFactory"
+    )
+    public void onPaymentProcessingCompleted(String message, Acknowledgment acknowledgment) {
+        PaymentProcessingCompletedEvent event;
+        try {
+            event = eventSerializer.deserialize(message, PaymentProcessingCompletedEvent.class);
+        } catch (EventSerializationException e) {
+            log.error("Skipping malformed payment result: {}", message, e);
+            acknowledgment.acknowledge();
+            return;
+        }
+        acknowledgeWhenDone(orchestrator.onPaymentProcessingCompleted(event), event.getOrderId(), message, acknowledgment);
+    }
+
+    private void acknowledgeWhenDone(CompletableFuture<Void> step, String orderId, String message,
+                                     Acknowledgment acknowledgment) {
+        step.whenComplete((done, failure) -> {
+            if (failure == null) {
+                acknowledgment.acknowledge();
+                return;
+            }
+            log.error("Saga step for order {} failed, sending it to the dead letter topic", orderId, failure);
+            deadLetter(orderId, message, failure)
+                .whenComplete((sent, dlqFailure) -> {
+                    if (dlqFailure == null) {
+                        acknowledgment.acknowledge();
+                    } else {
+                        // Left unacknowledged, the record is delivered again after a restart or rebalance
+                        log.error("Failed to dead-letter saga step for order {}", orderId, dlqFailure);
+                    }
+                });
+        });
+    }
+
+    /**
+     * Sends the record in the format read by the DLQ consumer.
+     */
+    private CompletableFuture<?> deadLetter(String orderId, String message, Throwable failure) {
+        try {
+            ObjectNode dlqMessage = objectMapper.createObjectNode();
+            dlqMessage.set("originalEvent", objectMapper.readTree(message));
+            dlqMessage.put("failureReason", "Saga step failed: " + failure.getMessage());
+            dlqMessage.put("failureTime", LocalDateTime.now().toString());
+            return kafkaTemplate.send(deadLetterTopic, orderId, objectMapper.writeValueAsString(dlqMessage));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
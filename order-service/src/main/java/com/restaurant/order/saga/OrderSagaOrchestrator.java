@@ -0,0 +1,432 @@
+package com.restaurant.order.saga;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.events.CartValidationCompletedEvent;
+import com.restaurant.events.CartValidationRequestedEvent;
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.PaymentCaptureRequestedEvent;
+import com.restaurant.events.PaymentInitiationRequestedEvent;
+import com.restaurant.events.PaymentProcessingCompletedEvent;
+import com.restaurant.events.PaymentVoidRequestedEvent;
+import com.restaurant.events.publisher.EventPublisher;
+import com.restaurant.order.command.CancelOrderCommand;
+import com.restaurant.order.command.ConfirmOrderCommand;
+import com.restaurant.order.command.OrderCommandDispatcher;
+import com.restaurant.order.command.OrderCommandHandler;
+import com.restaurant.order.eventstore.OrderSnapshotState;
+import com.restaurant.order.model.OrderStatus;
+import com.restaurant.order.saga.OrderSagaDefinition.Transition;
+import com.restaurant.order.sharding.OrderShardRouter;
+import com.restaurant.order.sharding.ShardContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Orchestrates the order saga: cart validation, payment, then confirmation or cancellation.
+ * Every saga is driven on its order's lane of the {@link OrderCommandDispatcher}, so within an instance
+ * a saga has a single writer and its steps never race with other commands for the same order. A step
+ * looks up the {@link OrderSagaDefinition transition}, updates the in-memory saga and queues the new
+ * state on the {@link OrderSagaStateWriter}; its action (publishing the next request, confirming or
+ * cancelling the order) runs once that state is stored. Nothing here waits: callers get a future that completes when
+ * the step and its action are done, which is when the triggering Kafka record may be acknowledged.
+ * Sagas in flight are kept in memory and reloaded from {@code order_saga_state} when missing.
+ * <p>
+ * Across instances the saga's version decides: the instance whose command started a saga need not be the
+ * one consuming its replies, so a step is only stored on top of the version it was taken from. A step
+ * that loses against another instance changes nothing, skips its action and is taken once more from the
+ * stored saga. Steps triggered by order commands always start from the stored saga.
+ * <p>
+ * With {@code order.saga.parallel-steps} new sagas request cart validation and payment pre-authorization
+ * at once, so checkout takes the slower of the two round trips instead of their sum. How long sagas take
+ * from order creation to their outcome is recorded per mode in the {@code order.saga.duration} timer.
+ * Capture and void requests move money the customer already has on hold, so they are retried with
+ * backoff until Kafka accepts them instead of failing the saga.
+ */
+@Component
+@ConditionalOnProperty(name = "order.saga.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class OrderSagaOrchestrator implements ConsumerRebalanceListener {
+
+    private final OrderCommandDispatcher dispatcher;
+    private final OrderCommandHandler commandHandler;
+    private final OrderSagaRepository sagaRepository;
+    private final OrderSagaStateWriter stateWriter;
+    private final EventPublisher eventPublisher;
+    private final OrderShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final String cartValidationTopic;
+    private final String paymentInitiationTopic;
+    private final String paymentMethod;
+    private final String paymentCaptureTopic;
+    private final String paymentVoidTopic;
+    private final SagaMode mode;
+    private final long sendRetryBackoffMillis;
+    private final long sendMaxRetryBackoffMillis;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, ActiveSaga> active = new ConcurrentHashMap<>();
+
+    public OrderSagaOrchestrator(OrderCommandDispatcher dispatcher,
+                                 OrderCommandHandler commandHandler,
+                                 OrderSagaRepository sagaRepository,
+                                 OrderSagaStateWriter stateWriter,
+                                 EventPublisher eventPublisher,
+                                 OrderShardRouter shardRouter,
+                                 ObjectMapper objectMapper,
+                                 @Value("${kafka.topic.cart-validation-requested:cart-validation-requested}") String cartValidationTopic,
+                                 @Value("${kafka.topic.payment-initiation-requested:payment-initiation-requested}") String paymentInitiationTopic,
+                                 @Value("${kafka.topic.payment-capture-requested:payment-capture-requested}") String paymentCaptureTopic,
+                                 @Value("${kafka.topic.payment-void-requested:payment-void-requested}") String paymentVoidTopic,
+                                 @Value("${order.saga.payment-method:CREDIT_CARD}") String paymentMethod,
+                                 @Value("${order.saga.parallel-steps:false}") boolean parallelSteps,
+                                 @Value("${order.saga.send-retry-backoff:1s}") Duration sendRetryBackoff,
+                                 @Value("${order.saga.send-max-retry-backoff:1m}") Duration sendMaxRetryBackoff,
+                                 MeterRegistry meterRegistry) {
+        this.dispatcher = dispatcher;
+        this.commandHandler = commandHandler;
+        this.sagaRepository = sagaRepository;
+        this.stateWriter = stateWriter;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.cartValidationTopic = cartValidationTopic;
+        this.paymentInitiationTopic = paymentInitiationTopic;
+        this.paymentCaptureTopic = paymentCaptureTopic;
+        this.paymentVoidTopic = paymentVoidTopic;
+        this.paymentMethod = paymentMethod;
+        this.mode = parallelSteps ? SagaMode.PARALLEL : SagaMode.SEQUENTIAL;
+        this.sendRetryBackoffMillis = Math.max(1, sendRetryBackoff.toMillis());
+        this.sendMaxRetryBackoffMillis = Math.max(sendRetryBackoffMillis, sendMaxRetryBackoff.toMillis());
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Starts the saga of a newly created order, or ends it once the order was confirmed or cancelled.
+     * Called after the order's command committed.
+     */
+    public void track(OrderSnapshotState order) {
+        CompletableFuture<Void> step;
+        if (order.getStatus() == OrderStatus.PENDING) {
+            if (order.getVersion() != 1) {
+                return;
+            }
+            SagaTrigger trigger = mode == SagaMode.PARALLEL ? SagaTrigger.ORDER_CREATED_PARALLEL : SagaTrigger.ORDER_CREATED;
+            step = fire(order.getId(), trigger, saga -> { }, () -> newSaga(order), true);
+        } else {
+            SagaTrigger trigger = order.getStatus() == OrderStatus.CONFIRMED
+                ? SagaTrigger.ORDER_CONFIRMED
+                : SagaTrigger.ORDER_CANCELLED;
+            // Replies may have moved the saga on another instance since this one last saw it
+            step = fire(order.getId(), trigger, saga -> { }, null, true);
+        }
+        step.whenComplete((done, failure) -> {
+            if (failure != null) {
+                log.error("Failed to update saga of order {} to {}", order.getId(), order.getStatus(), failure);
+            }
+        });
+    }
+
+    public CompletableFuture<Void> onCartValidationCompleted(CartValidationCompletedEvent event) {
+        if (event.isValid()) {
+            return fire(event.getOrderId(), SagaTrigger.CART_VALIDATED, saga -> { }, null, false);
+        }
+        String reason = "Cart validation failed: " + event.getValidationErrors();
+        return fire(event.getOrderId(), SagaTrigger.CART_REJECTED, saga -> saga.setFailureReason(reason), null, false);
+    }
+
+    public CompletableFuture<Void> onPaymentProcessingCompleted(PaymentProcessingCompletedEvent event) {
+        if (event.getStatus() == PaymentProcessingCompletedEvent.PaymentStatus.COMPLETED) {
+            return fire(event.getOrderId(), SagaTrigger.PAYMENT_COMPLETED,
+                saga -> saga.setPaymentId(event.getPaymentId()), null, false);
+        }
+        String reason = "Payment " + event.getStatus() + ": " + event.getFailureReason();
+        return fire(event.getOrderId(), SagaTrigger.PAYMENT_FAILED, saga -> {
+            saga.setPaymentId(event.getPaymentId());
+            saga.setFailureReason(reason);
+        }, null, false);
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    /**
+     * Applies a trigger on the order's lane and performs the resulting action once the new state is stored.
+     * If another instance stored the saga first, the trigger is applied once more to the stored saga.
+     *
+     * @param creator creates the saga if it does not exist yet, or null if it must exist
+     * @param reload whether to start from the stored saga rather than the one in memory
+     */
+    private CompletableFuture<Void> fire(String orderId, SagaTrigger trigger, Consumer<OrderSaga> update,
+                                         Supplier<OrderSaga> creator, boolean reload) {
+        return dispatcher.submit(orderId, () -> step(orderId, trigger, update, creator, reload))
+            .thenCompose(step -> step)
+            .exceptionallyCompose(failure -> {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                if (!(cause instanceof OptimisticLockingFailureException)) {
+                    return CompletableFuture.failedFuture(cause);
+                }
+                log.info("Saga of order {} was moved on by another instance, applying {} to the stored saga",
+                    orderId, trigger);
+                return dispatcher.submit(orderId, () -> step(orderId, trigger, update, creator, true))
+                    .thenCompose(step -> step);
+            });
+    }
+
+    private CompletableFuture<Void> step(String orderId, SagaTrigger trigger, Consumer<OrderSaga> update,
+                                         Supplier<OrderSaga> creator, boolean reload) {
+        ActiveSaga current = activeSaga(orderId, creator, reload);
+        if (current == null) {
+            log.warn("No saga for order {}, ignoring {}", orderId, trigger);
+            return CompletableFuture.completedFuture(null);
+        }
+        OrderSaga saga = current.saga;
+        Transition transition = OrderSagaDefinition.transition(saga.getSagaState(), trigger);
+        if (transition == null) {
+            log.debug("Saga of order {} ignores {} in state {}", orderId, trigger, saga.getSagaState());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        SagaState from = saga.getSagaState();
+        update.accept(saga);
+        saga.setSagaState(transition.getTarget());
+        saga.setVersion(saga.getVersion() + 1);
+        saga.setUpdatedAt(LocalDateTime.now());
+        log.debug("Saga of order {}: {} --{}--> {}", orderId, from, trigger, transition.getTarget());
+
+        // The action must see this step's values, not those of later steps
+        SagaAction action = transition.getAction();
+        String customerId = saga.getCustomerId();
+        String paymentId = saga.getPaymentId();
+        String failureReason = saga.getFailureReason();
+        boolean finishes = !from.isTerminal() && transition.getTarget().isTerminal();
+
+        synchronized (current) {
+            current.pendingWrites++;
+        }
+        // If the state cannot be stored the returned future fails and the trigger's record stays unacknowledged
+        return stateWriter.write(saga)
+            .whenComplete((stored, failure) -> written(orderId, current, failure))
+            .thenCompose(stored -> CompletableFuture.completedFuture(action)
+                .thenCompose(performed -> perform(action, orderId, customerId, saga, paymentId, failureReason))
+                .whenComplete((performed, failure) -> {
+                    if (finishes) {
+                        recordDuration(saga, failure == null ? transition.getTarget() : SagaState.FAILED);
+                    }
+                })
+                .exceptionallyCompose(failure -> actionFailed(orderId, action, failure)));
+    }
+
+    /**
+     * Records the time from order creation until the saga's outcome took effect, e.g. the order was confirmed.
+     */
+    private void recordDuration(OrderSaga saga, SagaState outcome) {
+        SagaMode sagaMode = saga.getSagaMode() != null ? saga.getSagaMode() : SagaMode.SEQUENTIAL;
+        Timer.builder("order.saga.duration")
+            .description("Time from order creation to the saga's outcome")
+            .tag("mode", sagaMode.name().toLowerCase())
+            .tag("outcome", outcome.name().toLowerCase())
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(Duration.between(saga.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    private CompletableFuture<Void> actionFailed(String orderId, SagaAction action, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+            ? failure.getCause() : failure;
+        log.error("Saga action {} for order {} failed", action, orderId, cause);
+        return fire(orderId, SagaTrigger.ACTION_FAILED,
+            saga -> saga.setFailureReason(action + " failed: " + cause.getMessage()), null, false);
+    }
+
+    private CompletableFuture<Void> perform(SagaAction action, String orderId, String customerId, OrderSaga saga,
+                                            String paymentId, String failureReason) {
+        switch (action) {
+            case REQUEST_CART_VALIDATION:
+                // Carts are kept per customer
+                return eventPublisher.publishAsync(cartValidationTopic,
+                    new CartValidationRequestedEvent(orderId, customerId, customerId, orderId, 1));
+            case REQUEST_PAYMENT:
+                return requestPayment(orderId, customerId, saga, false);
+            case REQUEST_CART_VALIDATION_AND_AUTHORIZATION:
+                return CompletableFuture.allOf(
+                    eventPublisher.publishAsync(cartValidationTopic,
+                        new CartValidationRequestedEvent(orderId, customerId, customerId, orderId, 1)),
+                    requestPayment(orderId, customerId, saga, true));
+            case CONFIRM_ORDER:
+                return confirm(orderId, paymentId);
+            case CONFIRM_ORDER_AND_CAPTURE:
+                return confirm(orderId, paymentId)
+                    // An order that can no longer be confirmed must not keep the customer's money on hold
+                    .exceptionallyCompose(failure -> voidPayment(orderId, paymentId, "Order could not be confirmed")
+                        .thenCompose(voided -> CompletableFuture.<Void>failedFuture(failure)))
+                    .thenCompose(confirmed -> publishUntilSent(paymentCaptureTopic,
+                        new PaymentCaptureRequestedEvent(orderId, paymentId, orderId, saga.getTotalAmount(), 1), 0));
+            case CANCEL_ORDER:
+                return cancel(orderId, failureReason);
+            case CANCEL_ORDER_AND_VOID:
+                return CompletableFuture.allOf(cancel(orderId, failureReason),
+                    voidPayment(orderId, paymentId, failureReason));
+            case VOID_PAYMENT:
+                return voidPayment(orderId, paymentId, failureReason != null ? failureReason : "Order cancelled");
+            default:
+                return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private CompletableFuture<Void> requestPayment(String orderId, String customerId, OrderSaga saga,
+                                                   boolean authorizeOnly) {
+        return eventPublisher.publishAsync(paymentInitiationTopic,
+            new PaymentInitiationRequestedEvent(orderId, orderId, customerId, saga.getTotalAmount(),
+                paymentMethod, authorizeOnly, 1));
+    }
+
+    private CompletableFuture<Void> confirm(String orderId, String paymentId) {
+        return dispatcher.submit(orderId, () -> {
+            commandHandler.handle(new ConfirmOrderCommand(orderId, paymentId));
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> cancel(String orderId, String reason) {
+        return dispatcher.submit(orderId,
+                () -> commandHandler.cancelIfPending(new CancelOrderCommand(orderId, reason)))
+            .thenApply(cancelled -> null);
+    }
+
+    private CompletableFuture<Void> voidPayment(String orderId, String paymentId, String reason) {
+        if (paymentId == null) {
+            // The saga failed or was cancelled before any payment was made
+            return CompletableFuture.completedFuture(null);
+        }
+        return publishUntilSent(paymentVoidTopic,
+            new PaymentVoidRequestedEvent(orderId, paymentId, orderId, reason, 1), 0);
+    }
+
+    private CompletableFuture<Void> publishUntilSent(String topic, DomainEvent event, int attempt) {
+        return eventPublisher.publishAsync(topic, event)
+            .exceptionallyCompose(failure -> {
+                long backoff = Math.min(sendMaxRetryBackoffMillis, sendRetryBackoffMillis << Math.min(attempt, 16));
+                log.warn("Failed to publish {} for order {}, retrying in {} ms",
+                    event.getEventType(), event.getAggregateId(), backoff, failure);
+                return CompletableFuture.runAsync(() -> { },
+                        CompletableFuture.delayedExecutor(backoff, TimeUnit.MILLISECONDS))
+                    .thenCompose(waited -> publishUntilSent(topic, event, attempt + 1));
+            });
+    }
+
+    /**
+     * Gets the saga of an order from memory, the database or the creator. Runs on the order's lane.
+     *
+     * @param reload whether to read the stored saga even if it is in memory; a saga with writes of this
+     *               instance still queued is newer in memory and kept
+     */
+    private ActiveSaga activeSaga(String orderId, Supplier<OrderSaga> creator, boolean reload) {
+        ActiveSaga current = active.get(orderId);
+        if (current != null && reload) {
+            synchronized (current) {
+                if (current.pendingWrites == 0) {
+                    active.remove(orderId, current);
+                    current = null;
+                }
+            }
+        }
+        if (current != null) {
+            return current;
+        }
+        // Saga state lives on the default shard, whatever shard the order is on
+        OrderSaga saga = ShardContext.callOn(shardRouter.getDefaultShard(), () -> sagaRepository.findById(orderId))
+            .orElse(null);
+        if (saga == null && creator != null) {
+            saga = creator.get();
+        }
+        if (saga == null || (saga.getSagaState().isTerminal() && creator == null)) {
+            // Finished sagas are not kept, but still see late triggers to log them
+            return saga != null ? new ActiveSaga(saga) : null;
+        }
+        current = new ActiveSaga(saga);
+        active.put(orderId, current);
+        return current;
+    }
+
+    private void written(String orderId, ActiveSaga current, Throwable failure) {
+        // Runs on the writer thread while the lane may already take the next step
+        synchronized (current) {
+            current.pendingWrites--;
+            if (failure != null) {
+                // Memory is ahead of the database now; start over from the stored state next time
+                active.remove(orderId, current);
+            } else if (current.pendingWrites == 0 && current.saga.getSagaState().isTerminal()) {
+                active.remove(orderId, current);
+            }
+        }
+    }
+
+    private OrderSaga newSaga(OrderSnapshotState order) {
+        OrderSaga saga = new OrderSaga();
+        saga.setOrderId(order.getId());
+        saga.setCustomerId(order.getCustomerId());
+        saga.setRestaurantId(order.getRestaurantId());
+        saga.setTotalAmount(order.getTotalAmount());
+        saga.setSagaState(SagaState.STARTED);
+        saga.setSagaMode(mode);
+        try {
+            saga.setItems(objectMapper.writeValueAsString(order.getItems()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to serialize items of order " + order.getId(), e);
+        }
+        saga.setCreatedAt(LocalDateTime.now());
+        saga.setUpdatedAt(saga.getCreatedAt());
+        return saga;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (!partitions.isEmpty()) {
+            // Another instance may continue these sagas; keep only those with writes still in flight
+            active.values().removeIf(current -> {
+                synchronized (current) {
+                    return current.pendingWrites == 0;
+                }
+            });
+            log.info("Partitions {} revoked, {} sagas still in memory", partitions, active.size());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        // Sagas are loaded from the database on first use
+    }
+
+    @Override
+    public void onPartitionsLost(Collection<TopicPartition> partitions) {
+        onPartitionsRevoked(partitions);
+    }
+
+    private static class ActiveSaga {
+        final OrderSaga saga;
+        int pendingWrites;
+
+        ActiveSaga(OrderSaga saga) {
+            this.saga = saga;
+        }
+    }
+}
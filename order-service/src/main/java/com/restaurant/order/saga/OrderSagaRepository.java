@@ -0,0 +1,8 @@
+package com.restaurant.order.saga;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OrderSagaRepository extends JpaRepository<OrderSaga, String> {
+}
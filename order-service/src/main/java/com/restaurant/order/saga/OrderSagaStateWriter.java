@@ -0,0 +1,222 @@
+package com.restaurant.order.saga;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes saga state to {@code order_saga_state} in batches.
+ * State changes queued within {@code order.saga.write-window-micros} of each other, up to
+ * {@code order.saga.write-batch}, are upserted with one multi-row statement, so thousands of sagas moving at
+ * once cost a few round trips instead of one transaction each. Changes are written in the order they
+ * were queued; a failed batch is retried after {@code order.saga.write-retry-backoff-millis} up to
+ * {@code order.saga.write-attempts} times.
+ * <p>
+ * Several instances may hold the same saga, e.g. the one whose command started it and the one consuming
+ * its replies. A batch therefore locks the stored rows of its sagas first and only stores a state whose
+ * version follows the stored one; the writes of an instance that was behind fail with an
+ * {@link OptimisticLockingFailureException} and change nothing.
+ */
+@Component
+@Slf4j
+public class OrderSagaStateWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO order_saga_state (order_id, customer_id, restaurant_id, items, total_amount, saga_state, " +
+        "saga_mode, payment_id, failure_reason, retry_count, version, created_at, updated_at) VALUES ";
+
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LOCK_SQL = "SELECT order_id, version FROM order_saga_state WHERE order_id IN (%s) FOR UPDATE";
+
+    // Rows of one statement are applied in order, so the last change of a saga in a batch wins
+    private static final String UPSERT_SUFFIX =
+        " ON DUPLICATE KEY UPDATE saga_state = VALUES(saga_state), payment_id = VALUES(payment_id), " +
+        "failure_reason = VALUES(failure_reason), retry_count = VALUES(retry_count), version = VALUES(version), " +
+        "updated_at = VALUES(updated_at)";
+
+    private static final int ROW_ARGS = 13;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final int attempts;
+    private final long retryBackoffMillis;
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public OrderSagaStateWriter(DataSource dataSource,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${order.saga.write-window-micros:1000}") long windowMicros,
+                                @Value("${order.saga.write-batch:500}") int maxBatch,
+                                @Value("${order.saga.write-attempts:3}") int attempts,
+                                @Value("${order.saga.write-retry-backoff-millis:200}") long retryBackoffMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.attempts = Math.max(1, attempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.writer = new Thread(this::run, "order-saga-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues the current state of a saga.
+     *
+     * @return a future completed once the state is stored, or failed with an
+     *         {@link OptimisticLockingFailureException} if the stored saga is not at the version before
+     */
+    public CompletableFuture<Void> write(OrderSaga saga) {
+        // Copy the values now; the saga keeps changing on its lane while the write is queued
+        PendingWrite pending = new PendingWrite(saga.getOrderId(), saga.getVersion(), new Object[] {
+            saga.getOrderId(),
+            saga.getCustomerId(),
+            saga.getRestaurantId(),
+            saga.getItems(),
+            saga.getTotalAmount(),
+            saga.getSagaState().name(),
+            saga.getSagaMode() != null ? saga.getSagaMode().name() : null,
+            saga.getPaymentId(),
+            saga.getFailureReason(),
+            saga.getRetryCount(),
+            saga.getVersion(),
+            Timestamp.valueOf(saga.getCreatedAt()),
+            Timestamp.valueOf(saga.getUpdatedAt())
+        });
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Order service is shutting down"));
+        }
+        queue.add(pending);
+        return pending.result;
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                List<PendingWrite> batch = new ArrayList<>(maxBatch);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingWrite next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite> batch) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<PendingWrite> rejected = transactionTemplate.execute(status -> writeInOrder(batch));
+                for (PendingWrite pending : batch) {
+                    if (rejected.contains(pending)) {
+                        pending.result.completeExceptionally(new OptimisticLockingFailureException(
+                            "Saga of order " + pending.orderId + " was changed by another instance, version "
+                                + pending.version + " was not stored"));
+                    } else {
+                        pending.result.complete(null);
+                    }
+                }
+                return;
+            } catch (Exception e) {
+                if (attempt >= attempts) {
+                    log.error("Failed to write {} saga states", batch.size(), e);
+                    batch.forEach(pending -> pending.result.completeExceptionally(e));
+                    return;
+                }
+                log.warn("Failed to write {} saga states on attempt {}, retrying", batch.size(), attempt, e);
+                Thread.sleep(retryBackoffMillis * attempt);
+            }
+        }
+    }
+
+    /**
+     * Stores the writes that follow the stored version of their saga or an earlier write of the batch.
+     * Runs in a transaction holding the locks of the batch's rows.
+     *
+     * @return the writes that were not stored
+     */
+    private List<PendingWrite> writeInOrder(List<PendingWrite> batch) {
+        // Locked in key order so that concurrent batches of other instances do not deadlock on rows
+        Set<String> orderIds = new TreeSet<>();
+        batch.forEach(pending -> orderIds.add(pending.orderId));
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query(String.format(LOCK_SQL, String.join(", ", Collections.nCopies(orderIds.size(), "?"))),
+            rows -> {
+                versions.put(rows.getString(1), rows.getLong(2));
+            }, orderIds.toArray());
+
+        List<PendingWrite> rejected = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        List<Object> args = new ArrayList<>(batch.size() * ROW_ARGS);
+        for (PendingWrite pending : batch) {
+            if (pending.version != versions.getOrDefault(pending.orderId, 0L) + 1) {
+                rejected.add(pending);
+                continue;
+            }
+            versions.put(pending.orderId, pending.version);
+            sql.append(args.isEmpty() ? "" : ", ").append(ROW_PLACEHOLDERS);
+            args.addAll(Arrays.asList(pending.row));
+        }
+        if (!args.isEmpty()) {
+            sql.append(UPSERT_SUFFIX);
+            jdbcTemplate.update(sql.toString(), args.toArray());
+        }
+        return rejected;
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        writer.interrupt();
+        PendingWrite pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Order service is shutting down"));
+        }
+    }
+
+    private static class PendingWrite {
+        final String orderId;
+        final long version;
+        final Object[] row;
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        PendingWrite(String orderId, long version, Object[] row) {
+            this.orderId = orderId;
+            this.version = version;
+            this.row = row;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.restaurant.order.saga;
+
+/**
+ * Side effect of a saga transition, performed once the new state is stored.
+ */
+public enum SagaAction {
+    NONE,
+    REQUEST_CART_VALIDATION,
+    REQUEST_PAYMENT,
+    REQUEST_CART_VALIDATION_AND_AUTHORIZATION,
+    CONFIRM_ORDER,
+    /** Confirms the order and captures its pre-authorized payment, or voids it if the order cannot be confirmed. */
+    CONFIRM_ORDER_AND_CAPTURE,
+    CANCEL_ORDER,
+    CANCEL_ORDER_AND_VOID,
+    VOID_PAYMENT
+}
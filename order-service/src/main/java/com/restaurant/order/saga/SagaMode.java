@@ -0,0 +1,11 @@
+package com.restaurant.order.saga;
+
+/**
+ * How a saga runs its cart validation and payment steps, stored in {@code order_saga_state.saga_mode}.
+ */
+public enum SagaMode {
+    /** Cart validation, then payment. */
+    SEQUENTIAL,
+    /** Cart validation and payment pre-authorization at once. */
+    PARALLEL
+}
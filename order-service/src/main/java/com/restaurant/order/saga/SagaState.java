@@ -0,0 +1,23 @@
+package com.restaurant.order.saga;
+
+/**
+ * Steps of the order saga, stored in {@code order_saga_state.saga_state}.
+ */
+public enum SagaState {
+    STARTED,
+    CART_VALIDATION_PENDING,
+    PAYMENT_PENDING,
+    /** Cart validation and payment pre-authorization both requested, neither answered yet. */
+    CART_AND_AUTHORIZATION_PENDING,
+    /** Cart validated, payment pre-authorization outstanding. */
+    AUTHORIZATION_PENDING,
+    /** Payment pre-authorized, cart validation outstanding. */
+    CART_VALIDATION_PENDING_AUTHORIZED,
+    COMPLETED,
+    CANCELLED,
+    FAILED;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED || this == FAILED;
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.order.saga;
+
+/**
+ * Inputs that move an order saga from one step to the next.
+ */
+public enum SagaTrigger {
+    ORDER_CREATED,
+    /** The order was created and its saga runs cart validation and payment pre-authorization at once. */
+    ORDER_CREATED_PARALLEL,
+    CART_VALIDATED,
+    CART_REJECTED,
+    PAYMENT_COMPLETED,
+    PAYMENT_FAILED,
+    /** The order was confirmed outside the saga. */
+    ORDER_CONFIRMED,
+    /** The order was cancelled outside the saga, e.g. by a customer or because it timed out. */
+    ORDER_CANCELLED,
+    /** The action of the last transition failed. */
+    ACTION_FAILED
+}
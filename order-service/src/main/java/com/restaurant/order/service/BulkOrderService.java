@@ -0,0 +1,153 @@
+package com.restaurant.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.restaurant.order.command.CreateOrderCommand;
+import com.restaurant.order.command.OrderCreationBatcher;
+import com.restaurant.order.dto.BulkOrderResult;
+import com.restaurant.order.dto.CreateOrderRequest;
+import com.restaurant.order.dto.OrderItemDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Creates orders from a stream of order requests, either NDJSON or a JSON array.
+ * Requests are parsed one at a time and handed to the {@link OrderCreationBatcher}, so many orders
+ * of one submission share each group commit and its pipelined event sends. Results are written
+ * back as NDJSON in completion order while the input is still being read; at most
+ * {@code order.bulk.max-in-flight} orders are pending at once. The response is streamed asynchronously,
+ * so a submission must finish within {@code spring.mvc.async.request-timeout}.
+ */
+@Service
+@Slf4j
+public class BulkOrderService {
+
+    private final OrderCreationBatcher creationBatcher;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter resultWriter;
+    private final int maxInFlight;
+
+    public BulkOrderService(OrderCreationBatcher creationBatcher,
+                            ObjectMapper objectMapper,
+                            @Value("${order.bulk.max-in-flight:256}") int maxInFlight) {
+        this.creationBatcher = creationBatcher;
+        this.objectMapper = objectMapper;
+        this.resultWriter = objectMapper.writerFor(BulkOrderResult.class);
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    public void createOrders(InputStream input, OutputStream output) throws IOException {
+        BlockingQueue<BulkOrderResult> completed = new LinkedBlockingQueue<>();
+        // Index of the order being read, also while hasNextValue() parses ahead
+        long index = 0;
+        int inFlight = 0;
+
+        try (MappingIterator<CreateOrderRequest> requests =
+                 objectMapper.readerFor(CreateOrderRequest.class).readValues(input)) {
+            for (; requests.hasNextValue(); index++) {
+                long current = index;
+                CreateOrderRequest request;
+                try {
+                    request = requests.nextValue();
+                } catch (JsonMappingException e) {
+                    write(output, new BulkOrderResult(current, BulkOrderResult.Status.REJECTED, null, e.getOriginalMessage()));
+                    continue;
+                }
+
+                String error = validate(request);
+                if (error != null) {
+                    write(output, new BulkOrderResult(current, BulkOrderResult.Status.REJECTED, null, error));
+                    continue;
+                }
+
+                while (inFlight >= maxInFlight) {
+                    write(output, take(completed));
+                    inFlight--;
+                }
+                creationBatcher.submit(CreateOrderCommand.from(request))
+                    .whenComplete((orderId, failure) -> completed.add(failure == null
+                        ? new BulkOrderResult(current, BulkOrderResult.Status.CREATED, orderId, null)
+                        : new BulkOrderResult(current, BulkOrderResult.Status.FAILED, null, causeOf(failure).getMessage())));
+                inFlight++;
+
+                BulkOrderResult result;
+                while ((result = completed.poll()) != null) {
+                    write(output, result);
+                    inFlight--;
+                }
+                output.flush();
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed input cannot be resynchronized; report it and finish the orders already submitted
+            log.warn("Bulk order submission aborted at order {}: {}", index, e.getOriginalMessage());
+            write(output, new BulkOrderResult(index, BulkOrderResult.Status.REJECTED, null,
+                "Malformed input, submission stopped: " + e.getOriginalMessage()));
+        }
+
+        while (inFlight > 0) {
+            write(output, take(completed));
+            inFlight--;
+        }
+        output.flush();
+        log.info("Bulk order submission of {} orders completed", index);
+    }
+
+    private String validate(CreateOrderRequest request) {
+        if (request == null) {
+            return "Order is empty";
+        }
+        if (isBlank(request.getCustomerId())) {
+            return "customerId is required";
+        }
+        if (isBlank(request.getRestaurantId())) {
+            return "restaurantId is required";
+        }
+        if (request.getItems() == null || request.getItems().isEmpty()) {
+            return "Order has no items";
+        }
+        for (OrderItemDto item : request.getItems()) {
+            if (isBlank(item.getMenuItemId()) || isBlank(item.getName()) || item.getPrice() == null || item.getPrice().signum() < 0
+                    || item.getQuantity() == null || item.getQuantity() <= 0) {
+                return "Invalid item: " + item.getMenuItemId();
+            }
+        }
+        if (request.getTotalAmount() == null || request.getTotalAmount().signum() < 0) {
+            return "totalAmount is required";
+        }
+        return null;
+    }
+
+    private void write(OutputStream output, BulkOrderResult result) throws IOException {
+        output.write(resultWriter.writeValueAsBytes(result));
+        output.write('\n');
+    }
+
+    private static BulkOrderResult take(BlockingQueue<BulkOrderResult> completed) throws IOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for bulk order results");
+        }
+    }
+
+    private static Throwable causeOf(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
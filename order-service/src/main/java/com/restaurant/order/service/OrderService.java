@@ -7,6 +7,7 @@ import com.restaurant.order.model.Order;
 import com.restaurant.order.model.OrderItem;
 import com.restaurant.order.model.OrderStatus;
 import com.restaurant.order.repository.OrderRepository;
+import com.restaurant.order.sharding.OrderShardRouter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -21,12 +22,14 @@ import java.util.stream.Collectors;
 public class OrderService {
     
     private final OrderRepository orderRepository;
+    private final OrderShardRouter shardRouter;
     
     @Transactional
     public OrderResponse createOrder(CreateOrderRequest request) {
         log.info("Creating order for customer: {}", request.getCustomerId());
         
         Order order = new Order();
+        order.setId(shardRouter.newOrderId(request.getRestaurantId()));
         order.setCustomerId(request.getCustomerId());
         order.setRestaurantId(request.getRestaurantId());
         order.setTotalAmount(request.getTotalAmount());
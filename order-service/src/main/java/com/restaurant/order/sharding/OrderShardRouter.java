@@ -0,0 +1,76 @@
+package com.restaurant.order.sharding;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Decides which shard an order lives on.
+ * New orders go to their restaurant's shard, and the shard name is prefixed to the order ID
+ * ({@code shard_uuid}) so later commands that only carry the order ID are routed without a lookup.
+ * Order IDs without a known prefix, including all orders created before sharding, are on the
+ * default shard. With sharding disabled, order IDs are plain UUIDs.
+ */
+@Component
+public class OrderShardRouter {
+    
+    private static final char SEPARATOR = '_';
+    
+    private final ShardingProperties properties;
+    
+    public OrderShardRouter(ShardingProperties properties) {
+        this.properties = properties;
+    }
+    
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+    
+    public String getDefaultShard() {
+        return properties.getDefaultShard();
+    }
+    
+    /**
+     * Gets the names of all shards, starting with the default shard.
+     */
+    public Set<String> getShards() {
+        Set<String> shards = new LinkedHashSet<>();
+        shards.add(properties.getDefaultShard());
+        if (properties.isEnabled()) {
+            shards.addAll(properties.getShards().keySet());
+        }
+        return shards;
+    }
+    
+    public String shardForRestaurant(String restaurantId) {
+        if (!properties.isEnabled() || restaurantId == null) {
+            return properties.getDefaultShard();
+        }
+        return properties.getRestaurants().getOrDefault(restaurantId, properties.getDefaultShard());
+    }
+    
+    public String shardForOrder(String orderId) {
+        if (!properties.isEnabled() || orderId == null) {
+            return properties.getDefaultShard();
+        }
+        int separator = orderId.indexOf(SEPARATOR);
+        if (separator > 0) {
+            String shard = orderId.substring(0, separator);
+            if (properties.getShards().containsKey(shard)) {
+                return shard;
+            }
+        }
+        return properties.getDefaultShard();
+    }
+    
+    public String newOrderId(String restaurantId) {
+        String uuid = UUID.randomUUID().toString();
+        String shard = shardForRestaurant(restaurantId);
+        if (!properties.isEnabled() || shard.equals(properties.getDefaultShard())) {
+            return uuid;
+        }
+        return shard + SEPARATOR + uuid;
+    }
+}
@@ -0,0 +1,46 @@
+package com.restaurant.order.sharding;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread's database work is routed to.
+ * Must be set before a transaction starts, since the connection is taken at its beginning.
+ */
+public final class ShardContext {
+    
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+    
+    private ShardContext() {
+    }
+    
+    /**
+     * Gets the current shard, or null for the default shard.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Runs work on the given shard and restores the previous shard afterwards.
+     */
+    public static <T> T callOn(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+    
+    public static void runOn(String shard, Runnable work) {
+        callOn(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
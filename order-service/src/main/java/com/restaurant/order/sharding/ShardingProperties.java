@@ -0,0 +1,42 @@
+package com.restaurant.order.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shard map of the order write database.
+ * The pool configured under {@code spring.datasource.write} is the default shard; further shards
+ * are listed under {@code order.sharding.shards} and restaurants are pinned to them under
+ * {@code order.sharding.restaurants}. Restaurants that are not listed stay on the default shard.
+ */
+@Data
+@ConfigurationProperties(prefix = "order.sharding")
+public class ShardingProperties {
+    
+    private boolean enabled = false;
+    
+    private String defaultShard = "primary";
+    
+    private Map<String, Shard> shards = new HashMap<>();
+    
+    /**
+     * Restaurant ID to shard name.
+     */
+    private Map<String, String> restaurants = new HashMap<>();
+    
+    @Data
+    public static class Shard {
+        private String jdbcUrl;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+        
+        /**
+         * Optional read replica of the shard, using the same credentials.
+         */
+        private String replicaJdbcUrl;
+    }
+}
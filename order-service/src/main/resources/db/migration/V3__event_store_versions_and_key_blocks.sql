@@ -0,0 +1,38 @@
+-- Order event store written by JdbcEventStoreAppender
+-- Two appends of the same aggregate version must conflict; that is what detects concurrent commands on
+-- one order. Hibernate's ddl-auto cannot add the unique key to a table that already holds duplicate
+-- versions, and only logs the failure, so the key is created here.
+
+CREATE TABLE IF NOT EXISTS event_store (
+    id BIGINT NOT NULL PRIMARY KEY,
+    eventId VARCHAR(255) NOT NULL,
+    aggregateId VARCHAR(255) NOT NULL,
+    eventType VARCHAR(255) NOT NULL,
+    eventData TEXT NOT NULL,
+    version INT NOT NULL,
+    occurredOn DATETIME(6) NOT NULL,
+    createdAt DATETIME(6) NOT NULL,
+    INDEX idx_aggregate_id (aggregateId),
+    INDEX idx_event_type (eventType),
+    INDEX idx_occurred_on (occurredOn)
+);
+
+-- Must return no rows before the key can be added; resolve duplicate versions by hand first
+SELECT aggregateId, version, COUNT(*) AS copies
+FROM event_store
+GROUP BY aggregateId, version
+HAVING COUNT(*) > 1;
+
+-- Skip if SHOW INDEX FROM event_store WHERE Key_name = 'uk_event_store_aggregate_version' returns a row
+ALTER TABLE event_store
+    ADD CONSTRAINT uk_event_store_aggregate_version UNIQUE (aggregateId, version);
+
+-- Event store keys are handed out in blocks reserved here by EventStoreKeyAllocator
+CREATE TABLE IF NOT EXISTS event_store_key_blocks (
+    name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+
+-- Keys continue after the highest one in use
+INSERT IGNORE INTO event_store_key_blocks (name, next_id)
+SELECT 'event_store', COALESCE(MAX(id), 0) + 1 FROM event_store;
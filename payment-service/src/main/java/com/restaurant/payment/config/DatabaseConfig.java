@@ -0,0 +1,98 @@
+package com.restaurant.payment.config;
+
+import com.restaurant.events.datasource.ReadWriteRoutingDataSource;
+import com.restaurant.events.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Payment database pools.
+ * The primary pool is configured under {@code spring.datasource}. If {@code spring.datasource.read.url}
+ * is set, read-only transactions such as payment queries go to that replica instead, as long as it
+ * lags at most {@code payment.datasource.replica.max-lag} behind the primary. Without a replica the
+ * data source is left to Spring Boot.
+ */
+@Configuration
+public class DatabaseConfig {
+
+    @Value("${spring.datasource.read.url:}")
+    private String replicaUrl;
+
+    @Value("${spring.datasource.read.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${spring.datasource.read.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${payment.datasource.replica.max-lag:5s}")
+    private Duration replicaMaxLag;
+
+    @Value("${payment.datasource.replica.check-interval:5s}")
+    private Duration replicaCheckInterval;
+
+    @Value("${payment.datasource.replica.allow-single-node:false}")
+    private boolean replicaAllowSingleNode;
+
+    private ReplicaLagMonitor lagMonitor;
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "spring.datasource.read.url")
+    public DataSource dataSource(DataSourceProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = createPool("payment-primary", properties.determineDriverClassName(),
+            properties.determineUrl(), properties.determineUsername(), properties.determinePassword(), meterRegistry);
+        if (replicaUrl.isBlank()) {
+            return primary;
+        }
+
+        HikariDataSource replica = createPool("payment-replica", properties.determineDriverClassName(), replicaUrl,
+            replicaUsername, replicaPassword, meterRegistry);
+        replica.setReadOnly(true);
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica.getPoolName(), replica, replicaMaxLag,
+            replicaCheckInterval, replicaAllowSingleNode);
+        meterRegistry.ifAvailable(registry -> {
+            Gauge.builder("payment.datasource.replica.lag", monitor, ReplicaLagMonitor::getLagSeconds)
+                .description("Replication lag in seconds, -1 if the replica is not replicating")
+                .baseUnit("seconds")
+                .register(registry);
+            Gauge.builder("payment.datasource.replica.usable", monitor, m -> m.isUsable() ? 1 : 0)
+                .description("Whether read-only transactions are currently routed to the replica")
+                .register(registry);
+        });
+        this.lagMonitor = monitor;
+        return ReadWriteRoutingDataSource.lazy(primary, replica, monitor);
+    }
+
+    @PreDestroy
+    public void closeLagMonitor() {
+        if (lagMonitor != null) {
+            lagMonitor.close();
+        }
+    }
+
+    private HikariDataSource createPool(String name, String driverClassName, String url, String username,
+                                        String password, ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setDriverClassName(driverClassName);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        // hikaricp_* metrics tagged with the pool
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+}
@@ -57,6 +57,7 @@ public class PaymentService {
         paymentRepository.save(payment);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Payment> findPaymentById(String paymentId) {
         return paymentRepository.findByPaymentId(paymentId);
     }
@@ -1,10 +1,12 @@
 package com.restaurant.payment.domain.events;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+@EventType("PaymentCompleted")
 public class PaymentCompletedEvent extends DomainEvent {
     
     private String paymentId;
@@ -29,11 +31,6 @@ public class PaymentCompletedEvent extends DomainEvent {
         this.gatewayResponse = gatewayResponse;
     }
 
-    @Override
-    public String getEventType() {
-        return "PaymentCompleted";
-    }
-
     // Getters and Setters
     public String getPaymentId() {
         return paymentId;
@@ -1,10 +1,12 @@
 package com.restaurant.payment.domain.events;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+@EventType("PaymentFailed")
 public class PaymentFailedEvent extends DomainEvent {
     
     private String paymentId;
@@ -31,11 +33,6 @@ public class PaymentFailedEvent extends DomainEvent {
         this.gatewayResponse = gatewayResponse;
     }
 
-    @Override
-    public String getEventType() {
-        return "PaymentFailed";
-    }
-
     // Getters and Setters
     public String getPaymentId() {
         return paymentId;
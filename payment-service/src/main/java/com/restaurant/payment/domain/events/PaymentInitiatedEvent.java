@@ -1,11 +1,13 @@
 package com.restaurant.payment.domain.events;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventType;
 import com.restaurant.payment.domain.PaymentMethod;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+@EventType("PaymentInitiated")
 public class PaymentInitiatedEvent extends DomainEvent {
     
     private String paymentId;
@@ -30,11 +32,6 @@ public class PaymentInitiatedEvent extends DomainEvent {
         this.paymentDetails = paymentDetails;
     }
 
-    @Override
-    public String getEventType() {
-        return "PaymentInitiated";
-    }
-
     // Getters and Setters
     public String getPaymentId() {
         return paymentId;
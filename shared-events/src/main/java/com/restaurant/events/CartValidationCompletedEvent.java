@@ -6,9 +6,12 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when cart validation is completed, either successfully or with errors.
  */
+@EventType(value = "CartValidationCompleted", topic = "cart-validation-completed")
 public class CartValidationCompletedEvent extends DomainEvent {
     
     private final String cartId;
@@ -41,11 +44,6 @@ public class CartValidationCompletedEvent extends DomainEvent {
         this.validationErrors = validationErrors;
     }
 
-    @Override
-    public String getEventType() {
-        return "CartValidationCompleted";
-    }
-
     public String getCartId() { return cartId; }
     public String getOrderId() { return orderId; }
     public boolean isValid() { return isValid; }
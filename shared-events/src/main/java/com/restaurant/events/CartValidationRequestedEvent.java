@@ -5,9 +5,12 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published to request cart validation as part of the order saga.
  */
+@EventType(value = "CartValidationRequested", topic = "cart-validation-requested")
 public class CartValidationRequestedEvent extends DomainEvent {
     
     private final String cartId;
@@ -35,11 +38,6 @@ public class CartValidationRequestedEvent extends DomainEvent {
         this.orderId = orderId;
     }
 
-    @Override
-    public String getEventType() {
-        return "CartValidationRequested";
-    }
-
     public String getCartId() { return cartId; }
     public String getCustomerId() { return customerId; }
     public String getOrderId() { return orderId; }
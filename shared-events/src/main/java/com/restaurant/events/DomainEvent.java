@@ -1,8 +1,11 @@
 package com.restaurant.events;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
-import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.annotation.JsonTypeIdResolver;
+import com.restaurant.events.registry.EventType;
+import com.restaurant.events.registry.EventTypeIdResolver;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -10,25 +13,25 @@ import java.util.UUID;
 /**
  * Base class for all domain events in the restaurant ordering system.
  * Provides common properties and behavior for event sourcing and event-driven communication.
+ * Subtypes are resolved by name from their {@link EventType} annotations, which are also the only place
+ * their type names are written.
  */
-@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "eventType")
-@JsonSubTypes({
-    @JsonSubTypes.Type(value = OrderCreatedEvent.class, name = "OrderCreated"),
-    @JsonSubTypes.Type(value = OrderConfirmedEvent.class, name = "OrderConfirmed"),
-    @JsonSubTypes.Type(value = OrderCancelledEvent.class, name = "OrderCancelled"),
-    @JsonSubTypes.Type(value = OrderSagaStartedEvent.class, name = "OrderSagaStarted"),
-    @JsonSubTypes.Type(value = CartValidationRequestedEvent.class, name = "CartValidationRequested"),
-    @JsonSubTypes.Type(value = CartValidationCompletedEvent.class, name = "CartValidationCompleted"),
-    @JsonSubTypes.Type(value = PaymentInitiationRequestedEvent.class, name = "PaymentInitiationRequested"),
-    @JsonSubTypes.Type(value = PaymentProcessingCompletedEvent.class, name = "PaymentProcessingCompleted"),
-    @JsonSubTypes.Type(value = UserCreatedEvent.class, name = "UserCreated"),
-    @JsonSubTypes.Type(value = UserUpdatedEvent.class, name = "UserUpdated"),
-    @JsonSubTypes.Type(value = UserDeactivatedEvent.class, name = "UserDeactivated"),
-    @JsonSubTypes.Type(value = RestaurantCreatedEvent.class, name = "RestaurantCreated"),
-    @JsonSubTypes.Type(value = MenuUpdatedEvent.class, name = "MenuUpdated")
-})
+@JsonTypeInfo(use = JsonTypeInfo.Id.CUSTOM, include = JsonTypeInfo.As.EXISTING_PROPERTY, property = "eventType")
+@JsonTypeIdResolver(EventTypeIdResolver.class)
+@JsonPropertyOrder({"eventType"})
 public abstract class DomainEvent {
     
+    private static final ClassValue<String> EVENT_TYPES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            EventType eventType = type.getAnnotation(EventType.class);
+            if (eventType == null) {
+                throw new IllegalStateException("Event class is not annotated with @EventType: " + type.getName());
+            }
+            return eventType.value();
+        }
+    };
+    
     private final String eventId;
     private final String aggregateId;
     
@@ -69,9 +72,11 @@ public abstract class DomainEvent {
     }
 
     /**
-     * Returns the event type name for routing and deserialization
+     * Returns the event type name for routing and deserialization, as given by the class's {@link EventType}
      */
-    public abstract String getEventType();
+    public final String getEventType() {
+        return EVENT_TYPES.get(getClass());
+    }
 
     @Override
     public String toString() {
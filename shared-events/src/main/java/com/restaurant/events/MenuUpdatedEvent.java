@@ -6,9 +6,12 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when restaurant menu is updated (items added, removed, or modified).
  */
+@EventType(value = "MenuUpdated", topic = "restaurant-events")
 public class MenuUpdatedEvent extends DomainEvent {
     
     private final String restaurantId;
@@ -37,11 +40,6 @@ public class MenuUpdatedEvent extends DomainEvent {
         this.updateType = updateType;
     }
 
-    @Override
-    public String getEventType() {
-        return "MenuUpdated";
-    }
-
     public String getRestaurantId() { return restaurantId; }
     public List<String> getUpdatedItemIds() { return updatedItemIds; }
     public String getUpdateType() { return updateType; }
@@ -5,9 +5,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when an order is cancelled due to saga failure or compensation.
  */
+@EventType(value = "OrderCancelled", topic = "order-cancelled")
 public class OrderCancelledEvent extends DomainEvent {
     
     private final String customerId;
@@ -31,11 +34,6 @@ public class OrderCancelledEvent extends DomainEvent {
         this.reason = reason;
     }
 
-    @Override
-    public String getEventType() {
-        return "OrderCancelled";
-    }
-
     public String getCustomerId() { return customerId; }
     public String getReason() { return reason; }
 }
\ No newline at end of file
@@ -6,9 +6,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when an order is successfully confirmed after saga completion.
  */
+@EventType(value = "OrderConfirmed", topic = "order-confirmed")
 public class OrderConfirmedEvent extends DomainEvent {
     
     private final String customerId;
@@ -41,11 +44,6 @@ public class OrderConfirmedEvent extends DomainEvent {
         this.paymentId = paymentId;
     }
 
-    @Override
-    public String getEventType() {
-        return "OrderConfirmed";
-    }
-
     public String getCustomerId() { return customerId; }
     public String getRestaurantId() { return restaurantId; }
     public BigDecimal getTotalAmount() { return totalAmount; }
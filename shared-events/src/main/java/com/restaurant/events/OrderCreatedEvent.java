@@ -7,10 +7,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when a new order is created in the system.
  * Triggers the saga orchestration process.
  */
+@EventType(value = "OrderCreated", topic = "order-saga-started")
 public class OrderCreatedEvent extends DomainEvent {
     
     private final String customerId;
@@ -43,11 +46,6 @@ public class OrderCreatedEvent extends DomainEvent {
         this.totalAmount = totalAmount;
     }
 
-    @Override
-    public String getEventType() {
-        return "OrderCreated";
-    }
-
     public String getCustomerId() {
         return customerId;
     }
@@ -7,10 +7,13 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when an order saga orchestration process is started.
  * This event initiates the distributed transaction flow for order processing.
  */
+@EventType("OrderSagaStarted")
 public class OrderSagaStartedEvent extends DomainEvent {
     
     private final String customerId;
@@ -43,11 +46,6 @@ public class OrderSagaStartedEvent extends DomainEvent {
         this.totalAmount = totalAmount;
     }
 
-    @Override
-    public String getEventType() {
-        return "OrderSagaStarted";
-    }
-
     public String getCustomerId() { return customerId; }
     public String getRestaurantId() { return restaurantId; }
     public List<OrderCreatedEvent.OrderItem> getItems() { return items; }
@@ -0,0 +1,45 @@
+package com.restaurant.events;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import com.restaurant.events.registry.EventType;
+
+/**
+ * Event published to capture a payment that was pre-authorized for an order, once the order is confirmed.
+ */
+@EventType(value = "PaymentCaptureRequested", topic = "payment-capture-requested")
+public class PaymentCaptureRequestedEvent extends DomainEvent {
+    
+    private final String paymentId;
+    private final String orderId;
+    private final BigDecimal amount;
+
+    public PaymentCaptureRequestedEvent(String sagaId, String paymentId, String orderId, BigDecimal amount, int version) {
+        super(sagaId, version);
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.amount = amount;
+    }
+
+    @JsonCreator
+    public PaymentCaptureRequestedEvent(@JsonProperty("eventId") String eventId,
+                                        @JsonProperty("aggregateId") String aggregateId,
+                                        @JsonProperty("occurredOn") LocalDateTime occurredOn,
+                                        @JsonProperty("version") int version,
+                                        @JsonProperty("paymentId") String paymentId,
+                                        @JsonProperty("orderId") String orderId,
+                                        @JsonProperty("amount") BigDecimal amount) {
+        super(eventId, aggregateId, occurredOn, version);
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.amount = amount;
+    }
+
+    public String getPaymentId() { return paymentId; }
+    public String getOrderId() { return orderId; }
+    public BigDecimal getAmount() { return amount; }
+}
@@ -6,23 +6,35 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published to request payment processing as part of the order saga.
+ * With {@code authorizeOnly} the amount is only pre-authorized; the saga later requests its capture
+ * with a {@link PaymentCaptureRequestedEvent} or releases it with a {@link PaymentVoidRequestedEvent}.
  */
+@EventType(value = "PaymentInitiationRequested", topic = "payment-initiation-requested")
 public class PaymentInitiationRequestedEvent extends DomainEvent {
     
     private final String orderId;
     private final String customerId;
     private final BigDecimal amount;
     private final String paymentMethod;
+    private final boolean authorizeOnly;
 
     public PaymentInitiationRequestedEvent(String sagaId, String orderId, String customerId, 
                                          BigDecimal amount, String paymentMethod, int version) {
+        this(sagaId, orderId, customerId, amount, paymentMethod, false, version);
+    }
+
+    public PaymentInitiationRequestedEvent(String sagaId, String orderId, String customerId, 
+                                         BigDecimal amount, String paymentMethod, boolean authorizeOnly, int version) {
         super(sagaId, version);
         this.orderId = orderId;
         this.customerId = customerId;
         this.amount = amount;
         this.paymentMethod = paymentMethod;
+        this.authorizeOnly = authorizeOnly;
     }
 
     @JsonCreator
@@ -33,21 +45,19 @@ public class PaymentInitiationRequestedEvent extends DomainEvent {
                                          @JsonProperty("orderId") String orderId,
                                          @JsonProperty("customerId") String customerId,
                                          @JsonProperty("amount") BigDecimal amount,
-                                         @JsonProperty("paymentMethod") String paymentMethod) {
+                                         @JsonProperty("paymentMethod") String paymentMethod,
+                                         @JsonProperty("authorizeOnly") boolean authorizeOnly) {
         super(eventId, aggregateId, occurredOn, version);
         this.orderId = orderId;
         this.customerId = customerId;
         this.amount = amount;
         this.paymentMethod = paymentMethod;
-    }
-
-    @Override
-    public String getEventType() {
-        return "PaymentInitiationRequested";
+        this.authorizeOnly = authorizeOnly;
     }
 
     public String getOrderId() { return orderId; }
     public String getCustomerId() { return customerId; }
     public BigDecimal getAmount() { return amount; }
     public String getPaymentMethod() { return paymentMethod; }
+    public boolean isAuthorizeOnly() { return authorizeOnly; }
 }
\ No newline at end of file
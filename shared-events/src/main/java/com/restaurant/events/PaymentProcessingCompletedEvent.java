@@ -6,9 +6,12 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when payment processing is completed, either successfully or with failure.
  */
+@EventType(value = "PaymentProcessingCompleted", topic = "payment-processing-completed")
 public class PaymentProcessingCompletedEvent extends DomainEvent {
     
     private final String paymentId;
@@ -45,11 +48,6 @@ public class PaymentProcessingCompletedEvent extends DomainEvent {
         this.failureReason = failureReason;
     }
 
-    @Override
-    public String getEventType() {
-        return "PaymentProcessingCompleted";
-    }
-
     public String getPaymentId() { return paymentId; }
     public String getOrderId() { return orderId; }
     public BigDecimal getAmount() { return amount; }
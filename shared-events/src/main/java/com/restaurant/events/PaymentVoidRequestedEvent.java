@@ -0,0 +1,44 @@
+package com.restaurant.events;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import com.restaurant.events.registry.EventType;
+
+/**
+ * Event published to release a pre-authorized payment, or refund a captured one, when its order is cancelled.
+ */
+@EventType(value = "PaymentVoidRequested", topic = "payment-void-requested")
+public class PaymentVoidRequestedEvent extends DomainEvent {
+    
+    private final String paymentId;
+    private final String orderId;
+    private final String reason;
+
+    public PaymentVoidRequestedEvent(String sagaId, String paymentId, String orderId, String reason, int version) {
+        super(sagaId, version);
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.reason = reason;
+    }
+
+    @JsonCreator
+    public PaymentVoidRequestedEvent(@JsonProperty("eventId") String eventId,
+                                     @JsonProperty("aggregateId") String aggregateId,
+                                     @JsonProperty("occurredOn") LocalDateTime occurredOn,
+                                     @JsonProperty("version") int version,
+                                     @JsonProperty("paymentId") String paymentId,
+                                     @JsonProperty("orderId") String orderId,
+                                     @JsonProperty("reason") String reason) {
+        super(eventId, aggregateId, occurredOn, version);
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.reason = reason;
+    }
+
+    public String getPaymentId() { return paymentId; }
+    public String getOrderId() { return orderId; }
+    public String getReason() { return reason; }
+}
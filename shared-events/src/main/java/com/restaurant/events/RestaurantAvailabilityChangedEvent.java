@@ -5,10 +5,13 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when a restaurant's availability status changes.
  * This includes activation, deactivation, or other availability-related changes.
  */
+@EventType("RestaurantAvailabilityChanged")
 public class RestaurantAvailabilityChangedEvent extends DomainEvent {
     
     private final String restaurantId;
@@ -39,11 +42,6 @@ public class RestaurantAvailabilityChangedEvent extends DomainEvent {
         return reason;
     }
     
-    @Override
-    public String getEventType() {
-        return "RestaurantAvailabilityChanged";
-    }
-    
     @Override
     public String toString() {
         return String.format("RestaurantAvailabilityChangedEvent{restaurantId='%s', isAvailable=%s, reason='%s', version=%d, occurredOn=%s}",
@@ -5,9 +5,12 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when a new restaurant is registered in the system.
  */
+@EventType(value = "RestaurantCreated", topic = "restaurant-events")
 public class RestaurantCreatedEvent extends DomainEvent {
     
     private final String name;
@@ -35,11 +38,6 @@ public class RestaurantCreatedEvent extends DomainEvent {
         this.address = address;
     }
 
-    @Override
-    public String getEventType() {
-        return "RestaurantCreated";
-    }
-
     public String getName() { return name; }
     public String getCuisine() { return cuisine; }
     public String getAddress() { return address; }
@@ -5,9 +5,12 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when a new user is created in the system.
  */
+@EventType(value = "UserCreated", topic = "user-events")
 public class UserCreatedEvent extends DomainEvent {
     
     private final String email;
@@ -35,11 +38,6 @@ public class UserCreatedEvent extends DomainEvent {
         this.lastName = lastName;
     }
 
-    @Override
-    public String getEventType() {
-        return "UserCreated";
-    }
-
     public String getEmail() { return email; }
     public String getFirstName() { return firstName; }
     public String getLastName() { return lastName; }
@@ -5,9 +5,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.time.LocalDateTime;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when a user is deactivated in the system.
  */
+@EventType("UserDeactivated")
 public class UserDeactivatedEvent extends DomainEvent {
     
     private final String email;
@@ -31,11 +34,6 @@ public class UserDeactivatedEvent extends DomainEvent {
         this.reason = reason;
     }
 
-    @Override
-    public String getEventType() {
-        return "UserDeactivated";
-    }
-
     public String getEmail() { return email; }
     public String getReason() { return reason; }
 }
\ No newline at end of file
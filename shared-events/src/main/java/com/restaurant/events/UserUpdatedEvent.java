@@ -5,9 +5,12 @@ import java.time.LocalDateTime;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.restaurant.events.registry.EventType;
+
 /**
  * Event published when user profile information is updated.
  */
+@EventType(value = "UserUpdated", topic = "user-events")
 public class UserUpdatedEvent extends DomainEvent {
     
     private final String email;
@@ -35,11 +38,6 @@ public class UserUpdatedEvent extends DomainEvent {
         this.lastName = lastName;
     }
 
-    @Override
-    public String getEventType() {
-        return "UserUpdated";
-    }
-
     public String getEmail() { return email; }
     public String getFirstName() { return firstName; }
     public String getLastName() { return lastName; }
@@ -0,0 +1,53 @@
+package com.restaurant.events.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.restaurant.events.delay.DelayedTaskStore;
+import com.restaurant.events.delay.DurableDelayQueue;
+import com.restaurant.events.delay.MySqlDelayedTaskStore;
+
+/**
+ * The {@link DurableDelayQueue}. Tasks are kept in the application's {@link DelayedTaskStore} bean,
+ * or in MySQL when there is none. Imported by {@link EventInfrastructureConfiguration}; applications
+ * that do not use the rest of the event infrastructure can import it on its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "restaurant.events.delay-queue.enabled", havingValue = "true")
+public class DelayQueueConfiguration {
+
+    @Bean
+    public DurableDelayQueue durableDelayQueue(
+            ObjectProvider<DelayedTaskStore> taskStore,
+            ObjectProvider<DataSource> dataSource,
+            @Value("${restaurant.events.delay-queue.tick:100ms}") Duration tick,
+            @Value("${restaurant.events.delay-queue.wheel-size:64}") int wheelSize,
+            @Value("${restaurant.events.delay-queue.horizon:1m}") Duration horizon,
+            @Value("${restaurant.events.delay-queue.load-interval:5s}") Duration loadInterval,
+            @Value("${restaurant.events.delay-queue.lease:30s}") Duration lease,
+            @Value("${restaurant.events.delay-queue.chunk-size:500}") int chunkSize,
+            @Value("${restaurant.events.delay-queue.max-in-memory:100000}") int maxInMemory,
+            @Value("${restaurant.events.delay-queue.retry-backoff:1s}") Duration retryBackoff,
+            @Value("${restaurant.events.delay-queue.max-retry-backoff:5m}") Duration maxRetryBackoff,
+            @Value("${restaurant.events.delay-queue.worker-threads:4}") int workerThreads) {
+        return new DurableDelayQueue(
+                taskStore.getIfAvailable(() -> new MySqlDelayedTaskStore(dataSource.getObject())),
+                tick,
+                wheelSize,
+                horizon,
+                loadInterval,
+                lease,
+                chunkSize,
+                maxInMemory,
+                retryBackoff,
+                maxRetryBackoff,
+                workerThreads);
+    }
+}
@@ -1,37 +1,87 @@
 package com.restaurant.events.config;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
 import javax.sql.DataSource;
 
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ListenerContainerRegistry;
 
 import com.restaurant.events.deadletter.DefaultDeadLetterQueueHandler;
+import com.restaurant.events.dispatch.EventDispatcher;
+import com.restaurant.events.dispatch.EventDispatcherMetrics;
+import com.restaurant.events.dispatch.EventDispatchingListener;
+import com.restaurant.events.dispatch.EventHandlerBeanPostProcessor;
+import com.restaurant.events.monitoring.PartitionSkewDetector;
+import com.restaurant.events.monitoring.PartitionSkewEndpoint;
+import com.restaurant.events.monitoring.PartitionSkewMetrics;
+import com.restaurant.events.processing.AdaptiveConcurrencyController;
+import com.restaurant.events.processing.CachingIdempotentEventProcessor;
 import com.restaurant.events.processing.DatabaseIdempotentEventProcessor;
+import com.restaurant.events.processing.DeduplicationFilterRebalanceListener;
 import com.restaurant.events.processing.EventProcessor;
+import com.restaurant.events.processing.ExactlyOnceEventProcessor;
+import com.restaurant.events.processing.KeyOrderedParallelProcessor;
+import com.restaurant.events.processing.ParallelEventListener;
+import com.restaurant.events.processing.ProcessedEventBatchWriter;
+import com.restaurant.events.processing.ProcessedEventsPartitionMaintainer;
+import com.restaurant.events.processing.RecentEventIdCache;
+import com.restaurant.events.processing.RotatingBloomFilter;
+import com.restaurant.events.processing.TopicPriorityController;
+import com.restaurant.events.processing.VersionWatermarkEventProcessor;
+import com.restaurant.events.processing.WatermarkRebalanceListener;
 import com.restaurant.events.publisher.DefaultTopicResolver;
 import com.restaurant.events.publisher.KafkaEventPublisher;
+import com.restaurant.events.registry.EventTypeRegistry;
 import com.restaurant.events.serialization.EventSerializer;
 import com.restaurant.events.store.MySqlEventStore;
 import com.restaurant.events.versioning.EventSchemaRegistry;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 /**
  * Configuration class for event infrastructure components. Provides default
  * beans that can be customized or overridden by applications.
  */
 @Configuration
 @ConditionalOnProperty(name = "restaurant.events.enabled", havingValue = "true", matchIfMissing = true)
+@Import(DelayQueueConfiguration.class)
 public class EventInfrastructureConfiguration {
 
+    @Bean
+    public EventTypeRegistry eventTypeRegistry() {
+        return EventTypeRegistry.getDefault();
+    }
+
     @Bean
     public EventSerializer eventSerializer() {
         return new EventSerializer();
     }
 
     @Bean
-    public EventSchemaRegistry eventSchemaRegistry() {
-        return new EventSchemaRegistry();
+    public EventSchemaRegistry eventSchemaRegistry(EventTypeRegistry eventTypeRegistry) {
+        return new EventSchemaRegistry(eventTypeRegistry);
     }
 
     @Bean
@@ -50,10 +100,13 @@ public class EventInfrastructureConfiguration {
     public KafkaEventPublisher eventPublisher(
             KafkaTemplate<String, String> kafkaTemplate,
             EventSerializer eventSerializer,
-            DefaultTopicResolver topicResolver) {
+            DefaultTopicResolver topicResolver,
+            ObjectProvider<PartitionSkewDetector> skewDetector) {
 
         String deadLetterTopic = "restaurant-events-dlq"; // Can be made configurable
-        return new KafkaEventPublisher(kafkaTemplate, eventSerializer, topicResolver, deadLetterTopic);
+        KafkaEventPublisher publisher = new KafkaEventPublisher(kafkaTemplate, eventSerializer, topicResolver, deadLetterTopic);
+        skewDetector.ifAvailable(publisher::setSkewDetector);
+        return publisher;
     }
 
     @Bean
@@ -64,10 +117,286 @@ public class EventInfrastructureConfiguration {
         return new DatabaseIdempotentEventProcessor(dataSource, eventProcessor);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.cache.enabled", havingValue = "true")
+    public ProcessedEventBatchWriter processedEventBatchWriter(
+            DatabaseIdempotentEventProcessor databaseProcessor,
+            @Value("${restaurant.events.idempotency.cache.batch-size:256}") int batchSize,
+            @Value("${restaurant.events.idempotency.cache.flush-interval:50ms}") Duration flushInterval) {
+        return new ProcessedEventBatchWriter(databaseProcessor, batchSize, flushInterval);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.cache.enabled", havingValue = "true")
+    public CachingIdempotentEventProcessor cachingIdempotentEventProcessor(
+            DatabaseIdempotentEventProcessor databaseProcessor,
+            EventProcessor eventProcessor,
+            ProcessedEventBatchWriter batchWriter,
+            @Value("${restaurant.events.idempotency.cache.recent-ids:100000}") int recentIds,
+            @Value("${restaurant.events.idempotency.cache.bloom-insertions:2000000}") int bloomInsertions,
+            @Value("${restaurant.events.idempotency.cache.bloom-fpp:0.01}") double bloomFpp,
+            @Value("${restaurant.events.idempotency.redelivery-horizon:7d}") Duration redeliveryHorizon) {
+        CachingIdempotentEventProcessor processor = new CachingIdempotentEventProcessor(
+                databaseProcessor,
+                eventProcessor,
+                batchWriter,
+                new RecentEventIdCache(recentIds),
+                new RotatingBloomFilter(bloomInsertions, bloomFpp, redeliveryHorizon));
+        processor.warmUp(redeliveryHorizon);
+        return processor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.cache.enabled", havingValue = "true")
+    public DeduplicationFilterRebalanceListener deduplicationFilterRebalanceListener(
+            CachingIdempotentEventProcessor processor,
+            @Value("${restaurant.events.idempotency.redelivery-horizon:7d}") Duration redeliveryHorizon) {
+        return new DeduplicationFilterRebalanceListener(processor, redeliveryHorizon);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.retention.enabled", havingValue = "true")
+    public ProcessedEventsPartitionMaintainer processedEventsPartitionMaintainer(
+            DataSource dataSource,
+            @Value("${restaurant.events.idempotency.redelivery-horizon:7d}") Duration redeliveryHorizon,
+            @Value("${restaurant.events.idempotency.retention.days-ahead:3}") int daysAhead,
+            @Value("${restaurant.events.idempotency.retention.interval:1h}") Duration interval) {
+        return new ProcessedEventsPartitionMaintainer(dataSource, redeliveryHorizon, daysAhead, interval);
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.mode", havingValue = "watermark")
+    public VersionWatermarkEventProcessor versionWatermarkEventProcessor(
+            DataSource dataSource,
+            EventProcessor eventProcessor,
+            DefaultTopicResolver topicResolver,
+            ObjectProvider<DatabaseIdempotentEventProcessor> databaseProcessor,
+            @Value("${spring.application.name:events}") String processorName,
+            @Value("${restaurant.events.idempotency.watermark.gap-policy:WARN}") VersionWatermarkEventProcessor.GapPolicy gapPolicy,
+            @Value("${restaurant.events.idempotency.watermark.expected-aggregates:1000000}") int expectedAggregates,
+            @Value("${restaurant.events.idempotency.watermark.flush-interval:1s}") Duration flushInterval,
+            @Value("${restaurant.events.idempotency.redelivery-horizon:7d}") Duration redeliveryHorizon) {
+        VersionWatermarkEventProcessor processor = new VersionWatermarkEventProcessor(
+                dataSource, eventProcessor, processorName, gapPolicy, topicResolver,
+                // Events known only by ID are deduplicated in processed_events
+                databaseProcessor.getIfAvailable(() -> new DatabaseIdempotentEventProcessor(dataSource, eventProcessor)),
+                expectedAggregates, flushInterval);
+        processor.warmUp(redeliveryHorizon);
+        return processor;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.idempotency.mode", havingValue = "watermark")
+    public WatermarkRebalanceListener watermarkRebalanceListener(
+            VersionWatermarkEventProcessor processor,
+            @Value("${restaurant.events.idempotency.redelivery-horizon:7d}") Duration redeliveryHorizon) {
+        return new WatermarkRebalanceListener(processor, redeliveryHorizon);
+    }
+
+    /**
+     * The transactional producers are closed with the processor. They are deliberately not a
+     * ProducerFactory bean, which would switch off Boot's auto-configured producer factory.
+     * The configured prefix is extended with the host name and a random suffix, so replicas of a
+     * service never share a transactional.id and fence each other.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.exactly-once.enabled", havingValue = "true")
+    public ExactlyOnceEventProcessor exactlyOnceEventProcessor(
+            ProducerFactory<String, String> producerFactory,
+            EventSerializer eventSerializer,
+            DefaultTopicResolver topicResolver,
+            @Value("${restaurant.events.exactly-once.transaction-id-prefix:${spring.application.name:events}-tx-}") String transactionIdPrefix) {
+
+        Map<String, Object> configProps = new HashMap<>(producerFactory.getConfigurationProperties());
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        DefaultKafkaProducerFactory<String, String> transactionalFactory = new DefaultKafkaProducerFactory<>(configProps);
+        transactionalFactory.setTransactionIdPrefix(instanceTransactionIdPrefix(transactionIdPrefix));
+
+        return new ExactlyOnceEventProcessor(new KafkaTemplate<>(transactionalFactory), eventSerializer, topicResolver);
+    }
+
+    private static String instanceTransactionIdPrefix(String prefix) {
+        String host = System.getenv("HOSTNAME");
+        if (host == null || host.isBlank()) {
+            try {
+                host = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                host = "unknown";
+            }
+        }
+        return prefix + host + "-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.parallel.enabled", havingValue = "true")
+    public KeyOrderedParallelProcessor keyOrderedParallelProcessor(
+            EventProcessor eventProcessor,
+            EventSerializer eventSerializer,
+            DefaultDeadLetterQueueHandler deadLetterQueueHandler,
+            @Value("${restaurant.events.parallel.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 2}}") int threads,
+            @Value("${restaurant.events.parallel.virtual-threads:true}") boolean virtualThreads,
+            @Value("${restaurant.events.parallel.max-in-flight:1000}") int maxInFlight,
+            @Value("${restaurant.events.parallel.max-attempts:3}") int maxAttempts,
+            @Value("${restaurant.events.parallel.retry-backoff:100ms}") Duration retryBackoff,
+            @Value("${restaurant.events.parallel.max-retry-backoff:2s}") Duration maxRetryBackoff) {
+        return new KeyOrderedParallelProcessor(
+                eventProcessor,
+                eventSerializer,
+                deadLetterQueueHandler,
+                KeyOrderedParallelProcessor.newWorkerPool(threads, virtualThreads),
+                maxInFlight,
+                maxAttempts,
+                retryBackoff,
+                maxRetryBackoff);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.parallel.enabled", havingValue = "true")
+    public ParallelEventListener parallelEventListener(
+            KeyOrderedParallelProcessor processor,
+            @Value("${restaurant.events.parallel.drain-timeout:10s}") Duration drainTimeout,
+            @Value("${restaurant.events.parallel.idle-commit-interval:1s}") Duration idleCommitInterval) {
+        return new ParallelEventListener(processor, drainTimeout, idleCommitInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.priority.enabled", havingValue = "true")
+    public TopicPriorityController topicPriorityController(
+            ListenerContainerRegistry containerRegistry,
+            @Value("${restaurant.events.priority.topics:}") List<String> topicPriorities,
+            @Value("${restaurant.events.priority.default:0}") int defaultPriority,
+            @Value("${restaurant.events.priority.pause-lag:100}") long pauseLag,
+            @Value("${restaurant.events.priority.resume-lag:10}") long resumeLag,
+            @Value("${restaurant.events.priority.sample-interval:500ms}") Duration sampleInterval) {
+        return new TopicPriorityController(
+                containerRegistry,
+                TopicPriorityController.parsePriorities(topicPriorities),
+                defaultPriority,
+                pauseLag,
+                resumeLag,
+                sampleInterval);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.skew-detection.enabled", havingValue = "true")
+    public PartitionSkewDetector partitionSkewDetector(
+            @Value("${restaurant.events.skew-detection.sketch-capacity:64}") int sketchCapacity,
+            @Value("${restaurant.events.skew-detection.top-keys:10}") int topKeys,
+            @Value("${restaurant.events.skew-detection.window:1m}") Duration window,
+            @Value("${restaurant.events.skew-detection.warn-ratio:3.0}") double warnSkewRatio,
+            ObjectProvider<KafkaAdmin> kafkaAdmin) {
+        PartitionSkewDetector detector = new PartitionSkewDetector(sketchCapacity, topKeys, window, warnSkewRatio);
+        kafkaAdmin.ifAvailable(admin -> detector.setPartitionCounts(
+                topic -> admin.describeTopics(topic).get(topic).partitions().size()));
+        return detector;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.dispatcher.enabled", havingValue = "true")
+    public EventDispatcher eventDispatcher(
+            DefaultDeadLetterQueueHandler deadLetterQueueHandler,
+            @Value("${restaurant.events.dispatcher.max-attempts:3}") int maxAttempts,
+            @Value("${restaurant.events.dispatcher.retry-backoff:100ms}") Duration retryBackoff,
+            @Value("${restaurant.events.dispatcher.max-retry-backoff:2s}") Duration maxRetryBackoff,
+            @Value("${restaurant.events.dispatcher.max-record-backoff:30s}") Duration maxRecordBackoff) {
+        return new EventDispatcher(deadLetterQueueHandler, maxAttempts, retryBackoff, maxRetryBackoff,
+                maxRecordBackoff);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.dispatcher.enabled", havingValue = "true")
+    public static EventHandlerBeanPostProcessor eventHandlerBeanPostProcessor(ObjectProvider<EventDispatcher> dispatcher) {
+        return new EventHandlerBeanPostProcessor(dispatcher, EventTypeRegistry.getDefault());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "restaurant.events.dispatcher.enabled", havingValue = "true")
+    public EventDispatchingListener eventDispatchingListener(
+            EventDispatcher dispatcher,
+            EventSerializer eventSerializer,
+            ConsumerFactory<String, String> consumerFactory,
+            @Value("${restaurant.events.dispatcher.group-id:${spring.application.name}-dispatcher}") String groupId,
+            @Value("${restaurant.events.dispatcher.concurrency:1}") int concurrency) {
+        return new EventDispatchingListener(dispatcher, eventSerializer, consumerFactory, groupId, concurrency);
+    }
+
     @Bean
     public DefaultDeadLetterQueueHandler deadLetterQueueHandler(
             DataSource dataSource,
             EventProcessor eventProcessor) {
         return new DefaultDeadLetterQueueHandler(dataSource, eventProcessor);
     }
+
+    /**
+     * Adaptive listener concurrency. Kept in its own class because Micrometer is an optional dependency.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(name = "restaurant.events.adaptive-concurrency.enabled", havingValue = "true")
+    static class AdaptiveConcurrencyConfiguration {
+
+        @Bean
+        public AdaptiveConcurrencyController adaptiveConcurrencyController(
+                ListenerContainerRegistry containerRegistry,
+                ObjectProvider<MeterRegistry> meterRegistry,
+                @Value("${restaurant.events.adaptive-concurrency.listener-ids:}") List<String> listenerIds,
+                @Value("${restaurant.events.adaptive-concurrency.min:1}") int minConcurrency,
+                @Value("${restaurant.events.adaptive-concurrency.max:6}") int maxConcurrency,
+                @Value("${restaurant.events.adaptive-concurrency.scale-up-lag:1000}") long scaleUpLag,
+                @Value("${restaurant.events.adaptive-concurrency.scale-down-lag:100}") long scaleDownLag,
+                @Value("${restaurant.events.adaptive-concurrency.target-drain-time:30s}") Duration targetDrainTime,
+                @Value("${restaurant.events.adaptive-concurrency.stable-samples:3}") int stableSamples,
+                @Value("${restaurant.events.adaptive-concurrency.cooldown:2m}") Duration cooldown,
+                @Value("${restaurant.events.adaptive-concurrency.sample-interval:15s}") Duration sampleInterval) {
+            return new AdaptiveConcurrencyController(
+                    containerRegistry,
+                    meterRegistry.getIfAvailable(SimpleMeterRegistry::new),
+                    new HashSet<>(listenerIds),
+                    minConcurrency,
+                    maxConcurrency,
+                    scaleUpLag,
+                    scaleDownLag,
+                    targetDrainTime,
+                    stableSamples,
+                    cooldown,
+                    sampleInterval);
+        }
+    }
+
+    /**
+     * Metrics and actuator endpoint for partition skew detection.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(name = "restaurant.events.skew-detection.enabled", havingValue = "true")
+    static class PartitionSkewMonitoringConfiguration {
+
+        @Bean
+        public PartitionSkewMetrics partitionSkewMetrics(PartitionSkewDetector detector) {
+            return new PartitionSkewMetrics(detector);
+        }
+
+        @Bean
+        @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+        public PartitionSkewEndpoint partitionSkewEndpoint(PartitionSkewDetector detector) {
+            return new PartitionSkewEndpoint(detector);
+        }
+    }
+
+    /**
+     * Per-handler metrics of the in-process event dispatcher.
+     */
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    @ConditionalOnProperty(name = "restaurant.events.dispatcher.enabled", havingValue = "true")
+    static class EventDispatcherMonitoringConfiguration {
+
+        @Bean
+        public EventDispatcherMetrics eventDispatcherMetrics(EventDispatcher dispatcher) {
+            return new EventDispatcherMetrics(dispatcher);
+        }
+    }
 }
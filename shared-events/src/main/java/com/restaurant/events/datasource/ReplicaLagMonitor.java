@@ -0,0 +1,128 @@
+package com.restaurant.events.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically reads the replication lag of a MySQL replica.
+ * <p>
+ * The replica is usable while replication is running and {@code Seconds_Behind_Source} is within the
+ * allowed lag. A stopped replication thread, an unreachable replica or a lag above the limit make it
+ * unusable until a later check sees it caught up, so reads fall back to the primary meanwhile.
+ * A server that reports no replication status at all is not a replica and is unusable as well, unless
+ * single-node mode is allowed, in which case it counts as caught up.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final String name;
+    private final DataSource replica;
+    private final long maxLagSeconds;
+    private final boolean allowSingleNode;
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean usable;
+    private volatile long lagSeconds = -1;
+
+    /**
+     * @param allowSingleNode whether a server without replication status, such as the primary itself in a
+     *                        single-node setup, may take reads as if it were a caught-up replica
+     */
+    public ReplicaLagMonitor(String name, DataSource replica, Duration maxLag, Duration checkInterval,
+                             boolean allowSingleNode) {
+        this.name = name;
+        this.replica = replica;
+        this.maxLagSeconds = maxLag.getSeconds();
+        this.allowSingleNode = allowSingleNode;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = checkInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::check, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Whether read-only work may currently go to the replica.
+     */
+    public boolean isUsable() {
+        return usable;
+    }
+
+    /**
+     * Gets the last measured lag in seconds, or -1 if it is unknown.
+     */
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    void check() {
+        long lag;
+        try {
+            lag = readLag();
+        } catch (Exception e) {
+            logger.debug("Failed to read replication lag of {}", name, e);
+            lag = -1;
+        }
+        lagSeconds = lag;
+        boolean nowUsable = lag >= 0 && lag <= maxLagSeconds;
+        if (nowUsable != usable) {
+            if (nowUsable) {
+                logger.info("Replica {} is caught up ({}s behind), routing reads to it", name, lag);
+            } else {
+                logger.warn("Replica {} is {}, routing reads to the primary", name,
+                    lag < 0 ? "not replicating" : lag + "s behind");
+            }
+        }
+        usable = nowUsable;
+    }
+
+    private long readLag() throws SQLException {
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            ResultSet status;
+            try {
+                status = statement.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                // MySQL before 8.0.22
+                status = statement.executeQuery("SHOW SLAVE STATUS");
+            }
+            try (ResultSet rows = status) {
+                if (!rows.next()) {
+                    // Not configured as a replica; only a single-node setup points both pools at one server
+                    return allowSingleNode ? 0 : -1;
+                }
+                Object lag = column(rows, "Seconds_Behind_Source", "Seconds_Behind_Master");
+                return lag != null ? Long.parseLong(lag.toString()) : -1;
+            }
+        }
+    }
+
+    private static Object column(ResultSet rows, String name, String legacyName) throws SQLException {
+        try {
+            return rows.getObject(name);
+        } catch (SQLException e) {
+            return rows.getObject(legacyName);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
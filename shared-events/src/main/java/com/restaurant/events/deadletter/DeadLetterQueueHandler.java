@@ -16,6 +16,15 @@ public interface DeadLetterQueueHandler {
      */
     void handleFailedEvent(DomainEvent failedEvent, String failureReason, int attemptCount);
     
+    /**
+     * Handles a consumed record that could not be deserialized into an event.
+     * 
+     * @param source where the record was consumed, as topic-partition@offset
+     * @param payload the raw record value
+     * @param failureReason the reason deserialization failed
+     */
+    void handleUndeserializableRecord(String source, String payload, String failureReason);
+    
     /**
      * Attempts to reprocess a failed event.
      * 
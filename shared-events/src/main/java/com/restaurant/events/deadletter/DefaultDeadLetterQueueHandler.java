@@ -24,6 +24,8 @@ public class DefaultDeadLetterQueueHandler implements DeadLetterQueueHandler {
     private static final String INSERT_FAILED_EVENT_SQL = 
         "INSERT INTO failed_events (event_id, event_type, event_data, failure_reason, attempt_count, failed_at) VALUES (?, ?, ?, ?, ?, ?)";
     
+    private static final String UNDESERIALIZABLE_EVENT_TYPE = "UNDESERIALIZABLE";
+    
     private static final String UPDATE_FAILED_EVENT_SQL = 
         "UPDATE failed_events SET attempt_count = ?, failure_reason = ?, failed_at = ? WHERE event_id = ?";
     
@@ -51,6 +53,25 @@ public class DefaultDeadLetterQueueHandler implements DeadLetterQueueHandler {
         }
     }
     
+    @Override
+    public void handleUndeserializableRecord(String source, String payload, String failureReason) {
+        try {
+            logger.error("Handling undeserializable record {}. Reason: {}", source, failureReason);
+            
+            // Stored under its position, it cannot be reprocessed as an event
+            jdbcTemplate.update(INSERT_FAILED_EVENT_SQL,
+                source,
+                UNDESERIALIZABLE_EVENT_TYPE,
+                payload != null ? payload : "",
+                failureReason,
+                1,
+                LocalDateTime.now());
+            
+        } catch (Exception e) {
+            logger.error("Failed to store undeserializable record {}", source, e);
+        }
+    }
+    
     @Override
     public boolean reprocessEvent(DomainEvent failedEvent) {
         try {
@@ -0,0 +1,15 @@
+package com.restaurant.events.delay;
+
+/**
+ * Exception thrown when delay queue store operations fail.
+ */
+public class DelayQueueException extends RuntimeException {
+
+    public DelayQueueException(String message) {
+        super(message);
+    }
+
+    public DelayQueueException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,54 @@
+package com.restaurant.events.delay;
+
+import java.time.Instant;
+
+/**
+ * A unit of work that should run at a given time, e.g. expiring a cart or timing out an order.
+ * The payload is an opaque string, usually an aggregate ID or a small JSON document.
+ */
+public class DelayedTask {
+
+    private final String taskId;
+    private final String taskType;
+    private final String payload;
+    private final Instant dueAt;
+    private final int attempts;
+
+    public DelayedTask(String taskId, String taskType, String payload, Instant dueAt, int attempts) {
+        this.taskId = taskId;
+        this.taskType = taskType;
+        this.payload = payload;
+        this.dueAt = dueAt;
+        this.attempts = attempts;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getTaskType() {
+        return taskType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "DelayedTask{" +
+                "taskId='" + taskId + '\'' +
+                ", taskType='" + taskType + '\'' +
+                ", dueAt=" + dueAt +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,11 @@
+package com.restaurant.events.delay;
+
+/**
+ * Handles due tasks of one task type. Tasks are delivered at least once, so handlers must be idempotent.
+ * Throwing schedules a retry with backoff.
+ */
+@FunctionalInterface
+public interface DelayedTaskHandler {
+
+    void handle(DelayedTask task) throws Exception;
+}
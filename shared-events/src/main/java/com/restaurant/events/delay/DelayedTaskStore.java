@@ -0,0 +1,66 @@
+package com.restaurant.events.delay;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Durable storage for delayed tasks.
+ * <p>
+ * A task is owned by at most one node at a time through a lease. Only unleased tasks, or tasks whose
+ * lease has expired because their owner died, can be claimed, which is what makes the queue safe to run
+ * on several instances of a service.
+ */
+public interface DelayedTaskStore {
+
+    /**
+     * Saves a new task, optionally already leased to the calling node.
+     *
+     * @param task the task to save
+     * @param leaseOwner the owning node, or null to leave the task unleased
+     * @param leaseUntil the lease expiry, ignored when leaseOwner is null
+     */
+    void save(DelayedTask task, String leaseOwner, Instant leaseUntil);
+
+    /**
+     * Leases the earliest unleased tasks due before the given time.
+     *
+     * @param taskTypes the task types the caller can handle
+     * @param dueBefore upper bound on the due time (inclusive)
+     * @param limit maximum number of tasks to claim
+     * @param leaseOwner the claiming node
+     * @param leaseUntil the lease expiry
+     * @param now the current time, used to detect expired leases
+     * @return the claimed tasks ordered by due time
+     */
+    List<DelayedTask> claimDue(Collection<String> taskTypes, Instant dueBefore, int limit,
+            String leaseOwner, Instant leaseUntil, Instant now);
+
+    /**
+     * Extends the leases of the given tasks, as far as the node still holds them.
+     * Tasks the node is not working on are left to expire, so they are claimed again.
+     */
+    void renewLeases(String leaseOwner, Collection<String> taskIds, Instant leaseUntil);
+
+    /**
+     * Releases all leases held by a node so other nodes can claim its tasks right away.
+     */
+    void releaseLeases(String leaseOwner);
+
+    /**
+     * Removes a task that was handled successfully.
+     */
+    void complete(String taskId);
+
+    /**
+     * Unleases a failed task and moves it to a later due time.
+     */
+    void retry(String taskId, Instant dueAt, int attempts);
+
+    /**
+     * Removes a task that is no longer needed.
+     *
+     * @return true if the task existed
+     */
+    boolean cancel(String taskId);
+}
@@ -0,0 +1,285 @@
+package com.restaurant.events.delay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Durable "do X at time T" queue for cart expiry, order timeouts, payment re-checks and retry backoff.
+ * <p>
+ * Every task lives in a {@link DelayedTaskStore}. Only tasks due within the loading horizon are claimed,
+ * in due-time order and in chunks, and held in a {@link HierarchicalTimingWheel}; tasks further out cost a
+ * row in the store and nothing in memory. Claimed tasks are leased to this node and the leases are renewed
+ * while it holds or runs them, so if the node dies another instance picks its tasks up once the leases expire.
+ * A task that could be neither completed nor rescheduled is no longer renewed, so its lease expires too.
+ * <p>
+ * A task is removed from the store only after its handler succeeded, so delivery is at least once. A failed
+ * handler reschedules its task with exponential backoff.
+ */
+public class DurableDelayQueue implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurableDelayQueue.class);
+
+    private final DelayedTaskStore store;
+    private final String owner;
+    private final Duration horizon;
+    private final Duration lease;
+    private final int chunkSize;
+    private final int maxInMemory;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+
+    private final Map<String, DelayedTaskHandler> handlers = new ConcurrentHashMap<>();
+    // Tasks held in the wheel; a task missing here when it fires was cancelled
+    private final Map<String, DelayedTask> held = new ConcurrentHashMap<>();
+    // Tasks taken off the wheel whose handler is running
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final HierarchicalTimingWheel<DelayedTask> wheel;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService workers;
+    private volatile Instant loadedUntil = Instant.EPOCH;
+
+    public DurableDelayQueue(DelayedTaskStore store,
+            Duration tick,
+            int wheelSize,
+            Duration horizon,
+            Duration loadInterval,
+            Duration lease,
+            int chunkSize,
+            int maxInMemory,
+            Duration retryBackoff,
+            Duration maxRetryBackoff,
+            int workerThreads) {
+        if (lease.compareTo(loadInterval) <= 0) {
+            throw new IllegalArgumentException("Lease must be longer than the load interval");
+        }
+        this.store = store;
+        this.owner = UUID.randomUUID().toString();
+        this.horizon = horizon;
+        this.lease = lease;
+        this.chunkSize = chunkSize;
+        this.maxInMemory = maxInMemory;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.wheel = new HierarchicalTimingWheel<>(tick.toMillis(), wheelSize, System.currentTimeMillis());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "delay-queue");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "delay-queue-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long tickMillis = tick.toMillis();
+        long loadMillis = loadInterval.toMillis();
+        long renewMillis = Math.max(1, lease.toMillis() / 3);
+        this.scheduler.scheduleAtFixedRate(this::tickQuietly, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        this.scheduler.scheduleWithFixedDelay(this::loadQuietly, 0, loadMillis, TimeUnit.MILLISECONDS);
+        this.scheduler.scheduleWithFixedDelay(this::renewQuietly, renewMillis, renewMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Registers the handler for a task type. This node only claims task types it has handlers for.
+     *
+     * @param taskType the task type
+     * @param handler the handler
+     */
+    public void registerHandler(String taskType, DelayedTaskHandler handler) {
+        handlers.put(taskType, handler);
+    }
+
+    /**
+     * Schedules a task.
+     *
+     * @param taskType the task type
+     * @param payload the task payload
+     * @param dueAt when the task should run
+     * @return the task ID, usable for cancellation
+     */
+    public String schedule(String taskType, String payload, Instant dueAt) {
+        DelayedTask task = new DelayedTask(UUID.randomUUID().toString(), taskType, payload, dueAt, 0);
+
+        // Tasks inside the loaded range would otherwise wait for the next load, so hold them right away
+        if (handlers.containsKey(taskType) && !dueAt.isAfter(loadedUntil) && held.size() < maxInMemory) {
+            store.save(task, owner, Instant.now().plus(lease));
+            hold(task);
+        } else {
+            store.save(task, null, null);
+        }
+        logger.debug("Scheduled {}", task);
+        return task.getTaskId();
+    }
+
+    /**
+     * Cancels a task. A task that is already being handled may still complete.
+     *
+     * @param taskId the task ID
+     * @return true if the task was still pending
+     */
+    public boolean cancel(String taskId) {
+        held.remove(taskId);
+        return store.cancel(taskId);
+    }
+
+    public int getHeldCount() {
+        return held.size();
+    }
+
+    /**
+     * Fires all held tasks that are due.
+     */
+    public void tick() {
+        List<DelayedTask> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(System.currentTimeMillis(), due::add);
+        }
+        for (DelayedTask task : due) {
+            if (held.containsKey(task.getTaskId())) {
+                execute(task);
+            }
+        }
+    }
+
+    /**
+     * Claims tasks due within the horizon, chunk by chunk, until the in-memory limit is reached.
+     */
+    public void load() {
+        Set<String> taskTypes = Set.copyOf(handlers.keySet());
+        if (taskTypes.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant horizonEnd = now.plus(horizon);
+        Instant leaseUntil = now.plus(lease);
+        while (true) {
+            int limit = Math.min(chunkSize, maxInMemory - held.size());
+            if (limit <= 0) {
+                return;
+            }
+            List<DelayedTask> chunk = store.claimDue(taskTypes, horizonEnd, limit, owner, leaseUntil, now);
+            chunk.forEach(this::hold);
+            if (chunk.size() < limit) {
+                loadedUntil = horizonEnd;
+                return;
+            }
+            // Tasks past the last one claimed are still in the store only
+            loadedUntil = chunk.get(chunk.size() - 1).getDueAt();
+            logger.debug("Loaded {} delayed tasks up to {}", chunk.size(), loadedUntil);
+        }
+    }
+
+    private void hold(DelayedTask task) {
+        held.put(task.getTaskId(), task);
+        boolean added;
+        synchronized (wheel) {
+            added = wheel.add(task.getDueAt().toEpochMilli(), task);
+        }
+        if (!added) {
+            execute(task);
+        }
+    }
+
+    private void execute(DelayedTask task) {
+        // In flight before it leaves the held tasks, so its lease is renewed without a gap
+        inFlight.add(task.getTaskId());
+        if (held.remove(task.getTaskId()) == null) {
+            inFlight.remove(task.getTaskId());
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                fire(task);
+            } finally {
+                inFlight.remove(task.getTaskId());
+            }
+        });
+    }
+
+    private void fire(DelayedTask task) {
+        DelayedTaskHandler handler = handlers.get(task.getTaskType());
+        try {
+            handler.handle(task);
+        } catch (Exception e) {
+            int attempts = task.getAttempts() + 1;
+            long backoffMillis = Math.min(maxRetryBackoff.toMillis(),
+                retryBackoff.toMillis() << Math.min(attempts - 1, 30));
+            logger.warn("Delayed task {} failed on attempt {}, retrying in {}ms", task, attempts, backoffMillis, e);
+            try {
+                store.retry(task.getTaskId(), Instant.now().plusMillis(backoffMillis), attempts);
+            } catch (Exception retryFailure) {
+                // No longer renewed, the lease expires and the task is claimed again
+                logger.error("Failed to reschedule delayed task {}", task.getTaskId(), retryFailure);
+            }
+            return;
+        }
+        try {
+            store.complete(task.getTaskId());
+            logger.debug("Completed {}", task);
+        } catch (Exception e) {
+            // No longer renewed, the lease expires and the task runs again: delivery is at least once
+            logger.error("Failed to complete delayed task {}", task.getTaskId(), e);
+        }
+    }
+
+    private void tickQuietly() {
+        try {
+            tick();
+        } catch (Exception e) {
+            logger.error("Failed to fire delayed tasks", e);
+        }
+    }
+
+    private void loadQuietly() {
+        try {
+            load();
+        } catch (Exception e) {
+            logger.error("Failed to load delayed tasks", e);
+        }
+    }
+
+    private void renewQuietly() {
+        try {
+            Set<String> taskIds = new HashSet<>(held.keySet());
+            taskIds.addAll(inFlight);
+            store.renewLeases(owner, taskIds, Instant.now().plus(lease));
+        } catch (Exception e) {
+            logger.error("Failed to renew delayed task leases", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        try {
+            store.releaseLeases(owner);
+        } catch (Exception e) {
+            logger.warn("Failed to release delayed task leases on shutdown, they will expire", e);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.restaurant.events.delay;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel holding items until their expiration time.
+ * <p>
+ * Level 0 has {@code wheelSize} buckets of one tick each; every higher level has buckets as wide as the
+ * whole level below it, so adding an item and advancing one tick are both O(1) no matter how far ahead
+ * items expire. Items in a higher level cascade down once their bucket's time range begins, and an item
+ * fires on the first tick boundary at or after its expiration, i.e. at most one tick late and never early.
+ * <p>
+ * Not thread-safe; callers serialize access.
+ *
+ * @param <T> the item type
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("Tick must be positive and wheel size at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+        levels.add(new Level<>(tickMillis, wheelSize, currentTime));
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param expirationMillis when the item is due, in epoch milliseconds
+     * @param item the item
+     * @return false if the item is already due and was not added
+     */
+    public boolean add(long expirationMillis, T item) {
+        if (expirationMillis < currentTime) {
+            return false;
+        }
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                Level<T> top = levels.get(i - 1);
+                long tick = top.tick * wheelSize;
+                levels.add(new Level<>(tick, wheelSize, currentTime - Math.floorMod(currentTime, tick)));
+            }
+            Level<T> level = levels.get(i);
+            if (expirationMillis < level.currentTime + level.tick * wheelSize) {
+                level.bucket(expirationMillis).add(new Entry<>(expirationMillis, item));
+                size++;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time and hands every item that became due to the sink.
+     *
+     * @param nowMillis the current time in epoch milliseconds
+     * @param expired receives due items
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        while (currentTime + tickMillis <= nowMillis) {
+            currentTime += tickMillis;
+
+            // Move every level's clock first so cascaded items are placed against the new times
+            int levelCount = levels.size();
+            boolean[] moved = new boolean[levelCount];
+            for (int i = 0; i < levelCount; i++) {
+                Level<T> level = levels.get(i);
+                long levelTime = currentTime - Math.floorMod(currentTime, level.tick);
+                moved[i] = levelTime != level.currentTime;
+                level.currentTime = levelTime;
+            }
+
+            // Cascade higher levels first, so their items land in lower buckets before those are drained
+            for (int i = levelCount - 1; i > 0; i--) {
+                if (moved[i]) {
+                    Level<T> level = levels.get(i);
+                    drain(level.bucket(level.currentTime), expired);
+                }
+            }
+
+            // Level 0 drains the tick that just ended, so nothing fires before its expiration
+            drain(levels.get(0).bucket(currentTime - tickMillis), expired);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void drain(List<Entry<T>> bucket, Consumer<T> expired) {
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Entry<T>> entries = new ArrayList<>(bucket);
+        bucket.clear();
+        size -= entries.size();
+        for (Entry<T> entry : entries) {
+            if (!add(entry.expiration, entry.item)) {
+                expired.accept(entry.item);
+            }
+        }
+    }
+
+    private static final class Level<T> {
+        final long tick;
+        final List<Entry<T>>[] buckets;
+        long currentTime;
+
+        @SuppressWarnings("unchecked")
+        Level(long tick, int wheelSize, long currentTime) {
+            this.tick = tick;
+            this.buckets = new List[wheelSize];
+            this.currentTime = currentTime;
+        }
+
+        List<Entry<T>> bucket(long time) {
+            int index = (int) Math.floorMod(Math.floorDiv(time, tick), (long) buckets.length);
+            if (buckets[index] == null) {
+                buckets[index] = new ArrayList<>();
+            }
+            return buckets[index];
+        }
+    }
+
+    private static final class Entry<T> {
+        final long expiration;
+        final T item;
+
+        Entry(long expiration, T item) {
+            this.expiration = expiration;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.restaurant.events.delay;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+/**
+ * MongoDB implementation of DelayedTaskStore for services without a relational database.
+ * <p>
+ * MongoDB cannot update a limited, sorted set of documents in one statement, so candidates are read
+ * in due order first and each is then claimed with a conditional findAndModify. A candidate taken by
+ * another node in between simply fails its condition and is skipped.
+ */
+public class MongoDelayedTaskStore implements DelayedTaskStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoDelayedTaskStore.class);
+
+    private static final String COLLECTION_NAME = "delayed_tasks";
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoDelayedTaskStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        mongoTemplate.indexOps(COLLECTION_NAME)
+            .ensureIndex(new Index().on("taskType", Sort.Direction.ASC).on("dueAt", Sort.Direction.ASC));
+        mongoTemplate.indexOps(COLLECTION_NAME)
+            .ensureIndex(new Index().on("leaseOwner", Sort.Direction.ASC));
+    }
+
+    @Override
+    public void save(DelayedTask task, String leaseOwner, Instant leaseUntil) {
+        try {
+            Document document = new Document("_id", task.getTaskId())
+                .append("taskType", task.getTaskType())
+                .append("payload", task.getPayload())
+                .append("dueAt", Date.from(task.getDueAt()))
+                .append("attempts", task.getAttempts())
+                .append("leaseOwner", leaseOwner)
+                .append("leaseUntil", leaseOwner != null ? Date.from(leaseUntil) : null);
+            mongoTemplate.insert(document, COLLECTION_NAME);
+        } catch (Exception e) {
+            logger.error("Failed to save delayed task {}", task, e);
+            throw new DelayQueueException("Failed to save delayed task: " + task.getTaskId(), e);
+        }
+    }
+
+    @Override
+    public List<DelayedTask> claimDue(Collection<String> taskTypes, Instant dueBefore, int limit,
+            String leaseOwner, Instant leaseUntil, Instant now) {
+        if (taskTypes.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            Criteria claimable = new Criteria().orOperator(
+                Criteria.where("leaseUntil").is(null),
+                Criteria.where("leaseUntil").lt(Date.from(now)));
+            Query candidates = new Query(new Criteria().andOperator(
+                    Criteria.where("taskType").in(taskTypes),
+                    Criteria.where("dueAt").lte(Date.from(dueBefore)),
+                    claimable))
+                .with(Sort.by(Sort.Direction.ASC, "dueAt"))
+                .limit(limit);
+            candidates.fields().include("_id");
+
+            Update lease = new Update()
+                .set("leaseOwner", leaseOwner)
+                .set("leaseUntil", Date.from(leaseUntil));
+            List<DelayedTask> claimed = new ArrayList<>();
+            for (Document candidate : mongoTemplate.find(candidates, Document.class, COLLECTION_NAME)) {
+                Query claim = new Query(new Criteria().andOperator(
+                    Criteria.where("_id").is(candidate.get("_id")),
+                    claimable));
+                Document document = mongoTemplate.findAndModify(claim, lease,
+                    FindAndModifyOptions.options().returnNew(true), Document.class, COLLECTION_NAME);
+                if (document != null) {
+                    claimed.add(toTask(document));
+                }
+            }
+            return claimed;
+        } catch (Exception e) {
+            logger.error("Failed to claim delayed tasks due before {}", dueBefore, e);
+            throw new DelayQueueException("Failed to claim delayed tasks", e);
+        }
+    }
+
+    @Override
+    public void renewLeases(String leaseOwner, Collection<String> taskIds, Instant leaseUntil) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        try {
+            mongoTemplate.updateMulti(new Query(Criteria.where("leaseOwner").is(leaseOwner).and("_id").in(taskIds)),
+                new Update().set("leaseUntil", Date.from(leaseUntil)), COLLECTION_NAME);
+        } catch (Exception e) {
+            logger.error("Failed to renew delayed task leases of {}", leaseOwner, e);
+            throw new DelayQueueException("Failed to renew delayed task leases", e);
+        }
+    }
+
+    @Override
+    public void releaseLeases(String leaseOwner) {
+        try {
+            mongoTemplate.updateMulti(new Query(Criteria.where("leaseOwner").is(leaseOwner)),
+                new Update().set("leaseOwner", null).set("leaseUntil", null), COLLECTION_NAME);
+        } catch (Exception e) {
+            logger.error("Failed to release delayed task leases of {}", leaseOwner, e);
+            throw new DelayQueueException("Failed to release delayed task leases", e);
+        }
+    }
+
+    @Override
+    public void complete(String taskId) {
+        try {
+            mongoTemplate.remove(new Query(Criteria.where("_id").is(taskId)), COLLECTION_NAME);
+        } catch (Exception e) {
+            logger.error("Failed to complete delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to complete delayed task: " + taskId, e);
+        }
+    }
+
+    @Override
+    public void retry(String taskId, Instant dueAt, int attempts) {
+        try {
+            mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(taskId)),
+                new Update()
+                    .set("dueAt", Date.from(dueAt))
+                    .set("attempts", attempts)
+                    .set("leaseOwner", null)
+                    .set("leaseUntil", null),
+                COLLECTION_NAME);
+        } catch (Exception e) {
+            logger.error("Failed to reschedule delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to reschedule delayed task: " + taskId, e);
+        }
+    }
+
+    @Override
+    public boolean cancel(String taskId) {
+        try {
+            return mongoTemplate.remove(new Query(Criteria.where("_id").is(taskId)), COLLECTION_NAME).getDeletedCount() > 0;
+        } catch (Exception e) {
+            logger.error("Failed to cancel delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to cancel delayed task: " + taskId, e);
+        }
+    }
+
+    private static DelayedTask toTask(Document document) {
+        return new DelayedTask(
+            document.getString("_id"),
+            document.getString("taskType"),
+            document.getString("payload"),
+            document.getDate("dueAt").toInstant(),
+            document.getInteger("attempts", 0));
+    }
+}
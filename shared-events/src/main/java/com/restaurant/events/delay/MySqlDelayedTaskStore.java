@@ -0,0 +1,173 @@
+package com.restaurant.events.delay;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * MySQL implementation of DelayedTaskStore backed by the delayed_tasks table.
+ * <p>
+ * Claiming is a single {@code UPDATE ... ORDER BY due_at LIMIT n} that stamps a fresh claim token,
+ * followed by a select on that token, so concurrent nodes never claim the same row and no explicit
+ * transaction is needed.
+ */
+public class MySqlDelayedTaskStore implements DelayedTaskStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MySqlDelayedTaskStore.class);
+
+    private static final String INSERT_TASK_SQL =
+        "INSERT INTO delayed_tasks (task_id, task_type, payload, due_at, attempts, lease_owner, lease_until) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CLAIM_DUE_TASKS_SQL =
+        "UPDATE delayed_tasks SET lease_owner = ?, lease_until = ?, claim_token = ? " +
+        "WHERE task_type IN (%s) AND due_at <= ? AND (lease_until IS NULL OR lease_until < ?) " +
+        "ORDER BY due_at LIMIT ?";
+
+    private static final String SELECT_CLAIMED_TASKS_SQL =
+        "SELECT task_id, task_type, payload, due_at, attempts FROM delayed_tasks WHERE claim_token = ? ORDER BY due_at";
+
+    private static final String RENEW_LEASES_SQL =
+        "UPDATE delayed_tasks SET lease_until = ? WHERE lease_owner = ? AND task_id IN (%s)";
+
+    private static final int MAX_IDS_PER_STATEMENT = 1000;
+
+    private static final String RELEASE_LEASES_SQL =
+        "UPDATE delayed_tasks SET lease_owner = NULL, lease_until = NULL, claim_token = NULL WHERE lease_owner = ?";
+
+    private static final String DELETE_TASK_SQL =
+        "DELETE FROM delayed_tasks WHERE task_id = ?";
+
+    private static final String RETRY_TASK_SQL =
+        "UPDATE delayed_tasks SET due_at = ?, attempts = ?, lease_owner = NULL, lease_until = NULL, claim_token = NULL " +
+        "WHERE task_id = ?";
+
+    private static final RowMapper<DelayedTask> TASK_ROW_MAPPER = (rs, rowNum) -> new DelayedTask(
+        rs.getString("task_id"),
+        rs.getString("task_type"),
+        rs.getString("payload"),
+        rs.getTimestamp("due_at").toInstant(),
+        rs.getInt("attempts"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MySqlDelayedTaskStore(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void save(DelayedTask task, String leaseOwner, Instant leaseUntil) {
+        try {
+            jdbcTemplate.update(INSERT_TASK_SQL,
+                task.getTaskId(),
+                task.getTaskType(),
+                task.getPayload(),
+                Timestamp.from(task.getDueAt()),
+                task.getAttempts(),
+                leaseOwner,
+                leaseOwner != null ? Timestamp.from(leaseUntil) : null);
+        } catch (Exception e) {
+            logger.error("Failed to save delayed task {}", task, e);
+            throw new DelayQueueException("Failed to save delayed task: " + task.getTaskId(), e);
+        }
+    }
+
+    @Override
+    public List<DelayedTask> claimDue(Collection<String> taskTypes, Instant dueBefore, int limit,
+            String leaseOwner, Instant leaseUntil, Instant now) {
+        if (taskTypes.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        try {
+            String claimToken = UUID.randomUUID().toString();
+            List<Object> args = new ArrayList<>();
+            args.add(leaseOwner);
+            args.add(Timestamp.from(leaseUntil));
+            args.add(claimToken);
+            args.addAll(taskTypes);
+            args.add(Timestamp.from(dueBefore));
+            args.add(Timestamp.from(now));
+            args.add(limit);
+
+            String placeholders = String.join(", ", Collections.nCopies(taskTypes.size(), "?"));
+            int claimed = jdbcTemplate.update(String.format(CLAIM_DUE_TASKS_SQL, placeholders), args.toArray());
+            if (claimed == 0) {
+                return Collections.emptyList();
+            }
+            return jdbcTemplate.query(SELECT_CLAIMED_TASKS_SQL, TASK_ROW_MAPPER, claimToken);
+        } catch (Exception e) {
+            logger.error("Failed to claim delayed tasks due before {}", dueBefore, e);
+            throw new DelayQueueException("Failed to claim delayed tasks", e);
+        }
+    }
+
+    @Override
+    public void renewLeases(String leaseOwner, Collection<String> taskIds, Instant leaseUntil) {
+        try {
+            List<String> ids = new ArrayList<>(taskIds);
+            for (int from = 0; from < ids.size(); from += MAX_IDS_PER_STATEMENT) {
+                List<String> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_IDS_PER_STATEMENT));
+                List<Object> args = new ArrayList<>(chunk.size() + 2);
+                args.add(Timestamp.from(leaseUntil));
+                args.add(leaseOwner);
+                args.addAll(chunk);
+                String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+                jdbcTemplate.update(String.format(RENEW_LEASES_SQL, placeholders), args.toArray());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to renew delayed task leases of {}", leaseOwner, e);
+            throw new DelayQueueException("Failed to renew delayed task leases", e);
+        }
+    }
+
+    @Override
+    public void releaseLeases(String leaseOwner) {
+        try {
+            jdbcTemplate.update(RELEASE_LEASES_SQL, leaseOwner);
+        } catch (Exception e) {
+            logger.error("Failed to release delayed task leases of {}", leaseOwner, e);
+            throw new DelayQueueException("Failed to release delayed task leases", e);
+        }
+    }
+
+    @Override
+    public void complete(String taskId) {
+        try {
+            jdbcTemplate.update(DELETE_TASK_SQL, taskId);
+        } catch (Exception e) {
+            logger.error("Failed to complete delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to complete delayed task: " + taskId, e);
+        }
+    }
+
+    @Override
+    public void retry(String taskId, Instant dueAt, int attempts) {
+        try {
+            jdbcTemplate.update(RETRY_TASK_SQL, Timestamp.from(dueAt), attempts, taskId);
+        } catch (Exception e) {
+            logger.error("Failed to reschedule delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to reschedule delayed task: " + taskId, e);
+        }
+    }
+
+    @Override
+    public boolean cancel(String taskId) {
+        try {
+            return jdbcTemplate.update(DELETE_TASK_SQL, taskId) > 0;
+        } catch (Exception e) {
+            logger.error("Failed to cancel delayed task {}", taskId, e);
+            throw new DelayQueueException("Failed to cancel delayed task: " + taskId, e);
+        }
+    }
+}
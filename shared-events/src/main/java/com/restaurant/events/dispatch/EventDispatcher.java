@@ -0,0 +1,247 @@
+package com.restaurant.events.dispatch;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.deadletter.DeadLetterQueueHandler;
+
+/**
+ * Dispatches decoded events to every handler registered for their class and the topic they were consumed from.
+ * <p>
+ * Handlers are isolated from each other: a failing handler is retried on its own up to the configured
+ * attempts, with exponential backoff between them, and then handed to the dead letter queue handler, while
+ * the remaining handlers still run and the record is not redelivered. A handler therefore only sees an event
+ * again through its own retries. A failure of the dead letter queue handler itself is logged and does not
+ * stop the remaining handlers.
+ * <p>
+ * Backoff runs on the consumer thread, so the waits of all handlers of one record together are capped at
+ * the maximum record backoff; once it is used up, failing handlers get no further attempts. Together with
+ * the handlers' own run time it must stay well below the consumer's {@code max.poll.interval.ms}.
+ */
+public class EventDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatcher.class);
+
+    private final DeadLetterQueueHandler deadLetterQueueHandler;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+    private final long maxRecordBackoffMillis;
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+    private final Map<String, Map<Class<?>, List<Registration>>> resolved = new ConcurrentHashMap<>();
+    private final List<DispatchObserver> observers = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param deadLetterQueueHandler receives events a handler failed on, may be null to only log them
+     * @param maxAttempts attempts per handler and event
+     * @param retryBackoff wait before the first retry, doubled for every further one
+     * @param maxRetryBackoff upper bound of the wait between retries
+     * @param maxRecordBackoff upper bound of all waits for one record, across its handlers
+     */
+    public EventDispatcher(DeadLetterQueueHandler deadLetterQueueHandler, int maxAttempts,
+            Duration retryBackoff, Duration maxRetryBackoff, Duration maxRecordBackoff) {
+        this.deadLetterQueueHandler = deadLetterQueueHandler;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoff.toMillis());
+        this.maxRetryBackoffMillis = Math.max(retryBackoffMillis, maxRetryBackoff.toMillis());
+        this.maxRecordBackoffMillis = Math.max(0, maxRecordBackoff.toMillis());
+    }
+
+    /**
+     * Registers a handler for an event class and its subclasses.
+     *
+     * @param handlerId unique name of the handler, used in logs and metrics
+     * @param eventClass the event class handled
+     * @param topics topics the events are consumed from
+     * @param handler the handler
+     * @param <T> the event type
+     */
+    public <T extends DomainEvent> void register(String handlerId, Class<T> eventClass, Collection<String> topics,
+            Consumer<? super T> handler) {
+        if (topics.isEmpty()) {
+            throw new IllegalArgumentException("Handler " + handlerId + " must consume at least one topic");
+        }
+        for (Registration registration : registrations) {
+            if (registration.handlerId.equals(handlerId)) {
+                throw new IllegalArgumentException("Handler " + handlerId + " is already registered");
+            }
+        }
+        registrations.add(new Registration(handlerId, eventClass, Set.copyOf(topics),
+            event -> handler.accept(eventClass.cast(event))));
+        resolved.clear();
+        logger.info("Registered event handler {} for {} on topics {}", handlerId, eventClass.getSimpleName(), topics);
+    }
+
+    /**
+     * Adds an observer notified of every handler invocation.
+     */
+    public void addObserver(DispatchObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Gets the topics of all registered handlers.
+     */
+    public Set<String> getTopics() {
+        Set<String> topics = new LinkedHashSet<>();
+        for (Registration registration : registrations) {
+            topics.addAll(registration.topics);
+        }
+        return topics;
+    }
+
+    /**
+     * Runs every handler registered for the event's class on the given topic, in registration order.
+     *
+     * @param topic the topic the event was consumed from
+     * @param event the decoded event
+     * @return the number of handlers the event was dispatched to
+     */
+    public int dispatch(String topic, DomainEvent event) {
+        List<Registration> handlers = resolved.computeIfAbsent(topic, t -> new ConcurrentHashMap<>())
+            .computeIfAbsent(event.getClass(), eventClass -> resolve(topic, eventClass));
+        if (handlers.isEmpty()) {
+            logger.debug("No handler for event {} of type {} on topic {}", event.getEventId(), event.getEventType(), topic);
+            return 0;
+        }
+        long[] backoffLeft = {maxRecordBackoffMillis};
+        for (Registration registration : handlers) {
+            invoke(registration, event, backoffLeft);
+        }
+        return handlers.size();
+    }
+
+    private List<Registration> resolve(String topic, Class<?> eventClass) {
+        List<Registration> handlers = new ArrayList<>();
+        for (Registration registration : registrations) {
+            if (registration.topics.contains(topic) && registration.eventClass.isAssignableFrom(eventClass)) {
+                handlers.add(registration);
+            }
+        }
+        return List.copyOf(handlers);
+    }
+
+    private void invoke(Registration registration, DomainEvent event, long[] backoffLeft) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long start = System.nanoTime();
+            try {
+                registration.handler.accept(event);
+                notifyObservers(registration.handlerId, event, System.nanoTime() - start, null);
+                return;
+            } catch (Exception e) {
+                notifyObservers(registration.handlerId, event, System.nanoTime() - start, e);
+                if (attempt == maxAttempts || !backOff(attempt, backoffLeft)) {
+                    logger.error("Handler {} failed on event {} after {} attempts, sending to dead letter handling",
+                        registration.handlerId, event.getEventId(), attempt, e);
+                    deadLetter(registration, event, e, attempt);
+                    return;
+                }
+                logger.warn("Handler {} failed on event {} on attempt {}, retrying",
+                    registration.handlerId, event.getEventId(), attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt, taking the wait from what is left of the record's backoff.
+     *
+     * @return false if the record's backoff is used up or the thread was interrupted, in which case no
+     *         further attempt is made
+     */
+    private boolean backOff(int attempt, long[] backoffLeft) {
+        long backoffMillis = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 20));
+        if (backoffMillis == 0) {
+            return true;
+        }
+        if (backoffMillis > backoffLeft[0]) {
+            return false;
+        }
+        backoffLeft[0] -= backoffMillis;
+        try {
+            Thread.sleep(backoffMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void deadLetter(Registration registration, DomainEvent event, Exception failure, int attempts) {
+        for (DispatchObserver observer : observers) {
+            try {
+                observer.onDeadLettered(registration.handlerId, event);
+            } catch (Exception e) {
+                logger.warn("Dispatch observer failed", e);
+            }
+        }
+        if (deadLetterQueueHandler == null) {
+            return;
+        }
+        try {
+            deadLetterQueueHandler.handleFailedEvent(event,
+                "Handler " + registration.handlerId + " failed: " + failure.getMessage(), attempts);
+        } catch (Exception e) {
+            logger.error("Failed to dead-letter event {} of handler {}, the event is dropped for this handler",
+                event.getEventId(), registration.handlerId, e);
+        }
+    }
+
+    private void notifyObservers(String handlerId, DomainEvent event, long nanos, Exception failure) {
+        for (DispatchObserver observer : observers) {
+            try {
+                observer.onHandled(handlerId, event, nanos, failure);
+            } catch (Exception e) {
+                logger.warn("Dispatch observer failed", e);
+            }
+        }
+    }
+
+    /**
+     * Callback for handler invocations, e.g. to record metrics.
+     */
+    public interface DispatchObserver {
+
+        /**
+         * Called after every handler attempt.
+         *
+         * @param handlerId the handler
+         * @param event the event
+         * @param nanos time spent in the handler
+         * @param failure the exception thrown, or null on success
+         */
+        void onHandled(String handlerId, DomainEvent event, long nanos, Exception failure);
+
+        /**
+         * Called when a handler gave up on an event.
+         */
+        default void onDeadLettered(String handlerId, DomainEvent event) {
+        }
+    }
+
+    private static final class Registration {
+        final String handlerId;
+        final Class<?> eventClass;
+        final Set<String> topics;
+        final Consumer<DomainEvent> handler;
+
+        Registration(String handlerId, Class<?> eventClass, Set<String> topics, Consumer<DomainEvent> handler) {
+            this.handlerId = handlerId;
+            this.eventClass = eventClass;
+            this.topics = topics;
+            this.handler = handler;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.restaurant.events.dispatch;
+
+import java.util.concurrent.TimeUnit;
+
+import com.restaurant.events.DomainEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Records per-handler timings, failures and dead-lettered events of an {@link EventDispatcher}.
+ */
+public class EventDispatcherMetrics implements MeterBinder, EventDispatcher.DispatchObserver {
+
+    private final EventDispatcher dispatcher;
+    private volatile MeterRegistry registry;
+
+    public EventDispatcherMetrics(EventDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        dispatcher.addObserver(this);
+    }
+
+    @Override
+    public void onHandled(String handlerId, DomainEvent event, long nanos, Exception failure) {
+        Timer.builder("restaurant.events.dispatch.handler")
+            .description("Time spent in in-process event handlers, per attempt")
+            .tags("handler", handlerId, "event", event.getEventType(), "outcome", failure == null ? "success" : "failure")
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onDeadLettered(String handlerId, DomainEvent event) {
+        Counter.builder("restaurant.events.dispatch.dead.lettered")
+            .description("Events a handler gave up on after all attempts")
+            .tags("handler", handlerId, "event", event.getEventType())
+            .register(registry)
+            .increment();
+    }
+}
@@ -0,0 +1,95 @@
+package com.restaurant.events.dispatch;
+
+import java.util.Set;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.serialization.EventSerializer;
+
+/**
+ * Single consumer for all {@link EventHandler}s of a service.
+ * <p>
+ * On startup, once every handler is registered, one listener container is created for the union of the
+ * handlers' topics in one consumer group. Each record is decoded once and dispatched to all handlers of its
+ * event class registered for its topic, instead of each handler polling and parsing the topic in its own group.
+ */
+public class EventDispatchingListener implements MessageListener<String, String>, SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDispatchingListener.class);
+
+    private final EventDispatcher dispatcher;
+    private final EventSerializer eventSerializer;
+    private final ConsumerFactory<String, String> consumerFactory;
+    private final String groupId;
+    private final int concurrency;
+    private volatile ConcurrentMessageListenerContainer<String, String> container;
+
+    public EventDispatchingListener(EventDispatcher dispatcher,
+            EventSerializer eventSerializer,
+            ConsumerFactory<String, String> consumerFactory,
+            String groupId,
+            int concurrency) {
+        this.dispatcher = dispatcher;
+        this.eventSerializer = eventSerializer;
+        this.consumerFactory = consumerFactory;
+        this.groupId = groupId;
+        this.concurrency = concurrency;
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, String> record) {
+        DomainEvent event = eventSerializer.deserialize(record.value());
+        int handlers = dispatcher.dispatch(record.topic(), event);
+        logger.debug("Dispatched event {} from {}-{}@{} to {} handlers",
+            event.getEventId(), record.topic(), record.partition(), record.offset(), handlers);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (container != null) {
+            return;
+        }
+        Set<String> topics = dispatcher.getTopics();
+        if (topics.isEmpty()) {
+            logger.info("No event handlers registered, event dispatcher not started");
+            return;
+        }
+        ContainerProperties containerProperties = new ContainerProperties(topics.toArray(String[]::new));
+        containerProperties.setGroupId(groupId);
+        containerProperties.setMessageListener(this);
+        ConcurrentMessageListenerContainer<String, String> created =
+            new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        created.setConcurrency(concurrency);
+        created.setBeanName("eventDispatcher");
+        created.start();
+        container = created;
+        logger.info("Event dispatcher consuming {} in group {}", topics, groupId);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (container != null) {
+            container.stop();
+            container = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container != null && container.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        // Same phase as the Kafka listener containers
+        return DEFAULT_PHASE - 100;
+    }
+}
@@ -0,0 +1,26 @@
+package com.restaurant.events.dispatch;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a bean method as an in-process handler for one event class.
+ * <p>
+ * The method takes a single parameter, a DomainEvent subclass, and receives every consumed event of that
+ * class or a subclass. Handlers of all beans share one consumer, so each record is fetched and decoded once
+ * however many handlers it has.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EventHandler {
+
+    /**
+     * Topics to consume the events from. Defaults to the topic declared by the event's
+     * {@link com.restaurant.events.registry.EventType}.
+     */
+    String[] topics() default {};
+}
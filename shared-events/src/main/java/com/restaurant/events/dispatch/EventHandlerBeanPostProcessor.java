@@ -0,0 +1,78 @@
+package com.restaurant.events.dispatch;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.processing.EventProcessingException;
+import com.restaurant.events.registry.EventTypeDescriptor;
+import com.restaurant.events.registry.EventTypeRegistry;
+
+/**
+ * Registers the {@link EventHandler} methods of every bean with the {@link EventDispatcher}.
+ */
+public class EventHandlerBeanPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<EventDispatcher> dispatcher;
+    private final EventTypeRegistry eventTypeRegistry;
+
+    public EventHandlerBeanPostProcessor(ObjectProvider<EventDispatcher> dispatcher, EventTypeRegistry eventTypeRegistry) {
+        this.dispatcher = dispatcher;
+        this.eventTypeRegistry = eventTypeRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        Map<Method, EventHandler> methods = MethodIntrospector.selectMethods(targetClass,
+            (MethodIntrospector.MetadataLookup<EventHandler>) method ->
+                AnnotatedElementUtils.findMergedAnnotation(method, EventHandler.class));
+        methods.forEach((method, annotation) -> register(bean, beanName, method, annotation));
+        return bean;
+    }
+
+    private void register(Object bean, String beanName, Method method, EventHandler annotation) {
+        String handlerId = beanName + "." + method.getName();
+        if (method.getParameterCount() != 1 || !DomainEvent.class.isAssignableFrom(method.getParameterTypes()[0])) {
+            throw new IllegalStateException("@EventHandler method " + handlerId + " must take a single DomainEvent parameter");
+        }
+        Class<? extends DomainEvent> eventClass = method.getParameterTypes()[0].asSubclass(DomainEvent.class);
+
+        List<String> topics = Arrays.asList(annotation.topics());
+        if (topics.isEmpty()) {
+            EventTypeDescriptor descriptor = eventTypeRegistry.find(eventClass);
+            if (descriptor == null || descriptor.getTopic() == null) {
+                throw new IllegalStateException("@EventHandler method " + handlerId + " must declare topics, "
+                    + eventClass.getSimpleName() + " has no topic of its own");
+            }
+            topics = List.of(descriptor.getTopic());
+        }
+
+        Method invocable = AopUtils.selectInvocableMethod(method, bean.getClass());
+        ReflectionUtils.makeAccessible(invocable);
+        dispatcher.getObject().register(handlerId, eventClass, topics, event -> invoke(bean, invocable, event));
+    }
+
+    private static void invoke(Object bean, Method method, DomainEvent event) {
+        try {
+            method.invoke(bean, event);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EventProcessingException("Handler " + method.getName() + " failed on event " + event.getEventId(), e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot invoke handler " + method.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.restaurant.events.monitoring;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects partition skew and hot keys on the publish and consume paths.
+ * <p>
+ * Records are counted per topic and partition, and their keys (aggregate IDs) are fed into a
+ * {@link SpaceSavingSketch} per topic. At the end of every window the counts are turned into per-partition
+ * record and byte rates, a skew ratio (busiest partition over the mean) and the hottest keys of the window,
+ * and then reset. The mean is taken over all partitions of the topic, idle ones included, as reported by the
+ * partition count resolver; without one, the partitions up to the highest one seen are counted. A high
+ * skew ratio whose top key holds a large share points at one aggregate, e.g. a very large restaurant,
+ * rather than at too few partitions.
+ */
+public class PartitionSkewDetector implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionSkewDetector.class);
+
+    public enum Direction {
+        PUBLISHED,
+        CONSUMED
+    }
+
+    private final int sketchCapacity;
+    private final int topKeys;
+    private final Duration window;
+    private final double warnSkewRatio;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, TopicStats> topics = new ConcurrentHashMap<>();
+    private final List<Consumer<List<TopicSnapshot>>> windowListeners = new CopyOnWriteArrayList<>();
+    private volatile List<TopicSnapshot> snapshots = List.of();
+    private volatile ToIntFunction<String> partitionCounts;
+
+    public PartitionSkewDetector(int sketchCapacity, int topKeys, Duration window, double warnSkewRatio) {
+        this.sketchCapacity = sketchCapacity;
+        this.topKeys = topKeys;
+        this.window = window;
+        this.warnSkewRatio = warnSkewRatio;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "partition-skew");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = window.toMillis();
+        this.scheduler.scheduleAtFixedRate(this::rotateQuietly, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records one published or consumed record.
+     *
+     * @param direction whether the record was published or consumed
+     * @param topic the topic
+     * @param partition the partition
+     * @param key the record key, may be null
+     * @param bytes serialized key and value size
+     */
+    public void record(Direction direction, String topic, int partition, String key, long bytes) {
+        TopicStats stats = topics.computeIfAbsent(direction + ":" + topic, id -> new TopicStats(direction, topic, sketchCapacity));
+        PartitionStats partitionStats = stats.partitions.computeIfAbsent(partition, p -> new PartitionStats());
+        partitionStats.records.increment();
+        partitionStats.bytes.add(Math.max(0, bytes));
+        if (key != null) {
+            synchronized (stats.sketch) {
+                stats.sketch.offer(key);
+            }
+        }
+    }
+
+    /**
+     * Sets how the number of partitions of a topic is looked up; called once per topic and window.
+     */
+    public void setPartitionCounts(ToIntFunction<String> partitionCounts) {
+        this.partitionCounts = partitionCounts;
+    }
+
+    /**
+     * Gets the statistics of the last completed window.
+     */
+    public List<TopicSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Registers a callback invoked with the new snapshots at the end of every window.
+     */
+    public void addWindowListener(Consumer<List<TopicSnapshot>> listener) {
+        windowListeners.add(listener);
+    }
+
+    /**
+     * Closes the current window and publishes its statistics.
+     */
+    public void rotate() {
+        double seconds = window.toMillis() / 1000d;
+        List<TopicSnapshot> completed = new ArrayList<>(topics.size());
+        for (TopicStats stats : topics.values()) {
+            List<SpaceSavingSketch.HotKey> hotKeys;
+            synchronized (stats.sketch) {
+                hotKeys = stats.sketch.top(topKeys);
+                stats.sketch.clear();
+            }
+            List<PartitionSnapshot> partitions = new ArrayList<>(stats.partitions.size());
+            stats.partitions.forEach((partition, partitionStats) -> partitions.add(new PartitionSnapshot(
+                partition,
+                partitionStats.records.sumThenReset() / seconds,
+                partitionStats.bytes.sumThenReset() / seconds)));
+            partitions.sort(Comparator.comparingInt(PartitionSnapshot::getPartition));
+
+            TopicSnapshot snapshot = new TopicSnapshot(stats.direction, stats.topic, partitions,
+                partitionCount(stats.topic, partitions), hotKeys);
+            if (snapshot.getSkewRatio() >= warnSkewRatio && snapshot.getRecordRate() > 0) {
+                logger.warn("{} topic {} is skewed: partition {} takes {}x the mean rate, top key {}",
+                    stats.direction, stats.topic, snapshot.getHottestPartition(),
+                    String.format("%.1f", snapshot.getSkewRatio()),
+                    hotKeys.isEmpty() ? "-" : hotKeys.get(0).getKey());
+            }
+            completed.add(snapshot);
+        }
+        completed.sort(Comparator.comparing(TopicSnapshot::getTopic).thenComparing(TopicSnapshot::getDirection));
+        snapshots = List.copyOf(completed);
+        for (Consumer<List<TopicSnapshot>> listener : windowListeners) {
+            listener.accept(snapshots);
+        }
+    }
+
+    private int partitionCount(String topic, List<PartitionSnapshot> partitions) {
+        int highestSeen = partitions.isEmpty() ? 0 : partitions.get(partitions.size() - 1).getPartition() + 1;
+        ToIntFunction<String> resolver = partitionCounts;
+        if (resolver == null) {
+            return highestSeen;
+        }
+        try {
+            return Math.max(highestSeen, resolver.applyAsInt(topic));
+        } catch (Exception e) {
+            logger.debug("Failed to look up partition count of topic {}", topic, e);
+            return highestSeen;
+        }
+    }
+
+    private void rotateQuietly() {
+        try {
+            rotate();
+        } catch (Exception e) {
+            logger.error("Failed to compute partition skew", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    private static class TopicStats {
+        final Direction direction;
+        final String topic;
+        final SpaceSavingSketch sketch;
+        final Map<Integer, PartitionStats> partitions = new ConcurrentHashMap<>();
+
+        TopicStats(Direction direction, String topic, int sketchCapacity) {
+            this.direction = direction;
+            this.topic = topic;
+            this.sketch = new SpaceSavingSketch(sketchCapacity);
+        }
+    }
+
+    private static class PartitionStats {
+        final LongAdder records = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+    }
+
+    /**
+     * Rates of one partition over the last window.
+     */
+    public static class PartitionSnapshot {
+
+        private final int partition;
+        private final double recordRate;
+        private final double byteRate;
+
+        PartitionSnapshot(int partition, double recordRate, double byteRate) {
+            this.partition = partition;
+            this.recordRate = recordRate;
+            this.byteRate = byteRate;
+        }
+
+        public int getPartition() {
+            return partition;
+        }
+
+        public double getRecordRate() {
+            return recordRate;
+        }
+
+        public double getByteRate() {
+            return byteRate;
+        }
+    }
+
+    /**
+     * Skew statistics of one topic and direction over the last window.
+     */
+    public static class TopicSnapshot {
+
+        private final Direction direction;
+        private final String topic;
+        private final List<PartitionSnapshot> partitions;
+        private final List<SpaceSavingSketch.HotKey> hotKeys;
+        private final int partitionCount;
+        private final double recordRate;
+        private final double skewRatio;
+        private final int hottestPartition;
+
+        TopicSnapshot(Direction direction, String topic, List<PartitionSnapshot> partitions, int partitionCount,
+                List<SpaceSavingSketch.HotKey> hotKeys) {
+            this.direction = direction;
+            this.topic = topic;
+            this.partitions = List.copyOf(partitions);
+            this.hotKeys = List.copyOf(hotKeys);
+            // Partitions without records in the window count towards the mean
+            this.partitionCount = Math.max(partitionCount, partitions.size());
+
+            double total = 0;
+            PartitionSnapshot hottest = null;
+            for (PartitionSnapshot partition : partitions) {
+                total += partition.getRecordRate();
+                if (hottest == null || partition.getRecordRate() > hottest.getRecordRate()) {
+                    hottest = partition;
+                }
+            }
+            double mean = this.partitionCount == 0 ? 0 : total / this.partitionCount;
+            this.recordRate = total;
+            this.skewRatio = mean > 0 ? hottest.getRecordRate() / mean : 0;
+            this.hottestPartition = hottest != null ? hottest.getPartition() : -1;
+        }
+
+        public Direction getDirection() {
+            return direction;
+        }
+
+        public String getTopic() {
+            return topic;
+        }
+
+        public List<PartitionSnapshot> getPartitions() {
+            return partitions;
+        }
+
+        public List<SpaceSavingSketch.HotKey> getHotKeys() {
+            return hotKeys;
+        }
+
+        public int getPartitionCount() {
+            return partitionCount;
+        }
+
+        public double getRecordRate() {
+            return recordRate;
+        }
+
+        public double getSkewRatio() {
+            return skewRatio;
+        }
+
+        public int getHottestPartition() {
+            return hottestPartition;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.restaurant.events.monitoring;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+/**
+ * Actuator endpoint listing per-partition rates, skew ratios and hot keys of the last window.
+ */
+@Endpoint(id = "partitionskew")
+public class PartitionSkewEndpoint {
+
+    private final PartitionSkewDetector detector;
+
+    public PartitionSkewEndpoint(PartitionSkewDetector detector) {
+        this.detector = detector;
+    }
+
+    @ReadOperation
+    public List<PartitionSkewDetector.TopicSnapshot> skew() {
+        return detector.getSnapshots();
+    }
+
+    @ReadOperation
+    public List<PartitionSkewDetector.TopicSnapshot> topicSkew(@Selector String topic) {
+        return detector.getSnapshots().stream()
+            .filter(snapshot -> snapshot.getTopic().equals(topic))
+            .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package com.restaurant.events.monitoring;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Exposes the windowed statistics of a {@link PartitionSkewDetector} as Micrometer gauges.
+ * Gauges are registered as topics and partitions are first seen; hot keys themselves are not used
+ * as tags to keep cardinality bounded, see the partitionskew actuator endpoint for them.
+ */
+public class PartitionSkewMetrics implements MeterBinder {
+
+    private final PartitionSkewDetector detector;
+    private final Set<String> registered = ConcurrentHashMap.newKeySet();
+
+    public PartitionSkewMetrics(PartitionSkewDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        detector.addWindowListener(snapshots -> register(registry, snapshots));
+    }
+
+    private void register(MeterRegistry registry, List<PartitionSkewDetector.TopicSnapshot> snapshots) {
+        for (PartitionSkewDetector.TopicSnapshot snapshot : snapshots) {
+            PartitionSkewDetector.Direction direction = snapshot.getDirection();
+            String topic = snapshot.getTopic();
+            String directionTag = direction.name().toLowerCase();
+            if (registered.add(direction + ":" + topic)) {
+                Gauge.builder("restaurant.events.partition.skew", detector,
+                        topicValue(direction, topic, PartitionSkewDetector.TopicSnapshot::getSkewRatio))
+                    .description("Record rate of the busiest partition divided by the mean partition rate")
+                    .tags("topic", topic, "direction", directionTag)
+                    .register(registry);
+                Gauge.builder("restaurant.events.partition.top.key.share", detector,
+                        topicValue(direction, topic, s -> s.getHotKeys().isEmpty() ? 0 : s.getHotKeys().get(0).getShare()))
+                    .description("Share of the topic's records carrying its most frequent key")
+                    .tags("topic", topic, "direction", directionTag)
+                    .register(registry);
+            }
+            for (PartitionSkewDetector.PartitionSnapshot partition : snapshot.getPartitions()) {
+                int id = partition.getPartition();
+                if (registered.add(direction + ":" + topic + ":" + id)) {
+                    Gauge.builder("restaurant.events.partition.record.rate", detector,
+                            partitionValue(direction, topic, id, PartitionSkewDetector.PartitionSnapshot::getRecordRate))
+                        .description("Records per second over the last window")
+                        .baseUnit("records")
+                        .tags("topic", topic, "partition", String.valueOf(id), "direction", directionTag)
+                        .register(registry);
+                    Gauge.builder("restaurant.events.partition.byte.rate", detector,
+                            partitionValue(direction, topic, id, PartitionSkewDetector.PartitionSnapshot::getByteRate))
+                        .description("Bytes per second over the last window")
+                        .baseUnit("bytes")
+                        .tags("topic", topic, "partition", String.valueOf(id), "direction", directionTag)
+                        .register(registry);
+                }
+            }
+        }
+    }
+
+    private static ToDoubleFunction<PartitionSkewDetector> topicValue(PartitionSkewDetector.Direction direction, String topic,
+            ToDoubleFunction<PartitionSkewDetector.TopicSnapshot> value) {
+        return detector -> {
+            for (PartitionSkewDetector.TopicSnapshot snapshot : detector.getSnapshots()) {
+                if (snapshot.getDirection() == direction && snapshot.getTopic().equals(topic)) {
+                    return value.applyAsDouble(snapshot);
+                }
+            }
+            return 0;
+        };
+    }
+
+    private static ToDoubleFunction<PartitionSkewDetector> partitionValue(PartitionSkewDetector.Direction direction, String topic,
+            int partition, ToDoubleFunction<PartitionSkewDetector.PartitionSnapshot> value) {
+        return topicValue(direction, topic, snapshot -> {
+            for (PartitionSkewDetector.PartitionSnapshot partitionSnapshot : snapshot.getPartitions()) {
+                if (partitionSnapshot.getPartition() == partition) {
+                    return value.applyAsDouble(partitionSnapshot);
+                }
+            }
+            return 0;
+        });
+    }
+}
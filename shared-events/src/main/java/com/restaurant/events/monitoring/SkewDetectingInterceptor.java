@@ -0,0 +1,42 @@
+package com.restaurant.events.monitoring;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Listener container interceptor feeding consumed records into a {@link PartitionSkewDetector}.
+ * Register it with {@code setRecordInterceptor} or {@code setBatchInterceptor} on a container factory.
+ */
+public class SkewDetectingInterceptor<K, V> implements RecordInterceptor<K, V>, BatchInterceptor<K, V> {
+
+    private final PartitionSkewDetector detector;
+
+    public SkewDetectingInterceptor(PartitionSkewDetector detector) {
+        this.detector = detector;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        recordConsumed(record);
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        for (ConsumerRecord<K, V> record : records) {
+            recordConsumed(record);
+        }
+        return records;
+    }
+
+    private void recordConsumed(ConsumerRecord<K, V> record) {
+        detector.record(PartitionSkewDetector.Direction.CONSUMED,
+            record.topic(),
+            record.partition(),
+            record.key() != null ? String.valueOf(record.key()) : null,
+            Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize()));
+    }
+}
@@ -0,0 +1,111 @@
+package com.restaurant.events.monitoring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-saving top-K sketch (Metwally et al.) over a stream of keys.
+ * <p>
+ * At most {@code capacity} keys are counted. When an unseen key arrives and the sketch is full, it
+ * replaces the key with the lowest count and inherits that count as its overestimation error. Any key
+ * whose true frequency exceeds {@code total / capacity} is guaranteed to be in the sketch, which is exactly
+ * what is needed to find the keys that dominate a partition.
+ * <p>
+ * Replacing scans all counters, so keep the capacity small (tens to a few hundred). Not thread-safe.
+ */
+public class SpaceSavingSketch {
+
+    private final int capacity;
+    private final Map<String, long[]> counters;
+    private long total;
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void offer(String key) {
+        total++;
+        long[] counter = counters.get(key);
+        if (counter != null) {
+            counter[0]++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(key, new long[] {1, 0});
+            return;
+        }
+
+        String minKey = null;
+        long[] minCounter = null;
+        for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+            if (minCounter == null || entry.getValue()[0] < minCounter[0]) {
+                minKey = entry.getKey();
+                minCounter = entry.getValue();
+            }
+        }
+        counters.remove(minKey);
+        counters.put(key, new long[] {minCounter[0] + 1, minCounter[0]});
+    }
+
+    /**
+     * Gets the tracked keys with the highest estimated counts.
+     *
+     * @param limit maximum number of keys to return
+     * @return keys ordered by descending estimated count
+     */
+    public List<HotKey> top(int limit) {
+        List<HotKey> keys = new ArrayList<>(counters.size());
+        counters.forEach((key, counter) -> keys.add(new HotKey(key, counter[0], counter[1], total)));
+        keys.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+        return keys.size() > limit ? new ArrayList<>(keys.subList(0, limit)) : keys;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        counters.clear();
+        total = 0;
+    }
+
+    /**
+     * A key with its estimated count. The true count lies between {@code count - error} and {@code count}.
+     */
+    public static class HotKey {
+
+        private final String key;
+        private final long count;
+        private final long error;
+        private final double share;
+
+        HotKey(String key, long count, long error, long total) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.share = total > 0 ? (double) count / total : 0;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        public double getShare() {
+            return share;
+        }
+    }
+}
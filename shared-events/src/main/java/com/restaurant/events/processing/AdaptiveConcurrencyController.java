@@ -0,0 +1,262 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ListenerContainerRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Adjusts the concurrency of Kafka listener containers from their observed lag and processing time.
+ * <p>
+ * Each sample reads the per-partition {@code records-lag} metric of the container's consumers and,
+ * when Spring Kafka's listener timers are registered, the mean processing time since the previous
+ * sample. A listener is overloaded when its lag per consumer or its estimated drain time exceeds the
+ * scale-up thresholds, and underloaded when both are well below them. Only several consecutive samples
+ * in the same state, outside the cooldown after the last change, trigger a resize; the gap between the
+ * two thresholds plus that streak keeps the controller from flapping. Scaling up is multiplicative so a
+ * rush is absorbed quickly, scaling down is one consumer at a time.
+ * <p>
+ * Resizing restarts the container, which triggers a consumer group rebalance. Concurrency above the
+ * number of partitions assigned to the group only adds idle consumers, so the maximum should not exceed it.
+ */
+public class AdaptiveConcurrencyController implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyController.class);
+
+    private static final String LAG_METRIC = "records-lag";
+    private static final String LISTENER_TIMER = "spring.kafka.listener";
+
+    private final ListenerContainerRegistry containerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> listenerIds;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long scaleUpLag;
+    private final long scaleDownLag;
+    private final Duration targetDrainTime;
+    private final int stableSamples;
+    private final Duration cooldown;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, ListenerState> states = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyController(ListenerContainerRegistry containerRegistry,
+            MeterRegistry meterRegistry,
+            Set<String> listenerIds,
+            int minConcurrency,
+            int maxConcurrency,
+            long scaleUpLag,
+            long scaleDownLag,
+            Duration targetDrainTime,
+            int stableSamples,
+            Duration cooldown,
+            Duration sampleInterval) {
+        if (minConcurrency < 1 || maxConcurrency < minConcurrency) {
+            throw new IllegalArgumentException("Concurrency bounds must satisfy 1 <= min <= max");
+        }
+        if (scaleDownLag >= scaleUpLag) {
+            throw new IllegalArgumentException("Scale-down lag must be lower than scale-up lag");
+        }
+        this.containerRegistry = containerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.listenerIds = listenerIds;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.scaleUpLag = scaleUpLag;
+        this.scaleDownLag = scaleDownLag;
+        this.targetDrainTime = targetDrainTime;
+        this.stableSamples = Math.max(1, stableSamples);
+        this.cooldown = cooldown;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "adaptive-concurrency");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = sampleInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::sampleQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Samples every controlled listener container once and resizes those that stayed over- or
+     * underloaded long enough.
+     */
+    public void sample() {
+        for (MessageListenerContainer container : containerRegistry.getAllListenerContainers()) {
+            String listenerId = container.getListenerId();
+            if (!(container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent)
+                    || listenerId == null
+                    || !container.isRunning()
+                    || (!listenerIds.isEmpty() && !listenerIds.contains(listenerId))) {
+                continue;
+            }
+            sample(listenerId, concurrent);
+        }
+    }
+
+    private void sample(String listenerId, ConcurrentMessageListenerContainer<?, ?> container) {
+        ListenerState state = states.computeIfAbsent(listenerId, this::register);
+        int current = container.getConcurrency();
+        long lag = currentLag(container);
+        long processingNanos = meanProcessingNanos(listenerId, state);
+
+        state.concurrency.set(current);
+        state.lag.set(lag);
+        if (processingNanos >= 0) {
+            state.processingNanos.set(processingNanos);
+        }
+
+        if (current < minConcurrency || current > maxConcurrency) {
+            resize(listenerId, container, state, Math.max(minConcurrency, Math.min(maxConcurrency, current)));
+            return;
+        }
+
+        long lagPerConsumer = lag / current;
+        double drainSeconds = processingNanos > 0 ? (double) lagPerConsumer * processingNanos / 1_000_000_000d : -1;
+        double targetSeconds = targetDrainTime.toMillis() / 1000d;
+        boolean overloaded = lagPerConsumer > scaleUpLag || drainSeconds > targetSeconds;
+        boolean underloaded = lagPerConsumer < scaleDownLag && drainSeconds < targetSeconds / 4;
+
+        state.overloadedSamples = overloaded ? state.overloadedSamples + 1 : 0;
+        state.underloadedSamples = underloaded ? state.underloadedSamples + 1 : 0;
+        if (System.nanoTime() - state.lastResizeNanos < cooldown.toNanos()) {
+            return;
+        }
+
+        if (state.overloadedSamples >= stableSamples && current < maxConcurrency) {
+            int target = Math.min(maxConcurrency, current + Math.max(1, current / 2));
+            logger.info("Listener {} is behind (lag {}, {} per consumer, drain {}s), scaling up from {} to {} consumers",
+                listenerId, lag, lagPerConsumer, drainSeconds < 0 ? "?" : String.format("%.1f", drainSeconds), current, target);
+            resize(listenerId, container, state, target);
+            state.scaledUp.increment();
+        } else if (state.underloadedSamples >= stableSamples && current > minConcurrency) {
+            int target = current - 1;
+            logger.info("Listener {} is underused (lag {}), scaling down from {} to {} consumers",
+                listenerId, lag, current, target);
+            resize(listenerId, container, state, target);
+            state.scaledDown.increment();
+        }
+    }
+
+    private void resize(String listenerId, ConcurrentMessageListenerContainer<?, ?> container, ListenerState state, int target) {
+        state.overloadedSamples = 0;
+        state.underloadedSamples = 0;
+        state.lastResizeNanos = System.nanoTime();
+        state.concurrency.set(target);
+        // Concurrency only takes effect on start, so the container is restarted once it has stopped
+        container.stop(() -> {
+            try {
+                container.setConcurrency(target);
+                container.start();
+            } catch (Exception e) {
+                logger.error("Failed to restart listener {} with concurrency {}", listenerId, target, e);
+            }
+        });
+    }
+
+    private long currentLag(MessageListenerContainer container) {
+        long lag = 0;
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : clientMetrics.entrySet()) {
+                MetricName name = entry.getKey();
+                if (!LAG_METRIC.equals(name.name()) || !name.tags().containsKey("partition")) {
+                    continue;
+                }
+                Object value = entry.getValue().metricValue();
+                if (value instanceof Number number && !Double.isNaN(number.doubleValue())) {
+                    lag += number.longValue();
+                }
+            }
+        }
+        return lag;
+    }
+
+    private long meanProcessingNanos(String listenerId, ListenerState state) {
+        long count = 0;
+        double totalNanos = 0;
+        // Spring Kafka names the timer of each child container "<listenerId>-<index>"
+        for (Timer timer : meterRegistry.find(LISTENER_TIMER).timers()) {
+            String name = timer.getId().getTag("name");
+            if (name != null && name.startsWith(listenerId + "-")) {
+                count += timer.count();
+                totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            }
+        }
+        long deltaCount = count - state.lastTimerCount;
+        double deltaNanos = totalNanos - state.lastTimerNanos;
+        state.lastTimerCount = count;
+        state.lastTimerNanos = totalNanos;
+        return deltaCount > 0 ? (long) (deltaNanos / deltaCount) : -1;
+    }
+
+    private ListenerState register(String listenerId) {
+        ListenerState state = new ListenerState();
+        Gauge.builder("restaurant.events.consumer.concurrency", state.concurrency, AtomicInteger::get)
+            .description("Current consumer concurrency chosen by the adaptive controller")
+            .tag("listener", listenerId)
+            .register(meterRegistry);
+        Gauge.builder("restaurant.events.consumer.lag", state.lag, AtomicLong::get)
+            .description("Total records lag of the listener's consumers at the last sample")
+            .tag("listener", listenerId)
+            .register(meterRegistry);
+        Gauge.builder("restaurant.events.consumer.processing.time", state.processingNanos, nanos -> nanos.get() / 1_000_000d)
+            .description("Mean record processing time in milliseconds over the last sample interval")
+            .tag("listener", listenerId)
+            .register(meterRegistry);
+        state.scaledUp = Counter.builder("restaurant.events.consumer.scaling")
+            .description("Concurrency changes made by the adaptive controller")
+            .tags("listener", listenerId, "direction", "up")
+            .register(meterRegistry);
+        state.scaledDown = Counter.builder("restaurant.events.consumer.scaling")
+            .description("Concurrency changes made by the adaptive controller")
+            .tags("listener", listenerId, "direction", "down")
+            .register(meterRegistry);
+        return state;
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (Exception e) {
+            logger.error("Failed to sample listener containers", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Sampling state of one listener. Only touched by the scheduler thread apart from the metric holders.
+     */
+    private static class ListenerState {
+        final AtomicInteger concurrency = new AtomicInteger();
+        final AtomicLong lag = new AtomicLong();
+        final AtomicLong processingNanos = new AtomicLong();
+        Counter scaledUp;
+        Counter scaledDown;
+        long lastTimerCount;
+        double lastTimerNanos;
+        int overloadedSamples;
+        int underloadedSamples;
+        long lastResizeNanos = System.nanoTime() - Long.MAX_VALUE / 2;
+    }
+}
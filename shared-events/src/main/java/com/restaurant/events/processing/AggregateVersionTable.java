@@ -0,0 +1,121 @@
+package com.restaurant.events.processing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a 64-bit aggregate key to the highest applied version.
+ * Keys and values live in parallel primitive arrays, so each tracked aggregate costs
+ * roughly 20 bytes instead of a boxed map entry plus its String key.
+ * <p>
+ * Aggregate IDs are reduced to a 64-bit hash; with UUID IDs the chance of any collision
+ * among ten million aggregates is below one in a hundred thousand.
+ */
+public class AggregateVersionTable {
+
+    /** Returned by {@link #get(String)} when the aggregate is not tracked. */
+    public static final int ABSENT = -1;
+
+    private static final long EMPTY_KEY = 0L;
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    private long[] keys;
+    private int[] versions;
+    private int size;
+
+    public AggregateVersionTable(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (initialCapacity / MAX_LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.versions = new int[capacity];
+    }
+
+    /**
+     * Gets the highest applied version for an aggregate.
+     *
+     * @param aggregateId the aggregate identifier
+     * @return the version, or {@link #ABSENT} if the aggregate is not tracked
+     */
+    public synchronized int get(String aggregateId) {
+        long key = keyOf(aggregateId);
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = keys[slot];
+            if (existing == EMPTY_KEY) {
+                return ABSENT;
+            }
+            if (existing == key) {
+                return versions[slot];
+            }
+        }
+    }
+
+    /**
+     * Raises the tracked version for an aggregate. Lower versions never overwrite higher ones.
+     *
+     * @param aggregateId the aggregate identifier
+     * @param version the applied version
+     */
+    public synchronized void advance(String aggregateId, int version) {
+        if ((size + 1) > keys.length * MAX_LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+        insert(keyOf(aggregateId), version);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        Arrays.fill(versions, 0);
+        size = 0;
+    }
+
+    private void insert(long key, int version) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            long existing = keys[slot];
+            if (existing == EMPTY_KEY) {
+                keys[slot] = key;
+                versions[slot] = version;
+                size++;
+                return;
+            }
+            if (existing == key) {
+                versions[slot] = Math.max(versions[slot], version);
+                return;
+            }
+        }
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldVersions = versions;
+        keys = new long[newCapacity];
+        versions = new int[newCapacity];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                insert(oldKeys[i], oldVersions[i]);
+            }
+        }
+    }
+
+    private static long keyOf(String aggregateId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : aggregateId.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        // Reserve zero as the empty-slot marker
+        return hash == EMPTY_KEY ? 1L : hash;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
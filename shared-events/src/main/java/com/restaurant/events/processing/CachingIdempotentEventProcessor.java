@@ -0,0 +1,164 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * IdempotentEventProcessor that answers most duplicate checks in memory before touching the database.
+ * <p>
+ * Checks are layered: a recent-IDs LRU answers "definitely seen", a rotating Bloom filter answers
+ * "definitely new", and only IDs the filter cannot rule out fall through to
+ * {@link DatabaseIdempotentEventProcessor#isEventProcessed(String)}. Newly processed IDs are persisted
+ * in coalesced batches by a {@link ProcessedEventBatchWriter} instead of one INSERT per event.
+ * <p>
+ * The Bloom filter only knows IDs recorded by this instance plus those loaded by {@link #warmUp(Duration)}.
+ * It keeps IDs for the redelivery horizon however many arrive; a warm-up sizes its later generations
+ * from the number of IDs it loaded, so the false positive rate holds. Until warm-up completes every non-cached ID is checked against the database. Partitions assigned later
+ * bring events other instances processed, so {@link #rewarm(Duration)} runs the warm-up again in the
+ * background and the filter is not trusted until it is done.
+ * <p>
+ * {@link #processEvent(DomainEvent)} returns only once the event's batch is written, so an event is never
+ * acknowledged before it is recorded; concurrent consumers still share batches.
+ */
+public class CachingIdempotentEventProcessor implements IdempotentEventProcessor, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingIdempotentEventProcessor.class);
+
+    private final DatabaseIdempotentEventProcessor database;
+    private final EventProcessor eventProcessor;
+    private final ProcessedEventBatchWriter batchWriter;
+    private final RecentEventIdCache recentEventIds;
+    private final RotatingBloomFilter seenEventIds;
+    private final AtomicLong warmUps = new AtomicLong();
+    private final ExecutorService warmUpExecutor;
+
+    private volatile boolean filterReady;
+
+    public CachingIdempotentEventProcessor(DatabaseIdempotentEventProcessor database,
+            EventProcessor eventProcessor,
+            ProcessedEventBatchWriter batchWriter,
+            RecentEventIdCache recentEventIds,
+            RotatingBloomFilter seenEventIds) {
+        this.database = database;
+        this.eventProcessor = eventProcessor;
+        this.batchWriter = batchWriter;
+        this.recentEventIds = recentEventIds;
+        this.seenEventIds = seenEventIds;
+        this.warmUpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deduplication-filter-warm-up");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Loads IDs processed within the redelivery horizon into the Bloom filter.
+     * Once loaded, filter misses are trusted as "definitely new".
+     *
+     * @param redeliveryHorizon how far back redeliveries can reach
+     */
+    public void warmUp(Duration redeliveryHorizon) {
+        long warmUp = warmUps.incrementAndGet();
+        filterReady = false;
+        try {
+            long[] loaded = new long[1];
+            database.forEachProcessedEventSince(LocalDateTime.now().minus(redeliveryHorizon), eventId -> {
+                seenEventIds.put(eventId);
+                loaded[0]++;
+            });
+            seenEventIds.expectInsertions(loaded[0]);
+            // A warm-up started meanwhile must finish before misses are trusted again
+            if (warmUps.get() == warmUp) {
+                filterReady = true;
+            }
+            logger.info("Loaded {} processed event IDs into deduplication filter", loaded[0]);
+        } catch (Exception e) {
+            logger.warn("Failed to warm up deduplication filter, falling back to database checks", e);
+        }
+    }
+
+    /**
+     * Stops trusting the filter and warms it up again in the background, e.g. when partitions were assigned.
+     *
+     * @param redeliveryHorizon how far back redeliveries can reach
+     */
+    public void rewarm(Duration redeliveryHorizon) {
+        filterReady = false;
+        warmUpExecutor.execute(() -> warmUp(redeliveryHorizon));
+    }
+
+    @Override
+    public boolean processEvent(DomainEvent event) {
+        String eventId = event.getEventId();
+
+        if (isEventProcessed(eventId)) {
+            logger.debug("Event {} has already been processed, skipping", eventId);
+            return false;
+        }
+
+        try {
+            logger.debug("Processing event {} for the first time", eventId);
+            eventProcessor.process(event);
+        } catch (Exception e) {
+            logger.error("Failed to process event {}", eventId, e);
+            throw new EventProcessingException("Failed to process event: " + eventId, e);
+        }
+
+        recentEventIds.add(eventId);
+        seenEventIds.put(eventId);
+        try {
+            batchWriter.enqueue(event).join();
+        } catch (Exception e) {
+            // Kept for the next flush; until then a redelivery after a crash would be processed again
+            logger.warn("Event {} was processed but recording it failed, retrying in the background", eventId, e);
+        }
+        logger.info("Successfully processed event {}", eventId);
+        return true;
+    }
+
+    @Override
+    public boolean isEventProcessed(String eventId) {
+        if (recentEventIds.contains(eventId)) {
+            return true;
+        }
+        if (filterReady && !seenEventIds.mightContain(eventId)) {
+            return false;
+        }
+        if (database.isEventProcessed(eventId)) {
+            recentEventIds.add(eventId);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void markEventAsProcessed(String eventId) {
+        recentEventIds.add(eventId);
+        seenEventIds.put(eventId);
+        database.markEventAsProcessed(eventId);
+    }
+
+    @Override
+    public void markEventAsProcessed(DomainEvent event) {
+        recentEventIds.add(event.getEventId());
+        seenEventIds.put(event.getEventId());
+        batchWriter.enqueue(event);
+    }
+
+    public boolean isFilterReady() {
+        return filterReady;
+    }
+
+    @Override
+    public void close() {
+        warmUpExecutor.shutdownNow();
+    }
+}
@@ -8,26 +8,57 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Database-backed implementation of IdempotentEventProcessor.
  * Uses a database table to track processed events and ensure idempotency.
+ * <p>
+ * processed_events is partitioned by the event's own {@code occurredOn} timestamp, which every
+ * redelivery of an event carries unchanged, so the primary key {@code (event_id, occurred_on)}
+ * still rejects duplicates and lookups by event prune to a single partition.
+ * The ID-only methods cannot prune and check every partition.
  */
 public class DatabaseIdempotentEventProcessor implements IdempotentEventProcessor {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseIdempotentEventProcessor.class);
     
     private final JdbcTemplate jdbcTemplate;
+    // Streams result sets row by row instead of buffering them, for scans over the redelivery horizon
+    private final JdbcTemplate streamingJdbcTemplate;
     private final EventProcessor eventProcessor;
     
     private static final String INSERT_PROCESSED_EVENT_SQL = 
-        "INSERT INTO processed_events (event_id, processed_at) VALUES (?, NOW())";
+        "INSERT INTO processed_events (event_id, occurred_on, processed_at) VALUES (?, ?, NOW())";
+    
+    private static final String MARK_PROCESSED_EVENT_SQL = 
+        INSERT_PROCESSED_EVENT_SQL + " ON DUPLICATE KEY UPDATE event_id = event_id";
     
     private static final String CHECK_EVENT_PROCESSED_SQL = 
         "SELECT COUNT(*) FROM processed_events WHERE event_id = ?";
     
+    private static final String CHECK_EVENT_KEY_PROCESSED_SQL = 
+        "SELECT COUNT(*) FROM processed_events WHERE event_id = ? AND occurred_on = ?";
+    
+    private static final String SELECT_PROCESSED_EVENT_IDS_IN_SQL = 
+        "SELECT event_id FROM processed_events WHERE event_id IN (%s)";
+    
+    private static final String SELECT_EVENT_IDS_OCCURRED_SINCE_SQL = 
+        "SELECT event_id FROM processed_events WHERE occurred_on >= ?";
+    
     public DatabaseIdempotentEventProcessor(DataSource dataSource, EventProcessor eventProcessor) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
         this.eventProcessor = eventProcessor;
     }
     
@@ -37,8 +68,8 @@ public class DatabaseIdempotentEventProcessor implements IdempotentEventProcesso
         String eventId = event.getEventId();
         
         try {
-            // Try to mark the event as processed first
-            markEventAsProcessed(eventId);
+            // Try to mark the event as processed first; a duplicate key means it already was
+            jdbcTemplate.update(INSERT_PROCESSED_EVENT_SQL, eventId, occurredOn(event));
             
             // If successful, process the event
             logger.debug("Processing event {} for the first time", eventId);
@@ -57,6 +88,86 @@ public class DatabaseIdempotentEventProcessor implements IdempotentEventProcesso
         }
     }
     
+    /**
+     * Processes a batch with one IN query for deduplication and one bulk handler call.
+     * If the handler fails, only the failed subset (or the whole batch, if the handler
+     * cannot tell) falls back to per-record processing, so bulk handlers must be idempotent.
+     */
+    @Override
+    public int processBatch(List<DomainEvent> events) {
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        List<String> eventIds = events.stream().map(DomainEvent::getEventId).toList();
+        Set<String> seen = new HashSet<>(findProcessedEventIds(eventIds));
+        List<DomainEvent> freshEvents = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            // Also drops duplicates within the batch itself
+            if (seen.add(event.getEventId())) {
+                freshEvents.add(event);
+            }
+        }
+        if (freshEvents.isEmpty()) {
+            logger.debug("All {} events in batch have already been processed, skipping", events.size());
+            return 0;
+        }
+        
+        List<DomainEvent> failedEvents;
+        try {
+            eventProcessor.processBatch(freshEvents);
+            failedEvents = List.of();
+        } catch (EventBatchProcessingException e) {
+            logger.warn("{} of {} events failed in batch, retrying them individually",
+                e.getFailedEvents().size(), freshEvents.size(), e);
+            failedEvents = e.getFailedEvents();
+        } catch (Exception e) {
+            logger.warn("Batch of {} events failed, retrying them individually", freshEvents.size(), e);
+            failedEvents = freshEvents;
+        }
+        
+        Set<String> failedIds = new HashSet<>();
+        failedEvents.forEach(event -> failedIds.add(event.getEventId()));
+        List<DomainEvent> succeededEvents = new ArrayList<>(freshEvents.size());
+        for (DomainEvent event : freshEvents) {
+            if (!failedIds.contains(event.getEventId())) {
+                succeededEvents.add(event);
+            }
+        }
+        markEventsAsProcessed(succeededEvents);
+        
+        int processed = succeededEvents.size();
+        for (DomainEvent event : failedEvents) {
+            if (processEvent(event)) {
+                processed++;
+            }
+        }
+        logger.info("Processed {} of {} events in batch", processed, events.size());
+        return processed;
+    }
+    
+    /**
+     * Finds which of the given events have already been processed, using a single IN query.
+     * 
+     * @param eventIds the unique event identifiers
+     * @return the subset of IDs that have been processed
+     */
+    public Set<String> findProcessedEventIds(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        try {
+            String placeholders = String.join(", ", Collections.nCopies(eventIds.size(), "?"));
+            return new HashSet<>(jdbcTemplate.queryForList(
+                String.format(SELECT_PROCESSED_EVENT_IDS_IN_SQL, placeholders),
+                String.class,
+                eventIds.toArray()));
+        } catch (Exception e) {
+            logger.error("Failed to check processing status of {} events", eventIds.size(), e);
+            throw new EventProcessingException("Failed to check event batch processing status", e);
+        }
+    }
+    
     @Override
     public boolean isEventProcessed(String eventId) {
         try {
@@ -70,17 +181,92 @@ public class DatabaseIdempotentEventProcessor implements IdempotentEventProcesso
         }
     }
     
+    @Override
+    public boolean isEventProcessed(DomainEvent event) {
+        try {
+            Integer count = jdbcTemplate.queryForObject(CHECK_EVENT_KEY_PROCESSED_SQL, 
+                Integer.class,
+                event.getEventId(), occurredOn(event));
+            return count != null && count > 0;
+        } catch (Exception e) {
+            logger.error("Failed to check if event {} was processed", event.getEventId(), e);
+            throw new EventProcessingException("Failed to check event processing status: " + event.getEventId(), e);
+        }
+    }
+    
+    /**
+     * Marks an event as processed by ID alone. Without the event's timestamp the row is filed under
+     * the current time, so prefer {@link #markEventAsProcessed(DomainEvent)} where the event is at hand.
+     */
     @Override
     public void markEventAsProcessed(String eventId) {
+        mark(eventId, Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)));
+    }
+    
+    @Override
+    public void markEventAsProcessed(DomainEvent event) {
+        mark(event.getEventId(), occurredOn(event));
+    }
+    
+    private void mark(String eventId, Timestamp occurredOn) {
         try {
-            jdbcTemplate.update(INSERT_PROCESSED_EVENT_SQL, eventId);
+            jdbcTemplate.update(MARK_PROCESSED_EVENT_SQL, eventId, occurredOn);
             logger.debug("Marked event {} as processed", eventId);
-        } catch (DuplicateKeyException e) {
-            // Event already marked as processed, this is expected in concurrent scenarios
-            logger.debug("Event {} was already marked as processed", eventId);
         } catch (Exception e) {
             logger.error("Failed to mark event {} as processed", eventId, e);
             throw new EventProcessingException("Failed to mark event as processed: " + eventId, e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Marks a batch of events as processed with a single batched statement.
+     * Events that are already present are ignored.
+     * 
+     * @param events the processed events
+     */
+    public void markEventsAsProcessed(Collection<? extends DomainEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            List<Object[]> batchArgs = new ArrayList<>(events.size());
+            for (DomainEvent event : events) {
+                batchArgs.add(new Object[]{event.getEventId(), occurredOn(event)});
+            }
+            jdbcTemplate.batchUpdate(MARK_PROCESSED_EVENT_SQL, batchArgs);
+            logger.debug("Marked {} events as processed", events.size());
+        } catch (Exception e) {
+            logger.error("Failed to mark {} events as processed", events.size(), e);
+            throw new EventProcessingException("Failed to mark event batch as processed", e);
+        }
+    }
+    
+    /**
+     * The partitioning timestamp of an event. Truncated to the column's millisecond precision,
+     * which is also what the event carries after a round trip through Kafka.
+     */
+    private static Timestamp occurredOn(DomainEvent event) {
+        LocalDateTime occurredOn = event.getOccurredOn() != null ? event.getOccurredOn() : LocalDateTime.now();
+        return Timestamp.valueOf(occurredOn.truncatedTo(ChronoUnit.MILLIS));
+    }
+    
+    /**
+     * Streams the IDs of all processed events that occurred since the given time, without holding them in memory.
+     * Used to warm in-memory deduplication filters.
+     * 
+     * @param since lower bound on the events' occurredOn (inclusive)
+     * @param consumer receives each event ID
+     */
+    public void forEachProcessedEventSince(LocalDateTime since, Consumer<String> consumer) {
+        try {
+            streamingJdbcTemplate.query(SELECT_EVENT_IDS_OCCURRED_SINCE_SQL,
+                rs -> {
+                    consumer.accept(rs.getString(1));
+                },
+                Timestamp.valueOf(since));
+        } catch (Exception e) {
+            logger.error("Failed to load events processed since {}", since, e);
+            throw new EventProcessingException("Failed to load processed events since: " + since, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Warms the deduplication filter up again when partitions are assigned, since their events may have been
+ * processed by another instance. Register it on the listener container that feeds a
+ * {@link CachingIdempotentEventProcessor}.
+ */
+public class DeduplicationFilterRebalanceListener implements ConsumerRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeduplicationFilterRebalanceListener.class);
+
+    private final CachingIdempotentEventProcessor processor;
+    private final Duration redeliveryHorizon;
+
+    public DeduplicationFilterRebalanceListener(CachingIdempotentEventProcessor processor, Duration redeliveryHorizon) {
+        this.processor = processor;
+        this.redeliveryHorizon = redeliveryHorizon;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        logger.info("Partitions {} assigned, warming up deduplication filter again", partitions);
+        processor.rewarm(redeliveryHorizon);
+    }
+}
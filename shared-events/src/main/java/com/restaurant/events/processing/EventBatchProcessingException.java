@@ -0,0 +1,23 @@
+package com.restaurant.events.processing;
+
+import java.util.List;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * Exception thrown when part of a batch fails processing.
+ * Events not listed as failed are considered successfully processed.
+ */
+public class EventBatchProcessingException extends EventProcessingException {
+    
+    private final transient List<DomainEvent> failedEvents;
+    
+    public EventBatchProcessingException(String message, List<DomainEvent> failedEvents, Throwable cause) {
+        super(message, cause);
+        this.failedEvents = List.copyOf(failedEvents);
+    }
+    
+    public List<DomainEvent> getFailedEvents() {
+        return failedEvents;
+    }
+}
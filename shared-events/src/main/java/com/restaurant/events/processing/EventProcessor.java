@@ -2,6 +2,8 @@ package com.restaurant.events.processing;
 
 import com.restaurant.events.DomainEvent;
 
+import java.util.List;
+
 /**
  * Interface for processing domain events.
  * Implementations contain the business logic for handling specific events.
@@ -15,4 +17,20 @@ public interface EventProcessor {
      * @throws EventProcessingException if processing fails
      */
     void process(DomainEvent event);
-}
\ No newline at end of file
+    
+    /**
+     * Processes a batch of domain events, typically with bulk writes.
+     * The default implementation processes the events one at a time.
+     * Implementations that fail for only part of the batch should throw
+     * {@link EventBatchProcessingException} naming the failed events, so that
+     * only those are retried individually.
+     * 
+     * @param events the domain events to process, in consumption order
+     * @throws EventProcessingException if processing fails
+     */
+    default void processBatch(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            process(event);
+        }
+    }
+}
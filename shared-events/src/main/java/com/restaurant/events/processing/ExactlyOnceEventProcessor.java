@@ -0,0 +1,91 @@
+package com.restaurant.events.processing;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.publisher.TopicResolver;
+import com.restaurant.events.serialization.EventSerializer;
+
+/**
+ * Runs consume-process-produce steps with Kafka exactly-once semantics.
+ * <p>
+ * The output events and the input record's offset are written in one Kafka transaction
+ * through {@code sendOffsetsToTransaction}, so either both become visible or neither does.
+ * No processed_events row is needed for these steps: a redelivered record can only be one
+ * whose transaction aborted.
+ * <p>
+ * The listener container must not commit offsets itself (manual ack mode, auto commit disabled),
+ * and downstream consumers must read with {@code isolation.level=read_committed}.
+ * <p>
+ * Each instance needs its own transactional.id prefix, otherwise instances fence each other.
+ * The processor owns the template's producers and closes them in {@link #close()}.
+ */
+public class ExactlyOnceEventProcessor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExactlyOnceEventProcessor.class);
+
+    private final KafkaTemplate<String, String> transactionalTemplate;
+    private final EventSerializer eventSerializer;
+    private final TopicResolver topicResolver;
+
+    public ExactlyOnceEventProcessor(KafkaTemplate<String, String> transactionalTemplate,
+            EventSerializer eventSerializer,
+            TopicResolver topicResolver) {
+        if (!transactionalTemplate.isTransactional()) {
+            throw new IllegalArgumentException("ExactlyOnceEventProcessor requires a transactional KafkaTemplate");
+        }
+        this.transactionalTemplate = transactionalTemplate;
+        this.eventSerializer = eventSerializer;
+        this.topicResolver = topicResolver;
+    }
+
+    /**
+     * Handles a consumed record and atomically publishes its outputs and commits its offset.
+     * 
+     * @param record the consumed record holding a serialized domain event
+     * @param consumer the consumer that polled the record, used for its group metadata
+     * @param handler the step to run
+     * @throws EventProcessingException if the handler fails; the transaction is aborted
+     */
+    public void process(ConsumerRecord<String, String> record, Consumer<?, ?> consumer, TransactionalEventHandler handler) {
+        DomainEvent event = eventSerializer.deserialize(record.value());
+        String eventId = event.getEventId();
+
+        try {
+            transactionalTemplate.executeInTransaction(operations -> {
+                List<DomainEvent> outputs = handler.handle(event);
+                for (DomainEvent output : outputs) {
+                    operations.send(topicResolver.resolveTopicForEvent(output),
+                        output.getAggregateId(),
+                        eventSerializer.serialize(output));
+                }
+                operations.sendOffsetsToTransaction(
+                    Map.of(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1)),
+                    consumer.groupMetadata());
+                logger.debug("Event {} handled transactionally with {} output events", eventId, outputs.size());
+                return null;
+            });
+        } catch (EventProcessingException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Transactional processing of event {} failed, transaction aborted", eventId, e);
+            throw new EventProcessingException("Failed to process event transactionally: " + eventId, e);
+        }
+
+        logger.info("Successfully processed event {} with exactly-once semantics", eventId);
+    }
+
+    @Override
+    public void close() {
+        transactionalTemplate.getProducerFactory().reset();
+    }
+}
@@ -2,6 +2,8 @@ package com.restaurant.events.processing;
 
 import com.restaurant.events.DomainEvent;
 
+import java.util.List;
+
 /**
  * Interface for idempotent event processing.
  * Ensures that events are processed exactly once, even if received multiple times.
@@ -31,4 +33,42 @@ public interface IdempotentEventProcessor {
      * @param eventId the unique event identifier
      */
     void markEventAsProcessed(String eventId);
-}
\ No newline at end of file
+    
+    /**
+     * Checks if an event has already been processed.
+     * Implementations that track progress per aggregate rather than per event override this.
+     * 
+     * @param event the domain event
+     * @return true if the event has been processed before
+     */
+    default boolean isEventProcessed(DomainEvent event) {
+        return isEventProcessed(event.getEventId());
+    }
+    
+    /**
+     * Marks an event as processed.
+     * Implementations that track progress per aggregate rather than per event override this.
+     * 
+     * @param event the domain event
+     */
+    default void markEventAsProcessed(DomainEvent event) {
+        markEventAsProcessed(event.getEventId());
+    }
+    
+    /**
+     * Processes a batch of events idempotently, skipping those already processed.
+     * The default implementation processes the events one at a time.
+     * 
+     * @param events the domain events to process, in consumption order
+     * @return the number of events that were processed for the first time
+     */
+    default int processBatch(List<DomainEvent> events) {
+        int processed = 0;
+        for (DomainEvent event : events) {
+            if (processEvent(event)) {
+                processed++;
+            }
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,327 @@
+package com.restaurant.events.processing;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.deadletter.DeadLetterQueueHandler;
+import com.restaurant.events.serialization.EventSerializer;
+
+/**
+ * Processes consumed records on a worker pool while keeping strict order per record key.
+ * <p>
+ * Records with the same key (the aggregate ID, see {@code KafkaEventPublisher}) are queued behind
+ * each other; records with different keys run in parallel regardless of partition, so one service
+ * instance can use all of its cores without repartitioning topics. Offsets are tracked per partition
+ * and only the lowest fully processed prefix becomes committable.
+ * <p>
+ * Records that cannot be deserialized, or still fail after the configured attempts, are handed to the
+ * dead letter queue handler so one poison record cannot stall its partition's commits. Attempts are
+ * spaced by an exponential backoff on the worker, holding back only the record's key.
+ * <p>
+ * Submitting never blocks the poll thread. Once the in-flight limit is reached the processor reports
+ * itself saturated, so the caller can pause consumption, and signals the capacity listener when half
+ * of the limit is free again. The limit may thus be exceeded by the records of one poll.
+ */
+public class KeyOrderedParallelProcessor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedParallelProcessor.class);
+
+    private final EventProcessor eventProcessor;
+    private final EventSerializer eventSerializer;
+    private final DeadLetterQueueHandler deadLetterQueueHandler;
+    private final ExecutorService workers;
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+
+    private final Object keyLock = new Object();
+    private final Map<String, Deque<ConsumerRecord<String, String>>> keyQueues = new HashMap<>();
+    private final Map<TopicPartition, PartitionOffsetTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile Runnable capacityListener = () -> { };
+
+    public KeyOrderedParallelProcessor(EventProcessor eventProcessor,
+            EventSerializer eventSerializer,
+            DeadLetterQueueHandler deadLetterQueueHandler,
+            ExecutorService workers,
+            int maxInFlight,
+            int maxAttempts,
+            Duration retryBackoff,
+            Duration maxRetryBackoff) {
+        this.eventProcessor = eventProcessor;
+        this.eventSerializer = eventSerializer;
+        this.deadLetterQueueHandler = deadLetterQueueHandler;
+        this.workers = workers;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = Math.max(0, retryBackoff.toMillis());
+        this.maxRetryBackoffMillis = Math.max(retryBackoffMillis, maxRetryBackoff.toMillis());
+    }
+
+    /**
+     * Sets the callback run on a worker thread when a saturated processor has half of its in-flight limit free.
+     */
+    public void setCapacityListener(Runnable capacityListener) {
+        this.capacityListener = capacityListener;
+    }
+
+    /**
+     * Creates a worker pool, using one virtual thread per task when the runtime supports it
+     * and a fixed platform thread pool otherwise.
+     *
+     * @param threads pool size for platform threads
+     * @param preferVirtualThreads whether to use virtual threads when available
+     * @return the worker pool
+     */
+    public static ExecutorService newWorkerPool(int threads, boolean preferVirtualThreads) {
+        if (preferVirtualThreads) {
+            try {
+                return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+            } catch (Throwable e) {
+                logger.info("Virtual threads are not available on this runtime, using {} platform threads", threads);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "event-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Submits a record for processing. Never blocks; see {@link #isSaturated()}.
+     *
+     * @param record the consumed record holding a serialized domain event
+     */
+    public void submit(ConsumerRecord<String, String> record) {
+        inFlight.incrementAndGet();
+        trackers.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), tp -> new PartitionOffsetTracker())
+            .track(record.offset());
+
+        // Keyless records have no aggregate to order by, so keep them in partition order
+        String key = record.key() != null ? record.key() : record.topic() + "-" + record.partition();
+        synchronized (keyLock) {
+            Deque<ConsumerRecord<String, String>> queue = keyQueues.get(key);
+            if (queue != null) {
+                queue.addLast(record);
+                return;
+            }
+            keyQueues.put(key, new ArrayDeque<>());
+        }
+        workers.execute(() -> run(key, record));
+    }
+
+    /**
+     * Returns offsets that advanced since the last call, for all partitions or the given ones.
+     *
+     * @param partitions partitions to include, or null for all tracked partitions
+     * @return offsets ready to commit
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committableOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        trackers.forEach((partition, tracker) -> {
+            if (partitions == null || partitions.contains(partition)) {
+                long offset = tracker.advanceCommitted();
+                if (offset >= 0) {
+                    offsets.put(partition, new OffsetAndMetadata(offset));
+                }
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Waits until no records of the given partitions are in flight.
+     *
+     * @param partitions the partitions to drain
+     * @param timeout maximum time to wait
+     * @return true if the partitions drained within the timeout
+     */
+    public boolean awaitIdle(Collection<TopicPartition> partitions, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            boolean idle = partitions.stream()
+                .map(trackers::get)
+                .allMatch(tracker -> tracker == null || tracker.inFlightCount() == 0);
+            if (idle) {
+                return true;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the records of revoked partitions that have not started yet, so they are left to the partitions'
+     * next owner. Their offsets stay uncommitted; records already running still complete.
+     *
+     * @param partitions the revoked partitions
+     * @return the number of records dropped
+     */
+    public int dropQueued(Collection<TopicPartition> partitions) {
+        int dropped = 0;
+        synchronized (keyLock) {
+            for (Deque<ConsumerRecord<String, String>> queue : keyQueues.values()) {
+                for (Iterator<ConsumerRecord<String, String>> records = queue.iterator(); records.hasNext(); ) {
+                    ConsumerRecord<String, String> record = records.next();
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (partitions.contains(partition)) {
+                        records.remove();
+                        PartitionOffsetTracker tracker = trackers.get(partition);
+                        if (tracker != null) {
+                            tracker.abandon(record.offset());
+                        }
+                        dropped++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < dropped; i++) {
+            finished();
+        }
+        return dropped;
+    }
+
+    /**
+     * Stops tracking offsets of partitions that were revoked.
+     *
+     * @param partitions the revoked partitions
+     */
+    public void release(Collection<TopicPartition> partitions) {
+        partitions.forEach(trackers::remove);
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether the in-flight limit is reached, in which case the caller should stop polling for more records.
+     */
+    public boolean isSaturated() {
+        return inFlight.get() >= maxInFlight;
+    }
+
+    private void run(String key, ConsumerRecord<String, String> record) {
+        try {
+            process(record);
+        } finally {
+            PartitionOffsetTracker tracker = trackers.get(new TopicPartition(record.topic(), record.partition()));
+            if (tracker != null) {
+                tracker.complete(record.offset());
+            }
+            finished();
+            scheduleNext(key);
+        }
+    }
+
+    private void finished() {
+        if (inFlight.decrementAndGet() == maxInFlight / 2) {
+            try {
+                capacityListener.run();
+            } catch (Exception e) {
+                logger.warn("Capacity listener failed", e);
+            }
+        }
+    }
+
+    private void scheduleNext(String key) {
+        ConsumerRecord<String, String> next;
+        synchronized (keyLock) {
+            Deque<ConsumerRecord<String, String>> queue = keyQueues.get(key);
+            next = queue != null ? queue.pollFirst() : null;
+            if (next == null) {
+                keyQueues.remove(key);
+                return;
+            }
+        }
+        ConsumerRecord<String, String> record = next;
+        workers.execute(() -> run(key, record));
+    }
+
+    private void process(ConsumerRecord<String, String> record) {
+        DomainEvent event;
+        try {
+            event = eventSerializer.deserialize(record.value());
+        } catch (Exception e) {
+            String source = record.topic() + "-" + record.partition() + "@" + record.offset();
+            logger.error("Record {} cannot be deserialized, sending to dead letter handling", source, e);
+            deadLetterQueueHandler.handleUndeserializableRecord(source, record.value(), e.getMessage());
+            return;
+        }
+
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                eventProcessor.process(event);
+                return;
+            } catch (Exception e) {
+                if (attempt == maxAttempts || !backOff(attempt)) {
+                    logger.error("Event {} failed after {} attempts, sending to dead letter handling", event.getEventId(), attempt, e);
+                    deadLetterQueueHandler.handleFailedEvent(event, e.getMessage(), attempt);
+                    return;
+                }
+                logger.warn("Event {} failed on attempt {}, retrying", event.getEventId(), attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @return false if the thread was interrupted, in which case no further attempt is made
+     */
+    private boolean backOff(int attempt) {
+        long backoffMillis = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 20));
+        if (backoffMillis == 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(backoffMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+}
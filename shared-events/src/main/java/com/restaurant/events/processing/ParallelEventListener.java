@@ -0,0 +1,164 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationListener;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.BatchConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+/**
+ * Listener container adapter that feeds polled records into a {@link KeyOrderedParallelProcessor}.
+ * <p>
+ * The poll thread only submits records and commits whatever prefix has completed, so a slow record
+ * no longer blocks its partition. Offsets are committed by this listener rather than the container;
+ * on revocation in-flight records are drained (up to a timeout) and their offsets committed before
+ * the partitions move. Records that complete after the last poll returned records are committed once the
+ * container has been idle for the idle commit interval, so a quiet partition does not keep them uncommitted.
+ * <p>
+ * While the processor is saturated the consumer's partitions are paused on the containers created here,
+ * rather than blocking the poll thread past {@code max.poll.interval.ms}; they are resumed once the processor
+ * has capacity again. Records of revoked partitions that have not started are dropped before the drain.
+ */
+public class ParallelEventListener implements BatchConsumerAwareMessageListener<String, String>, ConsumerAwareRebalanceListener,
+        ApplicationListener<ListenerContainerIdleEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelEventListener.class);
+
+    private final KeyOrderedParallelProcessor processor;
+    private final Duration drainTimeout;
+    private final Duration idleCommitInterval;
+    private final List<MessageListenerContainer> containers = new CopyOnWriteArrayList<>();
+    private final Set<TopicPartition> pausedPartitions = ConcurrentHashMap.newKeySet();
+
+    public ParallelEventListener(KeyOrderedParallelProcessor processor, Duration drainTimeout, Duration idleCommitInterval) {
+        this.processor = processor;
+        this.drainTimeout = drainTimeout;
+        this.idleCommitInterval = idleCommitInterval;
+        processor.setCapacityListener(this::resumeIfCapacity);
+    }
+
+    /**
+     * Creates a batch listener container wired to this listener, with container-side commits disabled.
+     * Idle events of the container reach this listener even if the container is not registered as a bean.
+     *
+     * @param consumerFactory factory for String-keyed, String-valued consumers
+     * @param topics topics to subscribe to
+     * @return an unstarted container
+     */
+    public ConcurrentMessageListenerContainer<String, String> createContainer(ConsumerFactory<String, String> consumerFactory,
+            String... topics) {
+        ContainerProperties containerProperties = new ContainerProperties(topics);
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setMessageListener(this);
+        containerProperties.setConsumerRebalanceListener(this);
+        containerProperties.setIdleEventInterval(idleCommitInterval.toMillis());
+        ConcurrentMessageListenerContainer<String, String> container =
+            new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        // Replaced by the application context if the container is registered as a bean
+        container.setApplicationEventPublisher(event -> {
+            if (event instanceof ListenerContainerIdleEvent idleEvent) {
+                onApplicationEvent(idleEvent);
+            }
+        });
+        containers.add(container);
+        return container;
+    }
+
+    @Override
+    public void onMessage(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+        for (ConsumerRecord<String, String> record : records) {
+            processor.submit(record);
+        }
+        if (processor.isSaturated()) {
+            pause(consumer.assignment());
+        } else {
+            resumeIfCapacity();
+        }
+        commitCompleted(consumer, null);
+    }
+
+    /**
+     * Commits records completed since the last poll that returned records. Idle events are published on the
+     * consumer thread, so the event's consumer may be used here.
+     */
+    @Override
+    public void onApplicationEvent(ListenerContainerIdleEvent event) {
+        MessageListenerContainer container = event.getSource(MessageListenerContainer.class);
+        if (container == null || container.getContainerProperties().getMessageListener() != this) {
+            return;
+        }
+        resumeIfCapacity();
+        commitCompleted(event.getConsumer(), event.getTopicPartitions());
+    }
+
+    private void pause(Collection<TopicPartition> partitions) {
+        for (TopicPartition partition : partitions) {
+            for (MessageListenerContainer container : containers) {
+                if (!container.isPartitionPauseRequested(partition)) {
+                    container.pausePartition(partition);
+                }
+            }
+            // Recorded after the request, so a concurrent resume cannot miss a partition it did not see
+            pausedPartitions.add(partition);
+        }
+        logger.debug("Paused partitions {} while {} records are in flight", partitions, processor.getInFlightCount());
+    }
+
+    /**
+     * Resumes the partitions paused by this listener unless the processor is still saturated. Also called from
+     * every poll and idle event, so a pause requested just after the processor freed up does not stick.
+     */
+    private void resumeIfCapacity() {
+        if (pausedPartitions.isEmpty() || processor.isSaturated()) {
+            return;
+        }
+        for (TopicPartition partition : List.copyOf(pausedPartitions)) {
+            pausedPartitions.remove(partition);
+            containers.forEach(container -> container.resumePartition(partition));
+        }
+    }
+
+    private void commitCompleted(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = processor.committableOffsets(partitions);
+        if (!offsets.isEmpty()) {
+            consumer.commitAsync(offsets, (committed, e) -> {
+                if (e != null) {
+                    logger.warn("Failed to commit offsets {}", committed, e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        int dropped = processor.dropQueued(partitions);
+        if (dropped > 0) {
+            logger.info("Dropped {} queued records of revoked partitions {}, they are left to the next owner", dropped, partitions);
+        }
+        if (!processor.awaitIdle(partitions, drainTimeout)) {
+            logger.warn("Records of partitions {} still in flight after {}, they may be redelivered", partitions, drainTimeout);
+        }
+        Map<TopicPartition, OffsetAndMetadata> offsets = processor.committableOffsets(partitions);
+        if (!offsets.isEmpty()) {
+            consumer.commitSync(offsets);
+        }
+        processor.release(partitions);
+    }
+}
@@ -0,0 +1,66 @@
+package com.restaurant.events.processing;
+
+import java.util.TreeSet;
+
+/**
+ * Tracks in-flight offsets of one partition when records complete out of order.
+ * The committable offset is the lowest offset still in flight or abandoned, so a commit never
+ * skips past a record that has not finished processing.
+ */
+public class PartitionOffsetTracker {
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+    private final TreeSet<Long> abandoned = new TreeSet<>();
+    private long highestTracked = -1;
+    private long lastCommitted = -1;
+
+    public synchronized void track(long offset) {
+        inFlight.add(offset);
+        highestTracked = Math.max(highestTracked, offset);
+    }
+
+    public synchronized void complete(long offset) {
+        inFlight.remove(offset);
+    }
+
+    /**
+     * Gives up on a record that will not be processed here, e.g. because its partition was revoked.
+     * It no longer counts as in flight, but commits still stop before it.
+     */
+    public synchronized void abandon(long offset) {
+        if (inFlight.remove(offset)) {
+            abandoned.add(offset);
+        }
+    }
+
+    /**
+     * Gets the offset to commit: the next offset to consume after every fully processed prefix.
+     *
+     * @return the committable offset, or -1 if nothing has been tracked
+     */
+    public synchronized long committableOffset() {
+        if (highestTracked < 0) {
+            return -1;
+        }
+        long committable = inFlight.isEmpty() ? highestTracked + 1 : inFlight.first();
+        return abandoned.isEmpty() ? committable : Math.min(committable, abandoned.first());
+    }
+
+    /**
+     * Returns the committable offset only if it advanced since the last call that returned one.
+     *
+     * @return the new committable offset, or -1 if it has not advanced
+     */
+    public synchronized long advanceCommitted() {
+        long committable = committableOffset();
+        if (committable <= lastCommitted) {
+            return -1;
+        }
+        lastCommitted = committable;
+        return committable;
+    }
+
+    public synchronized int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,128 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * Coalesces processed events and persists them in batches.
+ * A flush starts as soon as an event is queued and no flush is under way, so events queued while one
+ * batch is written share the next one. Callers can wait for their batch, which keeps the window in which
+ * an event is processed but not yet recorded to a single round trip. Failed batches are kept and retried
+ * every flush interval.
+ */
+public class ProcessedEventBatchWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedEventBatchWriter.class);
+
+    private final DatabaseIdempotentEventProcessor database;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private List<DomainEvent> pending = new ArrayList<>();
+    private CompletableFuture<Void> pendingFlushed = new CompletableFuture<>();
+    private boolean flushQueued;
+
+    public ProcessedEventBatchWriter(DatabaseIdempotentEventProcessor database, int maxBatchSize, Duration flushInterval) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        this.database = database;
+        this.maxBatchSize = maxBatchSize;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "processed-events-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a processed event for persistence and starts a flush unless one is already queued.
+     *
+     * @param event the processed event
+     * @return completes once the event's batch is persisted, exceptionally if writing that batch failed;
+     *         the event is then kept for the next flush
+     */
+    public CompletableFuture<Void> enqueue(DomainEvent event) {
+        CompletableFuture<Void> flushed;
+        boolean startFlush;
+        synchronized (lock) {
+            pending.add(event);
+            flushed = pendingFlushed;
+            startFlush = !flushQueued;
+            flushQueued = true;
+        }
+        if (startFlush && !scheduler.isShutdown()) {
+            scheduler.execute(this::flushQuietly);
+        }
+        return flushed;
+    }
+
+    /**
+     * Persists all queued events, in batches of at most the configured size.
+     */
+    public void flush() {
+        List<DomainEvent> batch;
+        CompletableFuture<Void> flushed;
+        synchronized (lock) {
+            flushQueued = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            flushed = pendingFlushed;
+            pending = new ArrayList<>(Math.max(maxBatchSize, batch.size()));
+            pendingFlushed = new CompletableFuture<>();
+        }
+        try {
+            for (int from = 0; from < batch.size(); from += maxBatchSize) {
+                database.markEventsAsProcessed(batch.subList(from, Math.min(batch.size(), from + maxBatchSize)));
+            }
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                batch.addAll(pending);
+                pending = batch;
+            }
+            flushed.completeExceptionally(e);
+            throw e;
+        }
+        flushed.complete(null);
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Failed to flush processed event batch, will retry on next flush", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
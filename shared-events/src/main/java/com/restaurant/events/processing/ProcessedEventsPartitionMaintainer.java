@@ -0,0 +1,137 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Keeps the processed_events table partitioned by the day events occurred and enforces its retention.
+ * <p>
+ * Each run pre-creates daily partitions a few days ahead by splitting the catch-all
+ * {@code p_future} partition, and drops whole partitions that lie entirely beyond the
+ * redelivery horizon. Dropping a partition is a metadata operation, so retention never
+ * competes with the consumer hot path the way row-by-row DELETEs would.
+ * See {@code sql/partition-processed-events.sql} for the expected table layout.
+ */
+public class ProcessedEventsPartitionMaintainer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessedEventsPartitionMaintainer.class);
+
+    private static final String TABLE_NAME = "processed_events";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private static final String SELECT_PARTITIONS_SQL =
+        "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration retention;
+    private final int daysAhead;
+    private final ScheduledExecutorService scheduler;
+
+    public ProcessedEventsPartitionMaintainer(DataSource dataSource, Duration retention, int daysAhead, Duration runInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.retention = retention;
+        this.daysAhead = daysAhead;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "processed-events-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = runInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::maintainQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates upcoming daily partitions and drops partitions older than the retention period.
+     */
+    public void maintain() {
+        List<String> partitions = jdbcTemplate.queryForList(SELECT_PARTITIONS_SQL, String.class, TABLE_NAME);
+        if (!partitions.contains(FUTURE_PARTITION)) {
+            logger.warn("Table {} is not partitioned by day, skipping retention. Apply sql/partition-processed-events.sql", TABLE_NAME);
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        createUpcomingPartitions(partitions, today);
+        dropExpiredPartitions(partitions, today);
+    }
+
+    private void createUpcomingPartitions(List<String> partitions, LocalDate today) {
+        List<String> definitions = new ArrayList<>();
+        for (int offset = 0; offset <= daysAhead; offset++) {
+            LocalDate day = today.plusDays(offset);
+            String name = day.format(PARTITION_NAME_FORMAT);
+            if (!partitions.contains(name) && isAfterLatestPartition(partitions, day)) {
+                definitions.add(String.format("PARTITION %s VALUES LESS THAN ('%s')", name, day.plusDays(1)));
+            }
+        }
+        if (definitions.isEmpty()) {
+            return;
+        }
+        definitions.add("PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " REORGANIZE PARTITION " + FUTURE_PARTITION
+            + " INTO (" + String.join(", ", definitions) + ")");
+        logger.info("Created {} daily partitions on {}", definitions.size() - 1, TABLE_NAME);
+    }
+
+    private void dropExpiredPartitions(List<String> partitions, LocalDate today) {
+        // A partition only holds rows of its own day, so it expires once the whole day is out of retention
+        LocalDate oldestRetainedDay = today.minusDays(Math.max(1, (retention.toHours() + 23) / 24));
+        List<String> expired = new ArrayList<>();
+        for (String partition : partitions) {
+            LocalDate day = parseDay(partition);
+            if (day != null && day.isBefore(oldestRetainedDay)) {
+                expired.add(partition);
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " DROP PARTITION " + String.join(", ", expired));
+        logger.info("Dropped {} expired partitions from {}: {}", expired.size(), TABLE_NAME, expired);
+    }
+
+    private boolean isAfterLatestPartition(List<String> partitions, LocalDate day) {
+        for (String partition : partitions) {
+            LocalDate existing = parseDay(partition);
+            if (existing != null && !existing.isBefore(day)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LocalDate parseDay(String partitionName) {
+        try {
+            return LocalDate.parse(partitionName, PARTITION_NAME_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            logger.error("Failed to maintain partitions of {}", TABLE_NAME, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
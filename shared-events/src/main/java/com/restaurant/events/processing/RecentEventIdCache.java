@@ -0,0 +1,54 @@
+package com.restaurant.events.processing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU set of recently processed event IDs.
+ * A hit means the event has definitely been seen by this instance.
+ */
+public class RecentEventIdCache {
+
+    private final int capacity;
+    private final LinkedHashMap<String, Boolean> entries;
+
+    public RecentEventIdCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > RecentEventIdCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Checks whether the event ID was recently recorded, refreshing its recency on a hit.
+     *
+     * @param eventId the unique event identifier
+     * @return true if the ID is in the cache
+     */
+    public synchronized boolean contains(String eventId) {
+        return entries.get(eventId) != null;
+    }
+
+    /**
+     * Records an event ID, evicting the least recently used entry when full.
+     *
+     * @param eventId the unique event identifier
+     */
+    public synchronized void add(String eventId) {
+        entries.put(eventId, Boolean.TRUE);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,194 @@
+package com.restaurant.events.processing;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over event IDs made of generations.
+ * A miss means the event has definitely not been recorded within the retention time.
+ * When the newest generation reaches its expected insertions a fresh generation is started, so the false
+ * positive rate stays bounded. An older generation is only dropped once the generation after it was
+ * started more than the retention time ago, so every ID is kept for at least that long however many
+ * IDs arrive meanwhile. Recording an ID the newest generation already holds does not count as an insertion.
+ */
+public class RotatingBloomFilter {
+
+    private final double falsePositiveProbability;
+    private final long retentionNanos;
+    private final int minExpectedInsertions;
+    private volatile int expectedInsertions;
+
+    // Newest first, replaced as a whole on rotation
+    private volatile List<Generation> generations;
+
+    public RotatingBloomFilter(int expectedInsertions, double falsePositiveProbability, Duration retention) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+        }
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1) {
+            throw new IllegalArgumentException("False positive probability must be in (0, 1): " + falsePositiveProbability);
+        }
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.retentionNanos = retention.toNanos();
+        this.minExpectedInsertions = expectedInsertions;
+        this.expectedInsertions = expectedInsertions;
+        this.generations = List.of(new Generation(expectedInsertions, falsePositiveProbability));
+    }
+
+    /**
+     * Checks whether the event ID may have been recorded.
+     *
+     * @param eventId the unique event identifier
+     * @return false if the ID was definitely never recorded, true if it possibly was
+     */
+    public boolean mightContain(String eventId) {
+        long hash = hash64(eventId);
+        for (Generation generation : generations) {
+            if (generation.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records an event ID in the newest generation, starting a new one when it is full.
+     *
+     * @param eventId the unique event identifier
+     */
+    public void put(String eventId) {
+        long hash = hash64(eventId);
+        Generation generation = generations.get(0);
+        if (generation.put(hash) && generation.insertions.incrementAndGet() >= generation.expectedInsertions) {
+            rotate(generation);
+        }
+    }
+
+    /**
+     * Sizes generations started from now on for the given number of IDs per retention time, e.g. the number
+     * a warm-up loaded. Generations are never sized below the configured expected insertions.
+     *
+     * @param insertions IDs recorded within the retention time
+     */
+    public void expectInsertions(long insertions) {
+        expectedInsertions = (int) Math.min(Math.max(insertions, minExpectedInsertions), Integer.MAX_VALUE);
+    }
+
+    private synchronized void rotate(Generation full) {
+        List<Generation> current = generations;
+        if (current.get(0) != full) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Generation> rotated = new ArrayList<>(current.size() + 1);
+        rotated.add(new Generation(expectedInsertions, falsePositiveProbability));
+        rotated.add(full);
+        for (int i = 1; i < current.size(); i++) {
+            // Every ID of this generation was recorded before the next one started
+            if (now - current.get(i - 1).startedAt >= retentionNanos) {
+                break;
+            }
+            rotated.add(current.get(i));
+        }
+        generations = List.copyOf(rotated);
+    }
+
+    /**
+     * Gets the number of bits of the newest generation.
+     */
+    public int getNumBits() {
+        return generations.get(0).numBits;
+    }
+
+    public int getGenerationCount() {
+        return generations.size();
+    }
+
+    private static final class Generation {
+
+        private final int expectedInsertions;
+        private final int numBits;
+        private final int numHashFunctions;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLongArray words;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Generation(int expectedInsertions, double falsePositiveProbability) {
+            this.expectedInsertions = expectedInsertions;
+            this.numBits = optimalNumBits(expectedInsertions, falsePositiveProbability);
+            this.numHashFunctions = optimalNumHashFunctions(expectedInsertions, numBits);
+            this.words = new AtomicLongArray((numBits + 63) >>> 6);
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int bit = bitIndex(h1 + i * h2);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Sets the hash's bits.
+         *
+         * @return whether any bit was not set yet, i.e. the ID is new to this generation
+         */
+        private boolean put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int bit = bitIndex(h1 + i * h2);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value;
+                do {
+                    value = words.get(word);
+                    if ((value & mask) != 0) {
+                        break;
+                    }
+                } while (!words.compareAndSet(word, value, value | mask));
+                changed |= (value & mask) == 0;
+            }
+            return changed;
+        }
+
+        private int bitIndex(int combinedHash) {
+            return (combinedHash & Integer.MAX_VALUE) % numBits;
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by a murmur3 finalizer for better bit mixing.
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int optimalNumBits(long expectedInsertions, double falsePositiveProbability) {
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        return (int) Math.min(Math.max(bits, 64), Integer.MAX_VALUE - 63);
+    }
+
+    private static int optimalNumHashFunctions(long expectedInsertions, long numBits) {
+        return Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+}
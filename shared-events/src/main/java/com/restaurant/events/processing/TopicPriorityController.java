@@ -0,0 +1,220 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ListenerContainerRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+/**
+ * Gives saga-step topics precedence over bulk topics that share a listener container.
+ * <p>
+ * Topics are given integer priorities, higher meaning more urgent; unlisted topics get the default
+ * priority. On each sample the controller looks at the records lag of each priority level a container
+ * is assigned. While a level is behind by more than the pause threshold, every partition of a lower
+ * level is paused, so the poll loop and its threads only serve the urgent work. Those partitions are
+ * resumed once the level has caught up to below the resume threshold; the gap between the two
+ * thresholds avoids pausing and resuming on every sample.
+ * <p>
+ * Only partitions paused by this controller are ever resumed by it. Whether a partition still needs
+ * pausing is asked of the container, since a restarted or reassigned container starts with nothing
+ * paused even if the controller paused the partition before.
+ */
+public class TopicPriorityController implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicPriorityController.class);
+
+    private static final String LAG_METRIC = "records-lag";
+
+    private final ListenerContainerRegistry containerRegistry;
+    private final Map<String, Integer> topicPriorities;
+    private final int defaultPriority;
+    private final long pauseLag;
+    private final long resumeLag;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, Integer> gateLevels = new ConcurrentHashMap<>();
+    private final Map<String, Set<TopicPartition>> pausedByListener = new ConcurrentHashMap<>();
+
+    public TopicPriorityController(ListenerContainerRegistry containerRegistry,
+            Map<String, Integer> topicPriorities,
+            int defaultPriority,
+            long pauseLag,
+            long resumeLag,
+            Duration sampleInterval) {
+        if (resumeLag >= pauseLag) {
+            throw new IllegalArgumentException("Resume lag must be lower than pause lag");
+        }
+        this.containerRegistry = containerRegistry;
+        this.topicPriorities = Map.copyOf(topicPriorities);
+        this.defaultPriority = defaultPriority;
+        this.pauseLag = pauseLag;
+        this.resumeLag = resumeLag;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "topic-priority");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = sampleInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::sampleQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Parses a priority list of the form {@code topic:priority,topic:priority}.
+     *
+     * @param definitions the topic priority definitions
+     * @return priorities by topic
+     */
+    public static Map<String, Integer> parsePriorities(Collection<String> definitions) {
+        Map<String, Integer> priorities = new HashMap<>();
+        for (String definition : definitions) {
+            String trimmed = definition.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int separator = trimmed.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Topic priority must be 'topic:priority': " + trimmed);
+            }
+            priorities.put(trimmed.substring(0, separator).trim(), Integer.parseInt(trimmed.substring(separator + 1).trim()));
+        }
+        return priorities;
+    }
+
+    public int getPriority(String topic) {
+        return topicPriorities.getOrDefault(topic, defaultPriority);
+    }
+
+    /**
+     * Samples every running listener container once and pauses or resumes its partitions.
+     */
+    public void sample() {
+        for (MessageListenerContainer container : containerRegistry.getAllListenerContainers()) {
+            String listenerId = container.getListenerId();
+            if (listenerId == null) {
+                continue;
+            }
+            if (!container.isRunning()) {
+                // Pause requests do not survive a restart
+                pausedByListener.remove(listenerId);
+                gateLevels.remove(listenerId);
+                continue;
+            }
+            Collection<TopicPartition> assigned = container.getAssignedPartitions();
+            if (assigned == null || assigned.isEmpty()) {
+                continue;
+            }
+            sample(listenerId, container, assigned);
+        }
+    }
+
+    private void sample(String listenerId, MessageListenerContainer container, Collection<TopicPartition> assigned) {
+        Map<TopicPartition, Long> partitionLag = partitionLag(container);
+        TreeMap<Integer, Long> levelLag = new TreeMap<>();
+        for (TopicPartition partition : assigned) {
+            levelLag.merge(getPriority(partition.topic()), partitionLag.getOrDefault(partition, 0L), Long::sum);
+        }
+
+        int gate = Integer.MIN_VALUE;
+        if (levelLag.size() > 1) {
+            Integer currentGate = gateLevels.get(listenerId);
+            int lowestLevel = levelLag.firstKey();
+            for (Map.Entry<Integer, Long> level : levelLag.descendingMap().entrySet()) {
+                if (level.getKey() == lowestLevel) {
+                    break;
+                }
+                boolean gating = level.getKey().equals(currentGate);
+                if (level.getValue() > pauseLag || (gating && level.getValue() > resumeLag)) {
+                    gate = level.getKey();
+                    break;
+                }
+            }
+        }
+        applyGate(listenerId, container, assigned, gate);
+    }
+
+    private void applyGate(String listenerId, MessageListenerContainer container, Collection<TopicPartition> assigned, int gate) {
+        int previousGate = gateLevels.getOrDefault(listenerId, Integer.MIN_VALUE);
+        gateLevels.put(listenerId, gate);
+        Set<TopicPartition> paused = pausedByListener.computeIfAbsent(listenerId, id -> new HashSet<>());
+
+        Set<TopicPartition> toPause = new HashSet<>();
+        for (TopicPartition partition : assigned) {
+            if (getPriority(partition.topic()) < gate) {
+                toPause.add(partition);
+            }
+        }
+
+        for (TopicPartition partition : toPause) {
+            paused.add(partition);
+            if (!container.isPartitionPauseRequested(partition)) {
+                container.pausePartition(partition);
+            }
+        }
+        // Also forget partitions that were revoked while paused
+        paused.removeIf(partition -> {
+            if (toPause.contains(partition)) {
+                return false;
+            }
+            if (assigned.contains(partition)) {
+                container.resumePartition(partition);
+            }
+            return true;
+        });
+
+        if (previousGate != gate) {
+            if (gate == Integer.MIN_VALUE) {
+                logger.info("Listener {} caught up on urgent topics, resumed lower-priority partitions", listenerId);
+            } else {
+                logger.info("Listener {} is behind on priority {} topics, paused {} lower-priority partitions",
+                    listenerId, gate, toPause.size());
+            }
+        }
+    }
+
+    private Map<TopicPartition, Long> partitionLag(MessageListenerContainer container) {
+        Map<TopicPartition, Long> lag = new HashMap<>();
+        for (Map<MetricName, ? extends Metric> clientMetrics : container.metrics().values()) {
+            for (Map.Entry<MetricName, ? extends Metric> entry : clientMetrics.entrySet()) {
+                MetricName name = entry.getKey();
+                String topic = name.tags().get("topic");
+                String partition = name.tags().get("partition");
+                if (!LAG_METRIC.equals(name.name()) || topic == null || partition == null) {
+                    continue;
+                }
+                Object value = entry.getValue().metricValue();
+                if (value instanceof Number number && !Double.isNaN(number.doubleValue())) {
+                    lag.put(new TopicPartition(topic, Integer.parseInt(partition)), number.longValue());
+                }
+            }
+        }
+        return lag;
+    }
+
+    private void sampleQuietly() {
+        try {
+            sample();
+        } catch (Exception e) {
+            logger.error("Failed to apply topic priorities", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,23 @@
+package com.restaurant.events.processing;
+
+import java.util.List;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * Handler for one consume-process-produce step executed inside a Kafka transaction.
+ * Side effects must be limited to the returned events or to idempotent upserts,
+ * because an aborted transaction causes the input event to be redelivered.
+ */
+@FunctionalInterface
+public interface TransactionalEventHandler {
+    
+    /**
+     * Handles an input event and returns the events to publish atomically with its offset commit.
+     * 
+     * @param event the consumed domain event
+     * @return events to publish, empty if none
+     * @throws EventProcessingException if handling fails and the transaction must abort
+     */
+    List<DomainEvent> handle(DomainEvent event);
+}
@@ -0,0 +1,287 @@
+package com.restaurant.events.processing;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.restaurant.events.DomainEvent;
+import com.restaurant.events.publisher.TopicResolver;
+
+/**
+ * IdempotentEventProcessor that tracks only the highest applied version per aggregate.
+ * <p>
+ * Kafka delivers the records of one key in order and every event is keyed by its aggregate ID,
+ * so an event whose version is at or below the aggregate's watermark is a duplicate. This replaces
+ * one processed_events row per event with one aggregate_watermarks row per aggregate and topic,
+ * persisted periodically and whenever partitions are revoked.
+ * <p>
+ * Ordering only holds within a topic, and one aggregate's event types are often published to different
+ * topics, e.g. OrderCreated and OrderConfirmed. Watermarks are therefore kept per topic, the topic being
+ * resolved from the event type, so an event is never dropped because a later version arrived first on
+ * another topic. Within a topic an aggregate skips the versions published elsewhere, so
+ * {@link GapPolicy#FAIL} only suits topics that carry all of an aggregate's events; the gap policy
+ * defaults to {@link GapPolicy#WARN}.
+ * <p>
+ * Events known only by their ID carry no aggregate or version; lookups and marks by ID are handed to
+ * an ID-based processor.
+ */
+public class VersionWatermarkEventProcessor implements IdempotentEventProcessor, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VersionWatermarkEventProcessor.class);
+
+    private static final String UPSERT_WATERMARK_SQL =
+        "INSERT INTO aggregate_watermarks (processor_name, topic, aggregate_id, version, updated_at) " +
+        "VALUES (?, ?, ?, ?, NOW()) " +
+        "ON DUPLICATE KEY UPDATE version = GREATEST(version, VALUES(version)), updated_at = NOW()";
+
+    private static final String SELECT_WATERMARK_SQL =
+        "SELECT version FROM aggregate_watermarks WHERE processor_name = ? AND topic = ? AND aggregate_id = ?";
+
+    private static final String SELECT_WATERMARKS_SINCE_SQL =
+        "SELECT topic, aggregate_id, version FROM aggregate_watermarks WHERE processor_name = ? AND updated_at >= ?";
+
+    // Separates topic and aggregate ID in watermark keys; Kafka topic names cannot contain it
+    private static final char KEY_SEPARATOR = '|';
+
+    /**
+     * What to do when an event skips one or more versions of its aggregate.
+     */
+    public enum GapPolicy {
+        /** Log the gap and apply the event. */
+        WARN,
+        /** Reject the event so it is retried or dead-lettered. */
+        FAIL
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EventProcessor eventProcessor;
+    private final String processorName;
+    private final GapPolicy gapPolicy;
+    private final TopicResolver topicResolver;
+    private final IdempotentEventProcessor idProcessor;
+    private final AggregateVersionTable watermarks;
+    private final Map<String, Integer> dirtyWatermarks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong warmUps = new AtomicLong();
+
+    private volatile boolean warmedUp;
+
+    public VersionWatermarkEventProcessor(DataSource dataSource,
+            EventProcessor eventProcessor,
+            String processorName,
+            GapPolicy gapPolicy,
+            TopicResolver topicResolver,
+            IdempotentEventProcessor idProcessor,
+            int expectedAggregates,
+            Duration flushInterval) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.eventProcessor = eventProcessor;
+        this.processorName = processorName;
+        this.gapPolicy = gapPolicy;
+        this.topicResolver = topicResolver;
+        this.idProcessor = idProcessor;
+        this.watermarks = new AggregateVersionTable(expectedAggregates);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "watermark-writer-" + processorName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        this.scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Loads watermarks updated within the redelivery horizon.
+     * Once loaded, aggregates that are not tracked are treated as new without a database lookup; while
+     * loading they are looked up. Watermarks already in memory only ever advance, so they are kept.
+     *
+     * @param redeliveryHorizon how far back redeliveries can reach
+     */
+    public void warmUp(Duration redeliveryHorizon) {
+        long warmUp;
+        synchronized (warmUps) {
+            warmUp = warmUps.incrementAndGet();
+            warmedUp = false;
+        }
+        try {
+            jdbcTemplate.query(SELECT_WATERMARKS_SINCE_SQL,
+                rs -> {
+                    watermarks.advance(key(rs.getString(1), rs.getString(2)), rs.getInt(3));
+                },
+                processorName,
+                Timestamp.valueOf(LocalDateTime.now().minus(redeliveryHorizon)));
+            // Watermarks advanced but not yet flushed are newer than anything stored
+            dirtyWatermarks.forEach(watermarks::advance);
+            // A warm-up or reset started meanwhile must finish before untracked aggregates count as new
+            synchronized (warmUps) {
+                if (warmUps.get() == warmUp) {
+                    warmedUp = true;
+                }
+            }
+            logger.info("Loaded {} aggregate watermarks for processor {}", watermarks.size(), processorName);
+        } catch (Exception e) {
+            logger.warn("Failed to load aggregate watermarks for processor {}, falling back to lookups", processorName, e);
+        }
+    }
+
+    @Override
+    public boolean processEvent(DomainEvent event) {
+        String eventId = event.getEventId();
+        String key = key(event);
+        int watermark = currentWatermark(key);
+
+        if (event.getVersion() <= watermark) {
+            logger.debug("Event {} (version {}) is at or below watermark {} of {}, skipping",
+                eventId, event.getVersion(), watermark, key);
+            return false;
+        }
+
+        if (watermark > 0 && event.getVersion() > watermark + 1) {
+            if (gapPolicy == GapPolicy.FAIL) {
+                throw new EventProcessingException(String.format(
+                    "Version gap for %s: expected %d but received %d in event %s",
+                    key, watermark + 1, event.getVersion(), eventId));
+            }
+            logger.warn("Version gap for {}: expected {} but received {} in event {}",
+                key, watermark + 1, event.getVersion(), eventId);
+        }
+
+        try {
+            logger.debug("Processing event {} for the first time", eventId);
+            eventProcessor.process(event);
+        } catch (Exception e) {
+            logger.error("Failed to process event {}", eventId, e);
+            throw new EventProcessingException("Failed to process event: " + eventId, e);
+        }
+
+        markEventAsProcessed(event);
+        logger.info("Successfully processed event {}", eventId);
+        return true;
+    }
+
+    @Override
+    public boolean isEventProcessed(DomainEvent event) {
+        return event.getVersion() <= currentWatermark(key(event));
+    }
+
+    @Override
+    public void markEventAsProcessed(DomainEvent event) {
+        String key = key(event);
+        watermarks.advance(key, event.getVersion());
+        dirtyWatermarks.merge(key, event.getVersion(), Integer::max);
+    }
+
+    @Override
+    public boolean isEventProcessed(String eventId) {
+        return idProcessor.isEventProcessed(eventId);
+    }
+
+    @Override
+    public void markEventAsProcessed(String eventId) {
+        idProcessor.markEventAsProcessed(eventId);
+    }
+
+    /**
+     * Persists all watermarks advanced since the last flush in one batched upsert.
+     */
+    public void flush() {
+        if (dirtyWatermarks.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = new ArrayList<>(dirtyWatermarks.size());
+        for (String key : dirtyWatermarks.keySet()) {
+            Integer version = dirtyWatermarks.remove(key);
+            if (version != null) {
+                int separator = key.indexOf(KEY_SEPARATOR);
+                batchArgs.add(new Object[]{processorName, key.substring(0, separator), key.substring(separator + 1), version});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_WATERMARK_SQL, batchArgs);
+            logger.debug("Persisted {} aggregate watermarks for processor {}", batchArgs.size(), processorName);
+        } catch (Exception e) {
+            for (Object[] args : batchArgs) {
+                dirtyWatermarks.merge(key((String) args[1], (String) args[2]), (Integer) args[3], Integer::max);
+            }
+            throw new EventProcessingException("Failed to persist aggregate watermarks for processor: " + processorName, e);
+        }
+    }
+
+    /**
+     * Flushes pending watermarks and drops the in-memory table.
+     * Called when partitions are revoked, since another instance may advance those aggregates next.
+     */
+    public void flushAndReset() {
+        synchronized (warmUps) {
+            warmUps.incrementAndGet();
+            warmedUp = false;
+        }
+        flush();
+        watermarks.clear();
+    }
+
+    public String getProcessorName() {
+        return processorName;
+    }
+
+    private String key(DomainEvent event) {
+        return key(topicResolver.resolveTopicForEvent(event), event.getAggregateId());
+    }
+
+    private static String key(String topic, String aggregateId) {
+        return topic + KEY_SEPARATOR + aggregateId;
+    }
+
+    private int currentWatermark(String key) {
+        int watermark = watermarks.get(key);
+        if (watermark != AggregateVersionTable.ABSENT) {
+            return watermark;
+        }
+        if (warmedUp) {
+            return 0;
+        }
+        int separator = key.indexOf(KEY_SEPARATOR);
+        try {
+            List<Integer> stored = jdbcTemplate.queryForList(SELECT_WATERMARK_SQL, Integer.class,
+                processorName, key.substring(0, separator), key.substring(separator + 1));
+            watermark = stored.isEmpty() ? 0 : stored.get(0);
+        } catch (Exception e) {
+            throw new EventProcessingException("Failed to load watermark for " + key, e);
+        }
+        watermarks.advance(key, watermark);
+        return watermark;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.warn("Failed to flush aggregate watermarks, will retry on next flush", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
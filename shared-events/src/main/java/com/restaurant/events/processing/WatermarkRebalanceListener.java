@@ -0,0 +1,43 @@
+package com.restaurant.events.processing;
+
+import java.time.Duration;
+import java.util.Collection;
+
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists aggregate watermarks before partitions move to another consumer and reloads them on assignment.
+ * Register it on the listener container that feeds a {@link VersionWatermarkEventProcessor}.
+ */
+public class WatermarkRebalanceListener implements ConsumerRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(WatermarkRebalanceListener.class);
+
+    private final VersionWatermarkEventProcessor processor;
+    private final Duration redeliveryHorizon;
+
+    public WatermarkRebalanceListener(VersionWatermarkEventProcessor processor, Duration redeliveryHorizon) {
+        this.processor = processor;
+        this.redeliveryHorizon = redeliveryHorizon;
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        logger.info("Partitions {} revoked, persisting watermarks for processor {}", partitions, processor.getProcessorName());
+        processor.flushAndReset();
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        processor.warmUp(redeliveryHorizon);
+    }
+}
@@ -1,6 +1,8 @@
 package com.restaurant.events.publisher;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventTypeDescriptor;
+import com.restaurant.events.registry.EventTypeRegistry;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -49,28 +51,15 @@ public class DefaultTopicResolver implements TopicResolver {
     
     /**
      * Creates the default mapping between event types and Kafka topics
-     * based on the saga orchestration design.
+     * from the topics declared on the registered event types.
      */
     private static Map<String, String> createDefaultEventTopicMapping() {
         Map<String, String> mapping = new HashMap<>();
-        
-        // Saga orchestration topics
-        mapping.put("OrderCreated", "order-saga-started");
-        mapping.put("CartValidationRequested", "cart-validation-requested");
-        mapping.put("CartValidationCompleted", "cart-validation-completed");
-        mapping.put("PaymentInitiationRequested", "payment-initiation-requested");
-        mapping.put("PaymentProcessingCompleted", "payment-processing-completed");
-        mapping.put("OrderConfirmed", "order-confirmed");
-        mapping.put("OrderCancelled", "order-cancelled");
-        
-        // User service events
-        mapping.put("UserCreated", "user-events");
-        mapping.put("UserUpdated", "user-events");
-        
-        // Restaurant service events
-        mapping.put("RestaurantCreated", "restaurant-events");
-        mapping.put("MenuUpdated", "restaurant-events");
-        
+        for (EventTypeDescriptor descriptor : EventTypeRegistry.getDefault().getEventTypes()) {
+            if (descriptor.getTopic() != null) {
+                mapping.put(descriptor.getTypeName(), descriptor.getTopic());
+            }
+        }
         return mapping;
     }
 }
\ No newline at end of file
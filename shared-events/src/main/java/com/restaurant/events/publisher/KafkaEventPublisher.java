@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
+import org.apache.kafka.clients.producer.RecordMetadata;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -12,6 +13,7 @@ import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.monitoring.PartitionSkewDetector;
 import com.restaurant.events.serialization.EventSerializer;
 
 /**
@@ -27,6 +29,7 @@ public class KafkaEventPublisher implements EventPublisher {
     private final EventSerializer eventSerializer;
     private final TopicResolver topicResolver;
     private final String deadLetterTopic;
+    private PartitionSkewDetector skewDetector;
 
     public KafkaEventPublisher(KafkaTemplate<String, String> kafkaTemplate,
             EventSerializer eventSerializer,
@@ -38,6 +41,13 @@ public class KafkaEventPublisher implements EventPublisher {
         this.deadLetterTopic = deadLetterTopic;
     }
 
+    /**
+     * Sets a detector that is fed every successfully published record.
+     */
+    public void setSkewDetector(PartitionSkewDetector skewDetector) {
+        this.skewDetector = skewDetector;
+    }
+
     @Override
     @Retryable(
             value = {EventPublishingException.class},
@@ -68,6 +78,7 @@ public class KafkaEventPublisher implements EventPublisher {
 
             // Wait for synchronous completion
             SendResult<String, String> result = future.get();
+            recordPublished(result);
 
             logger.info("Successfully published event {} to topic {} at offset {}",
                     event.getEventId(), topic, result.getRecordMetadata().offset());
@@ -115,6 +126,7 @@ public class KafkaEventPublisher implements EventPublisher {
                     handlePublishingFailureAsync(event, ex);
                     throw new EventPublishingException("Failed to publish event: " + event.getEventId(), ex);
                 } else {
+                    recordPublished(result);
                     logger.info("Successfully published event {} to topic {} at offset {}",
                             event.getEventId(), topic, result.getRecordMetadata().offset());
                     return null;
@@ -136,6 +148,17 @@ public class KafkaEventPublisher implements EventPublisher {
         return CompletableFuture.allOf(futures);
     }
 
+    private void recordPublished(SendResult<String, String> result) {
+        if (skewDetector != null) {
+            RecordMetadata metadata = result.getRecordMetadata();
+            skewDetector.record(PartitionSkewDetector.Direction.PUBLISHED,
+                    metadata.topic(),
+                    metadata.partition(),
+                    result.getProducerRecord().key(),
+                    Math.max(0, metadata.serializedKeySize()) + Math.max(0, metadata.serializedValueSize()));
+        }
+    }
+
     /**
      * Handles publishing failures by sending events to dead letter queue.
      */
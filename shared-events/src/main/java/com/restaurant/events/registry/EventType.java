@@ -0,0 +1,28 @@
+package com.restaurant.events.registry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Registers a domain event class under its type name.
+ * Every concrete DomainEvent subclass must carry this annotation; the build fails otherwise.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EventType {
+
+    /**
+     * The event type name, returned by {@code DomainEvent.getEventType()}, written as the "eventType" property
+     * and stored in the event store.
+     */
+    String value();
+
+    /**
+     * The Kafka topic events of this type are published to; empty for the default naming convention.
+     */
+    String topic() default "";
+}
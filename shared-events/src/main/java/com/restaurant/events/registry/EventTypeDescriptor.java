@@ -0,0 +1,46 @@
+package com.restaurant.events.registry;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * Name, class, schema version and topic of one registered event type.
+ */
+public final class EventTypeDescriptor {
+
+    private final String typeName;
+    private final Class<? extends DomainEvent> eventClass;
+    private final int version;
+    private final String topic;
+
+    public EventTypeDescriptor(String typeName, Class<? extends DomainEvent> eventClass, int version, String topic) {
+        this.typeName = typeName;
+        this.eventClass = eventClass;
+        this.version = version;
+        this.topic = topic;
+    }
+
+    public String getTypeName() {
+        return typeName;
+    }
+
+    public Class<? extends DomainEvent> getEventClass() {
+        return eventClass;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the topic declared for this type, or null to use the default naming convention.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EventTypeDescriptor{typeName='%s', eventClass=%s, version=%d, topic='%s'}",
+                typeName, eventClass.getName(), version, topic);
+    }
+}
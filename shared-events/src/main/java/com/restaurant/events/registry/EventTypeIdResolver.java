@@ -0,0 +1,66 @@
+package com.restaurant.events.registry;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DatabindContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+
+/**
+ * Resolves the "eventType" property through the {@link EventTypeRegistry}, so any ObjectMapper reads and
+ * writes domain events without a subtype list or module registration.
+ */
+public class EventTypeIdResolver extends TypeIdResolverBase {
+
+    private JavaType baseType;
+
+    @Override
+    public void init(JavaType baseType) {
+        this.baseType = baseType;
+    }
+
+    @Override
+    public String idFromValue(Object value) {
+        return idFromValueAndType(value, value.getClass());
+    }
+
+    @Override
+    public String idFromValueAndType(Object value, Class<?> suggestedType) {
+        EventTypeDescriptor descriptor = EventTypeRegistry.getDefault().find(suggestedType);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("Event class is not registered, annotate it with @EventType: " + suggestedType.getName());
+        }
+        return descriptor.getTypeName();
+    }
+
+    @Override
+    public JavaType typeFromId(DatabindContext context, String id) throws IOException {
+        EventTypeRegistry registry = EventTypeRegistry.getDefault();
+        EventTypeDescriptor descriptor = registry.find(id);
+        if (descriptor == null) {
+            return null;
+        }
+        Class<?> declared = baseType.getRawClass();
+        if (!declared.isAssignableFrom(descriptor.getEventClass())) {
+            // The declared class may be a shadowed shared class registered under the same name
+            EventTypeDescriptor declaredDescriptor = registry.find(declared);
+            return declaredDescriptor != null && declaredDescriptor.getTypeName().equals(id) ? baseType : null;
+        }
+        return context.getTypeFactory().constructSpecializedType(baseType, descriptor.getEventClass());
+    }
+
+    @Override
+    public String getDescForKnownTypeIds() {
+        return EventTypeRegistry.getDefault().getEventTypes().stream()
+            .map(EventTypeDescriptor::getTypeName)
+            .sorted()
+            .toList()
+            .toString();
+    }
+
+    @Override
+    public JsonTypeInfo.Id getMechanism() {
+        return JsonTypeInfo.Id.CUSTOM;
+    }
+}
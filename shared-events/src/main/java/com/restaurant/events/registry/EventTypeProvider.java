@@ -0,0 +1,30 @@
+package com.restaurant.events.registry;
+
+import java.util.List;
+
+/**
+ * Supplies the event types of one module. Implementations are generated at compile time by the event
+ * registry processor and discovered through {@link java.util.ServiceLoader}.
+ */
+public interface EventTypeProvider {
+
+    /**
+     * Gets the event types of this module.
+     */
+    List<EventTypeDescriptor> getEventTypes();
+
+    /**
+     * Resolves a type name to its position in {@link #getEventTypes()}.
+     *
+     * @param eventType the event type name
+     * @return the index, or -1 if this module has no such type
+     */
+    int indexOf(String eventType);
+
+    /**
+     * Whether this is the shared event library, whose types a service may shadow with its own classes.
+     */
+    default boolean isShared() {
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.restaurant.events.registry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.restaurant.events.DomainEvent;
+
+/**
+ * Registry of all domain event types, assembled from the providers generated at compile time.
+ * <p>
+ * Nothing is scanned or derived from class names: each module contributes a generated
+ * {@link EventTypeProvider} and type names are resolved through the providers' switches. A service may
+ * define its own class for a type of the shared event library, which then shadows the shared class; two
+ * service modules registering the same type name is an error.
+ * <p>
+ * Every type also gets an ordinal, dense across all providers, so callers can keep per-type state such as
+ * Jackson readers in plain arrays.
+ */
+public class EventTypeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventTypeRegistry.class);
+
+    private static volatile EventTypeRegistry defaultRegistry;
+
+    private final List<EventTypeProvider> providers;
+    private final int[] offsets;
+    private final List<EventTypeDescriptor> descriptors = new ArrayList<>();
+    private final Map<Class<?>, EventTypeDescriptor> byClass = new HashMap<>();
+    private final List<EventTypeDescriptor> eventTypes = new ArrayList<>();
+
+    public EventTypeRegistry(Collection<? extends EventTypeProvider> providers) {
+        // Service providers are consulted first so their classes shadow the shared ones
+        this.providers = new ArrayList<>(providers);
+        this.providers.sort(Comparator.comparing(EventTypeProvider::isShared));
+        this.offsets = new int[this.providers.size()];
+
+        Map<String, EventTypeDescriptor> byName = new HashMap<>();
+        for (int i = 0; i < this.providers.size(); i++) {
+            EventTypeProvider provider = this.providers.get(i);
+            offsets[i] = descriptors.size();
+            for (EventTypeDescriptor descriptor : provider.getEventTypes()) {
+                descriptors.add(descriptor);
+                byClass.put(descriptor.getEventClass(), descriptor);
+                EventTypeDescriptor existing = byName.putIfAbsent(descriptor.getTypeName(), descriptor);
+                if (existing == null) {
+                    eventTypes.add(descriptor);
+                } else if (provider.isShared()) {
+                    logger.debug("Event type {} of {} is shadowed by {}", descriptor.getTypeName(),
+                        descriptor.getEventClass().getName(), existing.getEventClass().getName());
+                } else {
+                    throw new IllegalStateException("Event type " + descriptor.getTypeName() + " is registered by both "
+                        + existing.getEventClass().getName() + " and " + descriptor.getEventClass().getName());
+                }
+            }
+        }
+        logger.info("Registered {} event types from {} providers", eventTypes.size(), this.providers.size());
+    }
+
+    /**
+     * Gets the registry of all providers visible to the context class loader.
+     */
+    public static EventTypeRegistry getDefault() {
+        EventTypeRegistry registry = defaultRegistry;
+        if (registry == null) {
+            synchronized (EventTypeRegistry.class) {
+                registry = defaultRegistry;
+                if (registry == null) {
+                    List<EventTypeProvider> providers = new ArrayList<>();
+                    ServiceLoader.load(EventTypeProvider.class).forEach(providers::add);
+                    registry = new EventTypeRegistry(providers);
+                    defaultRegistry = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Resolves a type name to its ordinal.
+     *
+     * @param eventType the event type name
+     * @return the ordinal, or -1 if the type is not registered
+     */
+    public int ordinalOf(String eventType) {
+        for (int i = 0; i < providers.size(); i++) {
+            int index = providers.get(i).indexOf(eventType);
+            if (index >= 0) {
+                return offsets[i] + index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the descriptor with the given ordinal.
+     */
+    public EventTypeDescriptor getDescriptor(int ordinal) {
+        return descriptors.get(ordinal);
+    }
+
+    /**
+     * Finds an event type by name.
+     *
+     * @param eventType the event type name
+     * @return the descriptor, or null if the type is not registered
+     */
+    public EventTypeDescriptor find(String eventType) {
+        int ordinal = ordinalOf(eventType);
+        return ordinal >= 0 ? descriptors.get(ordinal) : null;
+    }
+
+    /**
+     * Finds the event type of a class.
+     *
+     * @param eventClass the event class
+     * @return the descriptor, or null if the class is not registered
+     */
+    public EventTypeDescriptor find(Class<?> eventClass) {
+        return byClass.get(eventClass);
+    }
+
+    /**
+     * Gets the event type of a class.
+     *
+     * @param eventClass the event class
+     * @return the descriptor
+     * @throws IllegalArgumentException if the class is not registered
+     */
+    public EventTypeDescriptor get(Class<? extends DomainEvent> eventClass) {
+        EventTypeDescriptor descriptor = byClass.get(eventClass);
+        if (descriptor == null) {
+            throw new IllegalArgumentException("Event class is not registered, annotate it with @EventType: " + eventClass.getName());
+        }
+        return descriptor;
+    }
+
+    /**
+     * Gets the effective event types, one per type name.
+     */
+    public List<EventTypeDescriptor> getEventTypes() {
+        return List.copyOf(eventTypes);
+    }
+
+    /**
+     * Gets the number of ordinals, including shadowed types.
+     */
+    public int size() {
+        return descriptors.size();
+    }
+}
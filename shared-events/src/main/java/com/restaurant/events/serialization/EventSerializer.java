@@ -1,26 +1,53 @@
 package com.restaurant.events.serialization;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventTypeRegistry;
 
 /**
  * Utility class for serializing and deserializing domain events.
  * Provides consistent JSON serialization across the system.
+ * <p>
+ * Readers and writers are prepared per registered event type up front. Deserialization peeks the
+ * "eventType" property, resolves it through the generated registry and uses that type's reader, so the
+ * polymorphic lookup only runs for payloads without a known type.
  */
 public class EventSerializer {
     
+    private static final String TYPE_PROPERTY = "eventType";
+    
     private final ObjectMapper objectMapper;
+    private final EventTypeRegistry registry;
+    private final ObjectReader[] readers;
+    private final Map<Class<?>, ObjectWriter> writers = new HashMap<>();
     
     public EventSerializer() {
-        this.objectMapper = createObjectMapper();
+        this(createObjectMapper(), EventTypeRegistry.getDefault());
     }
     
     public EventSerializer(ObjectMapper objectMapper) {
+        this(objectMapper, EventTypeRegistry.getDefault());
+    }
+    
+    public EventSerializer(ObjectMapper objectMapper, EventTypeRegistry registry) {
         this.objectMapper = objectMapper;
+        this.registry = registry;
+        this.readers = new ObjectReader[registry.size()];
+        for (int ordinal = 0; ordinal < readers.length; ordinal++) {
+            Class<? extends DomainEvent> eventClass = registry.getDescriptor(ordinal).getEventClass();
+            readers[ordinal] = objectMapper.readerFor(eventClass);
+            writers.put(eventClass, objectMapper.writerFor(eventClass));
+        }
     }
     
     /**
@@ -32,7 +59,7 @@ public class EventSerializer {
      */
     public String serialize(DomainEvent event) {
         try {
-            return objectMapper.writeValueAsString(event);
+            return writerFor(event).writeValueAsString(event);
         } catch (JsonProcessingException e) {
             throw new EventSerializationException("Failed to serialize event: " + event.getEventId(), e);
         }
@@ -47,8 +74,9 @@ public class EventSerializer {
      */
     public DomainEvent deserialize(String json) {
         try {
-            return objectMapper.readValue(json, DomainEvent.class);
-        } catch (JsonProcessingException e) {
+            int ordinal = registry.ordinalOf(peekEventType(objectMapper.getFactory().createParser(json)));
+            return ordinal >= 0 ? readers[ordinal].readValue(json) : objectMapper.readValue(json, DomainEvent.class);
+        } catch (IOException e) {
             throw new EventSerializationException("Failed to deserialize event from JSON: " + json, e);
         }
     }
@@ -79,7 +107,7 @@ public class EventSerializer {
      */
     public byte[] serializeToBytes(DomainEvent event) {
         try {
-            return objectMapper.writeValueAsBytes(event);
+            return writerFor(event).writeValueAsBytes(event);
         } catch (JsonProcessingException e) {
             throw new EventSerializationException("Failed to serialize event to bytes: " + event.getEventId(), e);
         }
@@ -94,12 +122,40 @@ public class EventSerializer {
      */
     public DomainEvent deserializeFromBytes(byte[] bytes) {
         try {
-            return objectMapper.readValue(bytes, DomainEvent.class);
+            int ordinal = registry.ordinalOf(peekEventType(objectMapper.getFactory().createParser(bytes)));
+            return ordinal >= 0 ? readers[ordinal].readValue(bytes) : objectMapper.readValue(bytes, DomainEvent.class);
         } catch (IOException e) {
             throw new EventSerializationException("Failed to deserialize event from bytes", e);
         }
     }
     
+    private ObjectWriter writerFor(DomainEvent event) {
+        ObjectWriter writer = writers.get(event.getClass());
+        return writer != null ? writer : objectMapper.writer();
+    }
+    
+    /**
+     * Reads the top-level "eventType" property, which DomainEvent writes first, without binding the event.
+     * 
+     * @return the event type name, or an empty string if the payload has none
+     */
+    private static String peekEventType(JsonParser parser) throws IOException {
+        try (parser) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return "";
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (TYPE_PROPERTY.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : "";
+                }
+                parser.skipChildren();
+            }
+            return "";
+        }
+    }
+    
     /**
      * Creates a configured ObjectMapper for event serialization.
      * 
@@ -3,6 +3,8 @@ package com.restaurant.events.store;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventTypeDescriptor;
+import com.restaurant.events.registry.EventTypeRegistry;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +23,7 @@ public class MySqlEventStore implements EventStore {
     
     private final JdbcTemplate jdbcTemplate;
     private final ObjectMapper objectMapper;
+    private final EventTypeRegistry registry;
     
     private static final String INSERT_EVENT_SQL = 
         "INSERT INTO events (aggregate_id, event_type, event_data, event_version, created_at) VALUES (?, ?, ?, ?, ?)";
@@ -38,8 +41,13 @@ public class MySqlEventStore implements EventStore {
         "SELECT COALESCE(MAX(event_version), 0) FROM events WHERE aggregate_id = ?";
     
     public MySqlEventStore(DataSource dataSource, ObjectMapper objectMapper) {
+        this(dataSource, objectMapper, EventTypeRegistry.getDefault());
+    }
+    
+    public MySqlEventStore(DataSource dataSource, ObjectMapper objectMapper, EventTypeRegistry registry) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
         this.objectMapper = objectMapper;
+        this.registry = registry;
     }
     
     @Override
@@ -95,7 +103,7 @@ public class MySqlEventStore implements EventStore {
     @SuppressWarnings("unchecked")
     public <T extends DomainEvent> List<T> getEventsByType(Class<T> eventType) {
         try {
-            String eventTypeName = getEventTypeName(eventType);
+            String eventTypeName = registry.get(eventType).getTypeName();
             List<DomainEvent> events = jdbcTemplate.query(SELECT_EVENTS_BY_TYPE_SQL,
                 new Object[]{eventTypeName},
                 new EventRowMapper());
@@ -119,18 +127,15 @@ public class MySqlEventStore implements EventStore {
         }
     }
     
-    private String getEventTypeName(Class<? extends DomainEvent> eventType) {
-        // Extract event type name from class name (remove "Event" suffix if present)
-        String className = eventType.getSimpleName();
-        return className.endsWith("Event") ? className.substring(0, className.length() - 5) : className;
-    }
-    
     private class EventRowMapper implements RowMapper<DomainEvent> {
         @Override
         public DomainEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
             try {
                 String eventData = rs.getString("event_data");
-                return objectMapper.readValue(eventData, DomainEvent.class);
+                // The stored type name picks the concrete class, skipping the polymorphic lookup
+                EventTypeDescriptor descriptor = registry.find(rs.getString("event_type"));
+                Class<? extends DomainEvent> eventClass = descriptor != null ? descriptor.getEventClass() : DomainEvent.class;
+                return objectMapper.readValue(eventData, eventClass);
             } catch (JsonProcessingException e) {
                 throw new SQLException("Failed to deserialize event data", e);
             }
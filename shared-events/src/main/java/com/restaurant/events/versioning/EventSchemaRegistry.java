@@ -1,40 +1,49 @@
 package com.restaurant.events.versioning;
 
 import com.restaurant.events.DomainEvent;
+import com.restaurant.events.registry.EventTypeDescriptor;
+import com.restaurant.events.registry.EventTypeRegistry;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Registry for managing event schema versions and evolution.
  * Supports backward compatibility and schema migration.
+ * Starts out with every event type of the generated {@link EventTypeRegistry}.
  */
 public class EventSchemaRegistry {
     
     private final Map<String, Map<Integer, Class<? extends DomainEvent>>> eventVersions;
     private final Map<String, Integer> latestVersions;
+    private final EventTypeRegistry eventTypeRegistry;
     
     public EventSchemaRegistry() {
+        this(EventTypeRegistry.getDefault());
+    }
+    
+    public EventSchemaRegistry(EventTypeRegistry eventTypeRegistry) {
         this.eventVersions = new ConcurrentHashMap<>();
         this.latestVersions = new ConcurrentHashMap<>();
+        this.eventTypeRegistry = eventTypeRegistry;
+        for (EventTypeDescriptor descriptor : eventTypeRegistry.getEventTypes()) {
+            register(descriptor.getTypeName(), descriptor.getVersion(), descriptor.getEventClass());
+        }
     }
     
     /**
-     * Registers an event class with its version information.
+     * Registers an event class with its version information, e.g. an older schema version kept for reading.
      * 
      * @param eventClass the event class to register
+     * @throws IllegalArgumentException if the class is not annotated with @EventType
      */
     public void registerEventClass(Class<? extends DomainEvent> eventClass) {
-        EventVersion versionAnnotation = eventClass.getAnnotation(EventVersion.class);
-        if (versionAnnotation == null) {
-            throw new IllegalArgumentException("Event class must be annotated with @EventVersion: " + eventClass.getName());
-        }
-        
-        String eventType = getEventTypeName(eventClass);
-        int version = versionAnnotation.value();
-        
-        eventVersions.computeIfAbsent(eventType, k -> new HashMap<>()).put(version, eventClass);
+        EventTypeDescriptor descriptor = eventTypeRegistry.get(eventClass);
+        register(descriptor.getTypeName(), descriptor.getVersion(), eventClass);
+    }
+    
+    private void register(String eventType, int version, Class<? extends DomainEvent> eventClass) {
+        eventVersions.computeIfAbsent(eventType, k -> new ConcurrentHashMap<>()).put(version, eventClass);
         latestVersions.merge(eventType, version, Integer::max);
     }
     
@@ -95,12 +104,4 @@ public class EventSchemaRegistry {
         }
         return versions.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
     }
-    
-    /**
-     * Extracts event type name from class name.
-     */
-    private String getEventTypeName(Class<? extends DomainEvent> eventClass) {
-        String className = eventClass.getSimpleName();
-        return className.endsWith("Event") ? className.substring(0, className.length() - 5) : className;
-    }
 }
\ No newline at end of file
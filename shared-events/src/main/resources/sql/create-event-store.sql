@@ -21,12 +21,48 @@ CREATE TABLE IF NOT EXISTS events (
 );
 
 -- Table for tracking processed events to ensure idempotency
+-- Partitioned by day so retention drops whole partitions (see ProcessedEventsPartitionMaintainer).
+-- The partitioning column is the event's own occurredOn, which every redelivery carries unchanged,
+-- so (event_id, occurred_on) still identifies an event and the primary key rejects duplicates.
 CREATE TABLE IF NOT EXISTS processed_events (
-    event_id VARCHAR(255) PRIMARY KEY,
-    processed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    event_id VARCHAR(255) NOT NULL,
+    occurred_on DATETIME(3) NOT NULL,
+    processed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    
+    PRIMARY KEY (event_id, occurred_on)
+)
+PARTITION BY RANGE COLUMNS (occurred_on) (
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+
+-- Table for version-watermark idempotency: one row per aggregate per consuming processor
+-- and topic, since events of one aggregate are only ordered within a topic
+CREATE TABLE IF NOT EXISTS aggregate_watermarks (
+    processor_name VARCHAR(100) NOT NULL,
+    topic VARCHAR(249) NOT NULL,
+    aggregate_id VARCHAR(255) NOT NULL,
+    version INT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    
+    PRIMARY KEY (processor_name, topic, aggregate_id),
+    INDEX idx_processor_updated_at (processor_name, updated_at)
+);
+
+-- Table for the durable delay queue; rows are leased by the node that holds them in memory
+CREATE TABLE IF NOT EXISTS delayed_tasks (
+    task_id VARCHAR(64) PRIMARY KEY,
+    task_type VARCHAR(100) NOT NULL,
+    payload TEXT,
+    due_at DATETIME(3) NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    lease_owner VARCHAR(100),
+    lease_until DATETIME(3),
+    claim_token VARCHAR(64),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
-    -- Index for cleanup operations
-    INDEX idx_processed_at (processed_at)
+    INDEX idx_task_type_due_at (task_type, due_at),
+    INDEX idx_lease_owner (lease_owner),
+    INDEX idx_claim_token (claim_token)
 );
 
 -- Table for tracking failed events from dead letter queue
@@ -0,0 +1,29 @@
+-- Migrates an existing processed_events table to daily range partitioning.
+-- Run once per service database during a maintenance window; afterwards
+-- ProcessedEventsPartitionMaintainer creates upcoming daily partitions and
+-- drops those older than the redelivery horizon.
+
+-- Rows are partitioned by the event's own occurredOn so that the primary key
+-- (event_id, occurred_on) still rejects a redelivered event. Existing rows never
+-- recorded it and are filed under their processing time, which a redelivery will
+-- not match; stop consumers and let them catch up before migrating.
+ALTER TABLE processed_events
+    ADD COLUMN occurred_on DATETIME(3) NULL AFTER event_id;
+
+UPDATE processed_events SET occurred_on = processed_at;
+
+-- RANGE COLUMNS partitioning requires DATETIME, and the partitioning column
+-- must be part of the primary key
+ALTER TABLE processed_events
+    MODIFY occurred_on DATETIME(3) NOT NULL,
+    MODIFY processed_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    DROP INDEX idx_processed_at,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (event_id, occurred_on);
+
+-- All existing rows start in the catch-all partition; the maintainer splits
+-- daily partitions off it and the first one inherits the historical rows
+ALTER TABLE processed_events
+    PARTITION BY RANGE COLUMNS (occurred_on) (
+        PARTITION p_future VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,12 @@
+-- Migrates aggregate_watermarks to one watermark per aggregate and topic.
+-- Run once per service database during a maintenance window.
+
+-- Existing watermarks cannot be attributed to a topic and are dropped; an event
+-- redelivered afterwards would be applied again, so stop consumers and let them
+-- catch up before migrating.
+DELETE FROM aggregate_watermarks;
+
+ALTER TABLE aggregate_watermarks
+    ADD COLUMN topic VARCHAR(249) NOT NULL AFTER processor_name,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (processor_name, topic, aggregate_id);
@@ -2,6 +2,7 @@ package com.restaurant.user.consumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.user.domain.User;
 import com.restaurant.user.domain.UserProfile;
 import com.restaurant.user.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -9,57 +10,78 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class UserEventConsumer {
-    
+
     private final UserService userService;
     private final ObjectMapper objectMapper;
-    
+
     @KafkaListener(
-        topics = "user-creation-events", 
+        topics = "user-creation-events",
         groupId = "user-service-group",
-        containerFactory = "stringKafkaListenerContainerFactory"
+        containerFactory = "stringBatchKafkaListenerContainerFactory"
     )
-    public void consumeUserCreationEvent(String message) {
-        log.info("Received user creation event from Kafka: {}", message);
-        
+    public void consumeUserCreationEvents(List<String> messages) {
+        log.info("Received batch of {} user creation events from Kafka", messages.size());
+
+        List<User> users = new ArrayList<>(messages.size());
+        for (String message : messages) {
+            User user = parseUserCreationEvent(message);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Save to database
+            List<User> savedUsers = userService.saveUsersFromEvents(users);
+            log.info("Successfully processed {} of {} user creation events", savedUsers.size(), messages.size());
+        } catch (Exception e) {
+            log.error("Error processing user creation event batch: {}", e.getMessage(), e);
+        }
+    }
+
+    private User parseUserCreationEvent(String message) {
         try {
             // Validate JSON format
             if (message == null || message.trim().isEmpty() || !message.trim().startsWith("{")) {
                 log.warn("Invalid message format, skipping: {}", message);
-                return;
+                return null;
             }
-            
+
             // Parse JSON
             JsonNode jsonNode = objectMapper.readTree(message);
-            
+
             // Validate required fields
-            if (!jsonNode.has("userId") || !jsonNode.has("email") || 
+            if (!jsonNode.has("userId") || !jsonNode.has("email") ||
                 !jsonNode.has("firstName") || !jsonNode.has("lastName")) {
                 log.warn("Missing required fields in message, skipping: {}", message);
-                return;
+                return null;
             }
-            
+
             String userId = jsonNode.get("userId").asText();
             String email = jsonNode.get("email").asText();
             String firstName = jsonNode.get("firstName").asText();
             String lastName = jsonNode.get("lastName").asText();
             String phone = jsonNode.has("phone") ? jsonNode.get("phone").asText() : null;
-            
+
             // Create UserProfile
             UserProfile profile = new UserProfile(firstName, lastName, phone);
-            
-            // Save to database
-            userService.saveUserFromEvent(userId, email, profile);
-            
-            log.info("Successfully processed user creation event for userId: {}", userId);
-            
+            return new User(userId, email, profile);
+
         } catch (com.fasterxml.jackson.core.JsonParseException e) {
             log.error("Invalid JSON format in message: {}", message, e);
         } catch (Exception e) {
-            log.error("Error processing user creation event: {}", e.getMessage(), e);
+            log.error("Error parsing user creation event: {}", e.getMessage(), e);
         }
+        return null;
     }
 }
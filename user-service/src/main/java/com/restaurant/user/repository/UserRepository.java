@@ -1,6 +1,7 @@
 package com.restaurant.user.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +25,16 @@ public interface UserRepository extends MongoRepository<User, String> {
      */
     Optional<User> findByEmail(String email);
     
+    /**
+     * Find users by a batch of userIds
+     */
+    List<User> findByUserIdIn(Collection<String> userIds);
+    
+    /**
+     * Find users by a batch of emails
+     */
+    List<User> findByEmailIn(Collection<String> emails);
+    
     /**
      * Check if user exists by userId
      */
@@ -8,8 +8,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -58,6 +61,58 @@ public class UserService {
         return savedUser;
     }
     
+    /**
+     * Saves a batch of users from Kafka events with two existence queries and one bulk insert.
+     * Falls back to saving users one by one if the bulk insert fails.
+     */
+    public List<User> saveUsersFromEvents(List<User> users) {
+        log.info("Saving batch of {} users from Kafka events", users.size());
+        
+        Set<String> userIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        users.forEach(user -> {
+            userIds.add(user.getUserId());
+            emails.add(user.getEmail());
+        });
+        
+        Set<String> existingUserIds = new HashSet<>();
+        Set<String> existingEmails = new HashSet<>();
+        userRepository.findByUserIdIn(userIds).forEach(user -> existingUserIds.add(user.getUserId()));
+        userRepository.findByEmailIn(emails).forEach(user -> existingEmails.add(user.getEmail()));
+        
+        List<User> newUsers = new ArrayList<>();
+        for (User user : users) {
+            // add() also skips duplicates within the batch
+            if (!existingUserIds.add(user.getUserId())) {
+                log.warn("User with ID {} already exists, skipping", user.getUserId());
+            } else if (!existingEmails.add(user.getEmail())) {
+                log.warn("User with email {} already exists, skipping", user.getEmail());
+            } else {
+                newUsers.add(user);
+            }
+        }
+        if (newUsers.isEmpty()) {
+            return newUsers;
+        }
+        
+        try {
+            List<User> savedUsers = userRepository.saveAll(newUsers);
+            log.info("Saved {} users to database from Kafka events", savedUsers.size());
+            return savedUsers;
+        } catch (Exception e) {
+            log.warn("Bulk save of {} users failed, saving them individually", newUsers.size(), e);
+            List<User> savedUsers = new ArrayList<>();
+            for (User user : newUsers) {
+                try {
+                    savedUsers.add(saveUserFromEvent(user.getUserId(), user.getEmail(), user.getProfile()));
+                } catch (Exception ex) {
+                    log.error("Failed to save user {} from Kafka event: {}", user.getUserId(), ex.getMessage(), ex);
+                }
+            }
+            return savedUsers;
+        }
+    }
+    
     public Optional<User> getUserById(String userId) {
         return userRepository.findByUserId(userId);
     }